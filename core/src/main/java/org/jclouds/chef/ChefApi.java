@@ -22,6 +22,7 @@ import java.io.Closeable;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Named;
@@ -37,6 +38,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 
 import org.jclouds.Constants;
+import org.jclouds.Fallbacks.EmptyMapOnNotFoundOr404;
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
 import org.jclouds.Fallbacks.FalseOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
@@ -50,12 +52,15 @@ import org.jclouds.chef.binders.DatabagItemId;
 import org.jclouds.chef.binders.EnvironmentName;
 import org.jclouds.chef.binders.NodeName;
 import org.jclouds.chef.binders.RoleName;
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.domain.CookbookDefinition;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.domain.DatabagItem;
 import org.jclouds.chef.domain.Environment;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.RawDatabagItem;
+import org.jclouds.chef.domain.RawNode;
 import org.jclouds.chef.domain.Resource;
 import org.jclouds.chef.domain.Role;
 import org.jclouds.chef.domain.Sandbox;
@@ -66,15 +71,23 @@ import org.jclouds.chef.functions.ParseCookbookDefinitionCheckingChefVersion;
 import org.jclouds.chef.functions.ParseCookbookDefinitionFromJsonv10;
 import org.jclouds.chef.functions.ParseCookbookDefinitionListFromJsonv10;
 import org.jclouds.chef.functions.ParseCookbookVersionsCheckingChefVersion;
+import org.jclouds.chef.functions.ParseCookbookVersionsOfAllCookbooksFromJson;
 import org.jclouds.chef.functions.ParseKeySetFromJson;
+import org.jclouds.chef.functions.ParseNodeFromJson;
+import org.jclouds.chef.functions.ParsePartialSearchFromJson;
+import org.jclouds.chef.functions.ParseRawNodeFromJson;
 import org.jclouds.chef.functions.ParseSearchClientsFromJson;
 import org.jclouds.chef.functions.ParseSearchDatabagFromJson;
 import org.jclouds.chef.functions.ParseSearchEnvironmentsFromJson;
 import org.jclouds.chef.functions.ParseSearchNodesFromJson;
+import org.jclouds.chef.functions.ParseSearchRawDatabagFromJson;
+import org.jclouds.chef.functions.ParseSearchRawNodesFromJson;
 import org.jclouds.chef.functions.ParseSearchRolesFromJson;
 import org.jclouds.chef.functions.UriForResource;
 import org.jclouds.chef.options.CreateClientOptions;
+import org.jclouds.chef.options.NodeProjection;
 import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.domain.JsonBall;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.io.Payload;
 import org.jclouds.rest.AuthorizationException;
@@ -105,6 +118,19 @@ public interface ChefApi extends Closeable {
     */
    public static final String VERSION = "0.10.8";
 
+   /**
+    * Creates a new sandbox. It accepts a list of checksums as input and returns
+    * the URLs against which to PUT files that need to be uploaded.
+    * 
+    * @param checksums
+    *           the md5s of the files to upload.
+    * @return The URLs against which to PUT files that need to be uploaded.
+    */
+   @Named("sandbox:upload")
+   @POST
+   @Path("/sandboxes")
+   UploadSandbox createUploadSandbox(@BinderParam(BindChecksumsToJsonPayload.class) Set<Checksum> checksums);
+
    /**
     * Creates a new sandbox. It accepts a list of checksums as input and returns
     * the URLs against which to PUT files that need to be uploaded.
@@ -113,7 +139,10 @@ public interface ChefApi extends Closeable {
     *           raw md5s; uses {@code Bytes.asList()} and
     *           {@code Bytes.toByteArray()} as necessary
     * @return The URLs against which to PUT files that need to be uploaded.
+    * @deprecated use {@link #createUploadSandbox(Set)}, which does not box
+    *             each byte of the checksums.
     */
+   @Deprecated
    @Named("sandbox:upload")
    @POST
    @Path("/sandboxes")
@@ -205,6 +234,25 @@ public interface ChefApi extends Closeable {
    @Fallback(EmptySetOnNotFoundOr404.class)
    Set<String> getVersionsOfCookbook(@PathParam("cookbookname") String cookbookName);
 
+   /**
+    * Gets the versions of all the cookbooks in a single request.
+    * 
+    * @return the versions of each cookbook, keyed by the cookbook name
+    * @throws AuthorizationException
+    *            <p/>
+    *            "401 Unauthorized" if the caller is not a recognized user.
+    *            <p/>
+    *            "403 Forbidden" if you do not have permission to see the
+    *            cookbook list.
+    */
+   @SinceApiVersion("0.10.0")
+   @Named("cookbook:listversions")
+   @GET
+   @Path("/cookbooks?num_versions=all")
+   @ResponseParser(ParseCookbookVersionsOfAllCookbooksFromJson.class)
+   @Fallback(EmptyMapOnNotFoundOr404.class)
+   Map<String, Set<String>> listVersionsOfCookbooks();
+
    /**
     * Returns a description of the cookbook, with links to all of its component
     * parts, and the metadata.
@@ -431,6 +479,40 @@ public interface ChefApi extends Closeable {
    @Fallback(NullOnNotFoundOr404.class)
    Node getNode(@PathParam("nodename") String nodename);
 
+   /**
+    * gets an existing node, keeping only the attributes selected by the
+    * projection.
+    * 
+    * @throws AuthorizationException
+    *            <p/>
+    *            "401 Unauthorized" if you are not a recognized user.
+    *            <p/>
+    *            "403 Forbidden" if you do not have view rights on the node.
+    */
+   @Named("node:get")
+   @GET
+   @Path("/nodes/{nodename}")
+   @ResponseParser(ParseNodeFromJson.class)
+   @Fallback(NullOnNotFoundOr404.class)
+   Node getNode(@PathParam("nodename") String nodename, NodeProjection projection);
+
+   /**
+    * gets an existing node, keeping its attributes as raw json until they are
+    * accessed.
+    * 
+    * @throws AuthorizationException
+    *            <p/>
+    *            "401 Unauthorized" if you are not a recognized user.
+    *            <p/>
+    *            "403 Forbidden" if you do not have view rights on the node.
+    */
+   @Named("node:get")
+   @GET
+   @Path("/nodes/{nodename}")
+   @ResponseParser(ParseRawNodeFromJson.class)
+   @Fallback(NullOnNotFoundOr404.class)
+   RawNode getRawNode(@PathParam("nodename") String nodename);
+
    /**
     * creates a new role
     * 
@@ -788,6 +870,34 @@ public interface ChefApi extends Closeable {
    @ResponseParser(ParseSearchNodesFromJson.class)
    SearchResult<? extends Node> searchNodes(SearchOptions options);
 
+   /**
+    * search all nodes that match the given options, keeping only the
+    * attributes selected by the projection.
+    * 
+    * @return The response contains the total number of rows that matched your
+    *         request, the position this result set returns (useful for paging)
+    *         and the rows themselves.
+    */
+   @Named("search:nodes")
+   @GET
+   @Path("/search/node")
+   @ResponseParser(ParseSearchNodesFromJson.class)
+   SearchResult<? extends Node> searchNodes(SearchOptions options, NodeProjection projection);
+
+   /**
+    * search all nodes that match the given options, keeping their attributes
+    * as raw json until they are accessed.
+    * 
+    * @return The response contains the total number of rows that matched your
+    *         request, the position this result set returns (useful for paging)
+    *         and the rows themselves.
+    */
+   @Named("search:nodes")
+   @GET
+   @Path("/search/node")
+   @ResponseParser(ParseSearchRawNodesFromJson.class)
+   SearchResult<RawNode> searchRawNodes(SearchOptions options);
+
    /**
     * search all items in a databag.
     * <p/>
@@ -817,6 +927,72 @@ public interface ChefApi extends Closeable {
    @ResponseParser(ParseSearchDatabagFromJson.class)
    SearchResult<? extends DatabagItem> searchDatabag(@PathParam("databagName") String databagName, SearchOptions options);
 
+   /**
+    * search all items in a databag, keeping each item as the raw UTF-8 bytes
+    * of its json.
+    * 
+    * @return The response contains the total number of rows that matched your
+    *         request, the position this result set returns (useful for paging)
+    *         and the rows themselves.
+    */
+   @Named("search:databag")
+   @GET
+   @Path("/search/{databagName}")
+   @ResponseParser(ParseSearchRawDatabagFromJson.class)
+   SearchResult<RawDatabagItem> searchRawDatabag(@PathParam("databagName") String databagName);
+
+   /**
+    * search all items in a databag that match the given options, keeping each
+    * item as the raw UTF-8 bytes of its json.
+    * 
+    * @return The response contains the total number of rows that matched your
+    *         request, the position this result set returns (useful for paging)
+    *         and the rows themselves.
+    */
+   @Named("search:databag")
+   @GET
+   @Path("/search/{databagName}")
+   @ResponseParser(ParseSearchRawDatabagFromJson.class)
+   SearchResult<RawDatabagItem> searchRawDatabag(@PathParam("databagName") String databagName, SearchOptions options);
+
+   /**
+    * search all objects in the given index, only returning the requested
+    * attributes of each object.
+    * <p/>
+    * Note that without any request parameters this will return all of the data
+    * within the index.
+    * 
+    * @param index
+    *           the index to search, such as node, role, client, environment or
+    *           the name of a databag.
+    * @param keys
+    *           the attributes to return, keyed by the name to use in the
+    *           results. Each attribute is given as its path in the object, such
+    *           as ["kernel", "release"].
+    * @return The response contains the position this result set returns
+    *         (useful for paging) and the requested attributes of each object.
+    *         Attributes that do not exist in an object are returned as null.
+    */
+   @Named("search:partial")
+   @POST
+   @Path("/search/{index}")
+   @ResponseParser(ParsePartialSearchFromJson.class)
+   SearchResult<Map<String, JsonBall>> partialSearch(@PathParam("index") String index,
+         @BinderParam(BindToJsonPayload.class) Map<String, List<String>> keys);
+
+   /**
+    * search all objects in the given index that match the given options, only
+    * returning the requested attributes of each object.
+    * 
+    * @see #partialSearch(String, Map)
+    */
+   @Named("search:partial")
+   @POST
+   @Path("/search/{index}")
+   @ResponseParser(ParsePartialSearchFromJson.class)
+   SearchResult<Map<String, JsonBall>> partialSearch(@PathParam("index") String index,
+         @BinderParam(BindToJsonPayload.class) Map<String, List<String>> keys, SearchOptions options);
+
    /**
     * search all items in a environment that match the given options.
     * 
@@ -845,6 +1021,23 @@ public interface ChefApi extends Closeable {
    @ResponseParser(ParseSearchEnvironmentsFromJson.class)
    SearchResult<? extends Environment> searchEnvironments(SearchOptions options);
 
+   /**
+    * search the given index, returning the response as it is read, so the rows
+    * can be parsed one at a time with a
+    * {@link org.jclouds.chef.functions.ParseSearchResultFromJson}.
+    * 
+    * @param index
+    *           The index to search, such as node, role or the name of a
+    *           databag.
+    * @return The response contains the total number of rows that matched your
+    *         request, the position this result set returns (useful for paging)
+    *         and the rows themselves. The caller must close it.
+    */
+   @Named("search:stream")
+   @GET
+   @Path("/search/{index}")
+   InputStream streamSearch(@PathParam("index") String index, SearchOptions options);
+
    /**
     * Get the contents of the given resource.
     * 
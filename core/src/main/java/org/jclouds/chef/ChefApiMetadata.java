@@ -22,7 +22,21 @@ import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
 import static org.jclouds.Constants.PROPERTY_TIMEOUTS_PREFIX;
+import static org.jclouds.chef.config.ChefProperties.CHEF_AUTOMATIC_ATTRIBUTES_HEARTBEAT;
 import static org.jclouds.chef.config.ChefProperties.CHEF_BOOTSTRAP_DATABAG;
+import static org.jclouds.chef.config.ChefProperties.CHEF_CHECKSUM_CACHE_DIR;
+import static org.jclouds.chef.config.ChefProperties.CHEF_INITIAL_CONCURRENCY;
+import static org.jclouds.chef.config.ChefProperties.CHEF_LIST_NODES_WITH_SEARCH;
+import static org.jclouds.chef.config.ChefProperties.CHEF_MAX_CONCURRENCY;
+import static org.jclouds.chef.config.ChefProperties.CHEF_METRICS_JMX;
+import static org.jclouds.chef.config.ChefProperties.CHEF_OHAI_REFRESH_INTERVAL;
+import static org.jclouds.chef.config.ChefProperties.CHEF_OHAI_REFRESH_JITTER;
+import static org.jclouds.chef.config.ChefProperties.CHEF_OHAI_TIME_BUDGET;
+import static org.jclouds.chef.config.ChefProperties.CHEF_RESOURCE_CACHE_DIR;
+import static org.jclouds.chef.config.ChefProperties.CHEF_RESOURCE_CACHE_SIZE;
+import static org.jclouds.chef.config.ChefProperties.CHEF_SEARCH_PAGE_SIZE;
+import static org.jclouds.chef.config.ChefProperties.CHEF_SEARCH_PARALLEL_PAGES;
+import static org.jclouds.chef.config.ChefProperties.CHEF_STREAMING_WINDOW;
 import static org.jclouds.chef.config.ChefProperties.CHEF_UPDATE_GEMS;
 import static org.jclouds.chef.config.ChefProperties.CHEF_UPDATE_GEM_SYSTEM;
 
@@ -75,6 +89,20 @@ public class ChefApiMetadata extends BaseHttpApiMetadata<ChefApi> {
       properties.setProperty(CHEF_BOOTSTRAP_DATABAG, "bootstrap");
       properties.setProperty(CHEF_UPDATE_GEM_SYSTEM, "false");
       properties.setProperty(CHEF_UPDATE_GEMS, "false");
+      properties.setProperty(CHEF_LIST_NODES_WITH_SEARCH, "false");
+      properties.setProperty(CHEF_SEARCH_PAGE_SIZE, "1000");
+      properties.setProperty(CHEF_SEARCH_PARALLEL_PAGES, "false");
+      properties.setProperty(CHEF_STREAMING_WINDOW, "50");
+      properties.setProperty(CHEF_INITIAL_CONCURRENCY, "10");
+      properties.setProperty(CHEF_MAX_CONCURRENCY, "100");
+      properties.setProperty(CHEF_OHAI_TIME_BUDGET, "0");
+      properties.setProperty(CHEF_AUTOMATIC_ATTRIBUTES_HEARTBEAT, "0");
+      properties.setProperty(CHEF_OHAI_REFRESH_INTERVAL, MINUTES.toMillis(30) + "");
+      properties.setProperty(CHEF_OHAI_REFRESH_JITTER, "0.1");
+      properties.setProperty(CHEF_METRICS_JMX, "true");
+      properties.setProperty(CHEF_RESOURCE_CACHE_DIR, "");
+      properties.setProperty(CHEF_RESOURCE_CACHE_SIZE, 1024L * 1024 * 1024 + "");
+      properties.setProperty(CHEF_CHECKSUM_CACHE_DIR, "");
       return properties;
    }
 
@@ -18,14 +18,18 @@
  */
 package org.jclouds.chef;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.Map;
 
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.domain.Environment;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.Resource;
+import org.jclouds.chef.functions.ParseSearchResultFromJson.RowHandler;
 import org.jclouds.chef.internal.BaseChefService;
 import org.jclouds.domain.JsonBall;
 import org.jclouds.rest.annotations.SinceApiVersion;
@@ -157,6 +161,43 @@ public interface ChefService {
 
    Iterable<? extends Node> listNodesNamed(Iterable<String> names);
 
+   /**
+    * Searches the given index, only retrieving the given attributes of the
+    * matching objects. The results are retrieved page by page as the returned
+    * iterable is consumed.
+    * 
+    * @param index
+    *           The index to search, such as node, role or the name of a
+    *           databag.
+    * @param query
+    *           The search query, such as "role:webserver".
+    * @param keys
+    *           The attributes to retrieve, keyed by the name to use in the
+    *           results. Each attribute is given as a dot separated path, such
+    *           as "kernel.release".
+    * @return The requested attributes of each matching object.
+    */
+   Iterable<Map<String, JsonBall>> partialSearch(String index, String query, Map<String, String> keys);
+
+   /**
+    * Searches the nodes, only retrieving the given attributes of the matching
+    * nodes.
+    * 
+    * @see #partialSearch(String, String, Map)
+    */
+   Iterable<Map<String, JsonBall>> partialSearchNodes(String query, Map<String, String> keys);
+
+   /**
+    * Searches the nodes one at a time. Each matching node is passed to the
+    * handler as soon as it has been parsed from the response, so only the node
+    * being handled is held in memory, however many nodes match.
+    * 
+    * @param query
+    *           The search query, such as "role:webserver".
+    * @return The number of nodes passed to the handler.
+    */
+   long searchNodes(String query, RowHandler<? super Node> handler);
+
    void deleteAllClientsInList(Iterable<String> names);
 
    Iterable<? extends Client> listClientsDetails();
@@ -165,12 +206,72 @@ public interface ChefService {
 
    Iterable<? extends Client> listClientsNamed(Iterable<String> names);
 
+   /**
+    * Lists the details of all the cookbook versions.
+    * <p>
+    * Note that {@link CookbookVersion#getAttributes()} returns the attribute
+    * files of each version, as {@link org.jclouds.chef.domain.Resource}s. It
+    * used to return metadata {@link org.jclouds.chef.domain.Attribute}s, into
+    * which those files were wrongly parsed, so code using it must be updated.
+    */
    Iterable<? extends CookbookVersion> listCookbookVersions();
 
    Iterable<? extends CookbookVersion> listCookbookVersionsMatching(Predicate<String> cookbookNameSelector);
 
    Iterable<? extends CookbookVersion> listCookbookVersionsNamed(Iterable<String> cookbookNames);
 
+   /**
+    * Uploads a cookbook from a local directory, such as the ones in a chef
+    * repository.
+    * <p>
+    * The checksums of the files are computed in parallel and only the files
+    * the server does not have yet are uploaded, concurrently. The
+    * {@code metadata.json} file compiled by knife is sent as the metadata of
+    * the cookbook, if present. If the version on the server already has the
+    * same files and metadata, it is not updated. The checksums are kept in the
+    * {@link org.jclouds.chef.config.ChefProperties#CHEF_CHECKSUM_CACHE_DIR},
+    * if configured, so unchanged files are not read again by the next upload.
+    * 
+    * @param directory
+    *           The directory of the cookbook.
+    * @param name
+    *           The name of the cookbook.
+    * @param version
+    *           The version of the cookbook to create or update.
+    * @return The cookbook version as stored in the server.
+    */
+   CookbookVersion uploadCookbook(File directory, String name, String version);
+
+   /**
+    * Gets the contents of a cookbook file.
+    * <p>
+    * When the {@link org.jclouds.chef.config.ChefProperties#CHEF_RESOURCE_CACHE_DIR
+    * resource cache} is enabled, the contents are read from it if another
+    * cookbook version with the same file has already been read, and stored in
+    * it otherwise.
+    * 
+    * @param resource
+    *           The file to get.
+    * @return The contents of the file, or null if it does not exist. The
+    *         caller must close the stream.
+    */
+   InputStream getResourceContents(Resource resource);
+
+   /**
+    * Downloads the files of the given cookbook versions, each to a
+    * subdirectory of the given directory named after the cookbook version,
+    * such as {@code apache2-1.0.0}.
+    * <p>
+    * Files already present with the right content are skipped, and the
+    * contents shared by several files are only downloaded once, concurrently.
+    * 
+    * @param directory
+    *           The directory to write the cookbook versions to.
+    * @param cookbookVersions
+    *           The cookbook versions to download.
+    */
+   void syncCookbookVersions(File directory, Iterable<? extends CookbookVersion> cookbookVersions);
+
    void updateAutomaticAttributesOnNode(String nodeName);
 
    @SinceApiVersion("0.10.0")
@@ -20,8 +20,6 @@ package org.jclouds.chef.binders;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.io.BaseEncoding.base16;
-import static com.google.common.primitives.Bytes.toArray;
 
 import java.util.List;
 import java.util.Set;
@@ -29,11 +27,13 @@ import java.util.Set;
 import javax.inject.Singleton;
 import javax.ws.rs.core.MediaType;
 
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.rest.binders.BindToStringPayload;
 
 /**
- * 
+ * Binds a set of {@link Checksum checksums} to the json of a sandbox request.
+ * Sets of raw md5s, as lists of bytes, are accepted too.
  * 
  * @author Adrian Cole
  */
@@ -44,18 +44,29 @@ public class BindChecksumsToJsonPayload extends BindToStringPayload {
    public HttpRequest bindToRequest(HttpRequest request, Object input) {
       checkArgument(checkNotNull(input, "input") instanceof Set, "this binder is only valid for Set!");
 
-      Set<List<Byte>> md5s = (Set<List<Byte>>) input;
+      Set<Object> checksums = (Set<Object>) input;
 
-      StringBuilder builder = new StringBuilder();
+      // each entry is "<32 hex digits>":null,
+      StringBuilder builder = new StringBuilder(16 + checksums.size() * 40);
       builder.append("{\"checksums\":{");
-
-      for (List<Byte> md5 : md5s)
-         builder.append(String.format("\"%s\":null,", base16().lowerCase().encode(toArray(md5))));
-      builder.deleteCharAt(builder.length() - 1);
+      boolean first = true;
+      for (Object checksum : checksums) {
+         if (!first)
+            builder.append(',');
+         builder.append('"').append(checksumOf(checksum)).append("\":null");
+         first = false;
+      }
       builder.append("}}");
       super.bindToRequest(request, builder.toString());
       request.getPayload().getContentMetadata().setContentType(MediaType.APPLICATION_JSON);
       return request;
    }
 
+   @SuppressWarnings("unchecked")
+   private static Checksum checksumOf(Object checksum) {
+      if (checksum instanceof Checksum)
+         return (Checksum) checksum;
+      checkArgument(checksum instanceof List, "checksums must be Checksum or List<Byte>; was %s", checksum);
+      return Checksum.fromList((List<Byte>) checksum);
+   }
 }
@@ -0,0 +1,222 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.cache;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.chef.config.ChefProperties.CHEF_CHECKSUM_CACHE_DIR;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.payloads.ChecksummedFilePayload;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.json.Json;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.gson.JsonParseException;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Keeps the checksums of the files of local cookbook directories between
+ * uploads, so the files that have not changed are not read again.
+ * <p>
+ * As knife does, a file is considered unchanged if its size and modification
+ * time have not changed. The checksums of each cookbook directory are kept in
+ * a json file named after the md5 of the directory path.
+ */
+@Singleton
+public class ChecksumCache {
+
+   /** Files modified this recently may change again without a new time. */
+   private static final long MODIFICATION_TIME_RESOLUTION = 2000;
+
+   private static final Type MANIFEST_TYPE = new TypeLiteral<Map<String, Entry>>() {
+   }.getType();
+
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final File directory;
+   private final Json json;
+
+   @Inject
+   ChecksumCache(@Named(CHEF_CHECKSUM_CACHE_DIR) String directory, Json json) {
+      this(checkNotNull(directory, "directory").isEmpty() ? null : new File(directory), json);
+   }
+
+   /**
+    * @param directory
+    *           the directory where the checksums are kept, or null to disable
+    *           the cache.
+    */
+   public ChecksumCache(@Nullable File directory, Json json) {
+      this.directory = directory;
+      this.json = checkNotNull(json, "json");
+   }
+
+   /**
+    * @return true if a cache directory has been configured.
+    */
+   public boolean isEnabled() {
+      return directory != null;
+   }
+
+   /**
+    * @return the checksums recorded for the files of the given cookbook
+    *         directory. If the cache is disabled, nothing is recorded.
+    */
+   public Manifest open(File cookbook) {
+      if (!isEnabled())
+         return new Manifest(null, Maps.<String, Entry> newHashMap());
+      File file;
+      try {
+         String path = cookbook.getCanonicalPath();
+         file = new File(directory, Hashing.md5().hashString(path, Charsets.UTF_8) + ".json");
+      } catch (IOException e) {
+         logger.warn(e, "<< could not resolve the path of %s", cookbook);
+         return new Manifest(null, Maps.<String, Entry> newHashMap());
+      }
+      Map<String, Entry> entries = null;
+      if (file.isFile()) {
+         try {
+            entries = json.fromJson(Files.toString(file, Charsets.UTF_8), MANIFEST_TYPE);
+         } catch (IOException e) {
+            logger.warn(e, "<< could not read the checksums in %s", file);
+         } catch (JsonParseException e) {
+            logger.warn(e, "<< could not parse the checksums in %s", file);
+         }
+      }
+      return new Manifest(file, entries != null ? entries : Maps.<String, Entry> newHashMap());
+   }
+
+   /**
+    * The checksums of the files of a cookbook directory, by path.
+    */
+   public class Manifest {
+      private final File file;
+      private final Map<String, Entry> recorded;
+      private final Map<String, Entry> seen = Maps.newHashMap();
+      private final Map<String, Entry> current = Maps.newTreeMap();
+
+      private Manifest(@Nullable File file, Map<String, Entry> recorded) {
+         this.file = file;
+         this.recorded = recorded;
+      }
+
+      /**
+       * @return a payload for the given file, with the checksums recorded the
+       *         last time, if the file has not changed since.
+       */
+      public ChecksummedFilePayload payloadFor(String path, File content) {
+         Entry entry = new Entry(content.length(), content.lastModified());
+         Entry previous;
+         synchronized (this) {
+            seen.put(path, entry);
+            previous = recorded.get(path);
+         }
+         if (previous != null && previous.md5 != null && previous.sha1 != null && previous.size == entry.size
+               && previous.lastModified == entry.lastModified)
+            return new ChecksummedFilePayload(content, previous.md5, previous.sha1);
+         // read without holding the lock, so several files can be hashed at once
+         return new ChecksummedFilePayload(content);
+      }
+
+      /**
+       * Records the checksums of a payload returned by
+       * {@link #payloadFor(String, File)}, computing them if needed.
+       */
+      public synchronized void record(String path, ChecksummedFilePayload payload) {
+         Entry entry = checkNotNull(seen.get(path), "%s was not opened with this manifest", path);
+         // the file could change again without getting a new time
+         if (System.currentTimeMillis() - entry.lastModified < MODIFICATION_TIME_RESOLUTION)
+            return;
+         entry.md5 = payload.getMD5();
+         entry.sha1 = payload.getSHA1();
+         current.put(path, entry);
+      }
+
+      /**
+       * Writes the recorded checksums, replacing the previous ones, if any
+       * of them changed. Failures are logged, as the checksums are just
+       * computed again the next time.
+       */
+      public synchronized void save() {
+         if (file == null || current.equals(recorded))
+            return;
+         try {
+            Files.createParentDirs(file);
+            File temp = File.createTempFile(".tmp-", null, file.getParentFile());
+            try {
+               Files.write(json.toJson(current, MANIFEST_TYPE), temp, Charsets.UTF_8);
+               if (!temp.renameTo(file) && !(file.delete() && temp.renameTo(file)))
+                  throw new IOException("could not rename " + temp + " to " + file);
+            } finally {
+               temp.delete();
+            }
+         } catch (IOException e) {
+            logger.warn(e, "<< could not write the checksums to %s", file);
+         }
+      }
+   }
+
+   /**
+    * The checksums of a file, and the size and time they were computed for.
+    */
+   private static class Entry {
+      private long size;
+      private long lastModified;
+      private byte[] md5;
+      private byte[] sha1;
+
+      private Entry(long size, long lastModified) {
+         this.size = size;
+         this.lastModified = lastModified;
+      }
+
+      @Override
+      public int hashCode() {
+         return (int) (size ^ lastModified);
+      }
+
+      @Override
+      public boolean equals(Object obj) {
+         if (this == obj)
+            return true;
+         if (!(obj instanceof Entry))
+            return false;
+         Entry other = (Entry) obj;
+         return size == other.size && lastModified == other.lastModified
+               && Arrays.equals(md5, other.md5) && Arrays.equals(sha1, other.sha1);
+      }
+   }
+}
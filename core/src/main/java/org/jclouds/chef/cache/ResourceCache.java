@@ -0,0 +1,354 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.cache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.chef.config.ChefProperties.CHEF_RESOURCE_CACHE_DIR;
+import static org.jclouds.chef.config.ChefProperties.CHEF_RESOURCE_CACHE_SIZE;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.domain.Checksum;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Functions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closeables;
+
+/**
+ * Keeps the contents of cookbook files on disk, keyed by their md5.
+ * <p>
+ * The same file is usually part of many cookbook versions, and its checksum
+ * identifies its content exactly, so it is only stored once. The content is
+ * verified against the checksum while it is stored, unless the caller has
+ * already done it. When the total size goes
+ * over the limit, the least recently used files are deleted. The recency is
+ * kept in the modification time of the files, so it survives restarts.
+ */
+@Singleton
+public class ResourceCache {
+
+   private static final String TEMP_PREFIX = ".tmp-";
+   private static final int BUFFER_SIZE = 64 * 1024;
+   /** Temporary files not written for this long were left by another run. */
+   private static final long STALE_TEMP_FILE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final File directory;
+   private final long maxSize;
+   /** Size of each cached file, from the least to the most recently used. */
+   private final LinkedHashMap<Checksum, Long> entries = new LinkedHashMap<Checksum, Long>(16, 0.75f, true);
+   private long size;
+   private boolean loaded;
+
+   @Inject
+   ResourceCache(@Named(CHEF_RESOURCE_CACHE_DIR) String directory, @Named(CHEF_RESOURCE_CACHE_SIZE) long maxSize) {
+      this(checkNotNull(directory, "directory").isEmpty() ? null : new File(directory), maxSize);
+   }
+
+   /**
+    * @param directory
+    *           the directory where the files are kept, or null to disable the
+    *           cache.
+    * @param maxSize
+    *           the maximum total size of the files, in bytes.
+    */
+   public ResourceCache(@Nullable File directory, long maxSize) {
+      checkArgument(maxSize > 0, "maxSize must be positive");
+      this.directory = directory;
+      this.maxSize = maxSize;
+   }
+
+   /**
+    * @return true if a cache directory has been configured.
+    */
+   public boolean isEnabled() {
+      return directory != null;
+   }
+
+   /**
+    * @return the content with the given checksum, or null if it is not
+    *         cached or the cache is disabled. The caller must close the
+    *         stream.
+    */
+   @Nullable
+   public InputStream get(Checksum checksum) {
+      if (!isEnabled())
+         return null;
+      File file = fileOf(checksum);
+      FileInputStream content = open(checksum, file);
+      if (content != null)
+         touch(file);
+      return content;
+   }
+
+   /**
+    * Copies the content with the given checksum to the given file, letting
+    * the operating system transfer the bytes without copying them to the
+    * heap.
+    * 
+    * @return false if the content is not cached or the cache is disabled.
+    */
+   public boolean copyTo(Checksum checksum, File target) throws IOException {
+      if (!isEnabled())
+         return false;
+      File file = fileOf(checksum);
+      FileInputStream content = open(checksum, file);
+      if (content == null)
+         return false;
+      touch(file);
+      try {
+         transfer(content, target);
+      } finally {
+         Closeables.close(content, true);
+      }
+      return true;
+   }
+
+   /**
+    * Stores the given content, verifying that it has the given checksum.
+    * 
+    * @param content
+    *           the content to store; it is not closed.
+    * @return the stored content. The caller must close the stream.
+    * @throws IOException
+    *            if the content could not be read or stored, or does not match
+    *            the checksum. Nothing is cached in that case.
+    */
+   public InputStream put(Checksum checksum, InputStream content) throws IOException {
+      checkState(isEnabled(), "the resource cache is disabled");
+      checkNotNull(content, "content");
+      synchronized (this) {
+         load();
+      }
+      File target = fileOf(checksum);
+      File parent = target.getParentFile();
+      if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory())
+         throw new IOException("could not create directory " + parent);
+
+      File temp = File.createTempFile(TEMP_PREFIX, null, parent);
+      try {
+         Hasher md5 = Hashing.md5().newHasher();
+         OutputStream out = new FileOutputStream(temp);
+         try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int read = content.read(buffer); read != -1; read = content.read(buffer)) {
+               md5.putBytes(buffer, 0, read);
+               out.write(buffer, 0, read);
+            }
+         } finally {
+            Closeables.close(out, false);
+         }
+         Checksum actual = Checksum.fromBytes(md5.hash().asBytes());
+         if (!actual.equals(checksum))
+            throw new IOException("expected content with checksum " + checksum + " but it was " + actual);
+         synchronized (this) {
+            store(checksum, temp, target);
+            return new FileInputStream(target);
+         }
+      } finally {
+         // no-op once the file has been renamed
+         temp.delete();
+      }
+   }
+
+   /**
+    * Stores a copy of the given file, whose content has already been verified
+    * against the checksum, letting the operating system transfer the bytes
+    * without copying them to the heap or hashing them again.
+    * 
+    * @throws IOException
+    *            if the file could not be read or stored. Nothing is cached in
+    *            that case.
+    */
+   public void putVerified(Checksum checksum, File file) throws IOException {
+      checkState(isEnabled(), "the resource cache is disabled");
+      checkNotNull(file, "file");
+      synchronized (this) {
+         load();
+      }
+      File target = fileOf(checksum);
+      File parent = target.getParentFile();
+      if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory())
+         throw new IOException("could not create directory " + parent);
+
+      File temp = File.createTempFile(TEMP_PREFIX, null, parent);
+      try {
+         FileInputStream content = new FileInputStream(file);
+         try {
+            transfer(content, temp);
+         } finally {
+            Closeables.close(content, true);
+         }
+         store(checksum, temp, target);
+      } finally {
+         // no-op once the file has been renamed
+         temp.delete();
+      }
+   }
+
+   /**
+    * @return the total size of the cached files, in bytes.
+    */
+   public synchronized long getSize() {
+      load();
+      return size;
+   }
+
+   private File fileOf(Checksum checksum) {
+      checkState(isEnabled(), "the resource cache is disabled");
+      String hex = checksum.toString();
+      // spread the files in subdirectories, as git does with its objects
+      return new File(new File(directory, hex.substring(0, 2)), hex);
+   }
+
+   /**
+    * Opens the cached file while holding the lock, so it cannot be evicted
+    * before it is open. Once it is, the content stays readable even if the
+    * file is deleted.
+    */
+   private synchronized FileInputStream open(Checksum checksum, File file) {
+      load();
+      // get, unlike containsKey, marks the file as the most recently used
+      if (entries.get(checksum) == null)
+         return null;
+      try {
+         return new FileInputStream(file);
+      } catch (FileNotFoundException e) {
+         // deleted behind our back
+         size -= entries.remove(checksum);
+         return null;
+      }
+   }
+
+   private synchronized void store(Checksum checksum, File temp, File target) throws IOException {
+      load();
+      // renaming replaces the target atomically, if another thread stored it
+      if (!temp.renameTo(target) && !target.isFile())
+         throw new IOException("could not rename " + temp + " to " + target);
+      add(checksum, target.length());
+      // the file just added is the most recent, so it is never evicted here
+      evict();
+   }
+
+   private static void transfer(FileInputStream content, File target) throws IOException {
+      FileOutputStream out = new FileOutputStream(target);
+      try {
+         FileChannel source = content.getChannel();
+         FileChannel destination = out.getChannel();
+         long length = source.size();
+         for (long position = 0; position < length;)
+            position += source.transferTo(position, length - position, destination);
+      } finally {
+         Closeables.close(out, false);
+      }
+   }
+
+   private void touch(File file) {
+      if (!file.setLastModified(System.currentTimeMillis()))
+         logger.debug("<< could not update the last modified time of %s", file);
+   }
+
+   private void add(Checksum checksum, long length) {
+      Long previous = entries.put(checksum, length);
+      size += previous == null ? length : length - previous;
+   }
+
+   private void evict() {
+      // never evict the most recent file, even if it is bigger than the limit
+      Iterator<Map.Entry<Checksum, Long>> eldest = entries.entrySet().iterator();
+      while (size > maxSize && entries.size() > 1) {
+         Map.Entry<Checksum, Long> entry = eldest.next();
+         File file = fileOf(entry.getKey());
+         if (!file.delete() && file.exists())
+            logger.warn("<< could not evict %s from the resource cache", file);
+         size -= entry.getValue();
+         eldest.remove();
+      }
+   }
+
+   /**
+    * Indexes the files left by previous runs, the first time the cache is
+    * used.
+    */
+   private void load() {
+      if (loaded)
+         return;
+      loaded = true;
+      List<File> files = Lists.newArrayList();
+      File[] children = directory.listFiles();
+      if (children != null) {
+         for (File child : children) {
+            File[] grandChildren = child.listFiles();
+            if (grandChildren != null)
+               files.addAll(Arrays.asList(grandChildren));
+         }
+      }
+      Map<File, Long> lastModified = Maps.newHashMap();
+      for (File file : files) {
+         if (file.getName().startsWith(TEMP_PREFIX)) {
+            // left by an interrupted download
+            if (System.currentTimeMillis() - file.lastModified() > STALE_TEMP_FILE_MILLIS)
+               file.delete();
+         } else if (file.getName().length() == 32 && file.isFile()) {
+            lastModified.put(file, file.lastModified());
+         }
+      }
+      List<File> leastRecentFirst = Ordering.natural().onResultOf(Functions.forMap(lastModified))
+            .sortedCopy(lastModified.keySet());
+      for (File file : leastRecentFirst) {
+         try {
+            add(Checksum.fromHex(file.getName()), file.length());
+         } catch (IllegalArgumentException e) {
+            logger.debug("<< ignoring %s in the resource cache", file);
+         }
+      }
+      evict();
+      logger.debug("<< resource cache %s has %d files, %d bytes", directory, entries.size(), size);
+   }
+}
@@ -0,0 +1,446 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.concurrent;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.chef.config.ChefProperties.CHEF_INITIAL_CONCURRENCY;
+import static org.jclouds.chef.config.ChefProperties.CHEF_MAX_CONCURRENCY;
+
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.AbstractListeningExecutorService;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Limits the number of concurrent requests sent to the Chef server, adapting
+ * the limit to the observed server behavior.
+ * <p>
+ * The limit grows additively while the latency of the requests stays close to
+ * their usual latency, and is reduced multiplicatively when the server fails
+ * with a 5xx error, a request times out or the latency spikes. Tasks submitted
+ * while the limit is reached are queued until a request completes.
+ * <p>
+ * The usual latency is the median of the recent requests of each operation, so
+ * that cheap and expensive operations sharing the limiter, such as listing
+ * names and uploading files, are not compared with each other.
+ */
+@Singleton
+public class AdaptiveConcurrencyLimiter {
+
+   /** The limit is multiplied by this ratio when the server is overloaded. */
+   private static final double BACKOFF_RATIO = 0.5;
+
+   /** Latencies above the baseline times this factor are considered spikes. */
+   private static final double LATENCY_TOLERANCE = 2.0;
+
+   /** Weight of each sample in the smoothed latency. */
+   private static final double SMOOTHING = 0.1;
+
+   /** The baseline latency of an operation is the median of this number of samples. */
+   private static final int BASELINE_WINDOW = 100;
+
+   /** Spikes are not detected until an operation has this number of samples. */
+   private static final int MIN_SAMPLES = 10;
+
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final int maxLimit;
+   private final Queue<Dispatch> queue = Lists.newLinkedList();
+   private final Map<String, LatencyWindow> latencies = Maps.newHashMap();
+   private double limit;
+   private int inFlight;
+   private double smoothedLatency;
+   private long lastBackOff;
+
+   @Inject
+   public AdaptiveConcurrencyLimiter(@Named(CHEF_INITIAL_CONCURRENCY) int initialLimit,
+         @Named(CHEF_MAX_CONCURRENCY) int maxLimit) {
+      checkArgument(initialLimit > 0, "initialLimit must be positive");
+      checkArgument(maxLimit >= initialLimit, "maxLimit must be greater or equal than initialLimit");
+      this.limit = initialLimit;
+      this.maxLimit = maxLimit;
+   }
+
+   /**
+    * @param operation
+    *           the name of the api operation performed by the tasks, such as
+    *           {@code node:get}. The latency of each operation is tracked
+    *           separately.
+    * @return an executor that runs the tasks in the given one, as long as the
+    *         concurrency limit has not been reached. Shutting it down does not
+    *         shut down the given executor.
+    */
+   public ListeningExecutorService limit(ListeningExecutorService executor, String operation) {
+      return new LimitedExecutorService(checkNotNull(executor, "executor"), checkNotNull(operation, "operation"));
+   }
+
+   /**
+    * @return the current maximum number of concurrent requests.
+    */
+   public synchronized int getLimit() {
+      return (int) limit;
+   }
+
+   /**
+    * @return the number of requests currently running.
+    */
+   public synchronized int getInFlight() {
+      return inFlight;
+   }
+
+   /**
+    * @return the number of requests waiting for the limit to allow them.
+    */
+   public synchronized int getQueueDepth() {
+      return queue.size();
+   }
+
+   private void enqueue(Dispatch dispatch) {
+      synchronized (this) {
+         queue.add(dispatch);
+      }
+      drain();
+   }
+
+   /**
+    * Dispatches the queued tasks while the limit allows it. Tasks rejected by
+    * their executor fail instead of being run, and free their slot.
+    */
+   private void drain() {
+      while (true) {
+         List<Dispatch> toRun = Lists.newArrayList();
+         synchronized (this) {
+            while (inFlight < (int) limit && !queue.isEmpty()) {
+               inFlight++;
+               toRun.add(queue.poll());
+            }
+         }
+         if (toRun.isEmpty())
+            return;
+         int rejected = 0;
+         for (Dispatch dispatch : toRun) {
+            try {
+               dispatch.owner.delegate.execute(dispatch);
+            } catch (RejectedExecutionException e) {
+               rejected++;
+               dispatch.reject(e);
+            }
+         }
+         if (rejected == 0)
+            return;
+         synchronized (this) {
+            inFlight -= rejected;
+         }
+      }
+   }
+
+   private void release() {
+      synchronized (this) {
+         inFlight--;
+      }
+      drain();
+   }
+
+   /**
+    * Removes the queued tasks of the given executor.
+    */
+   private synchronized List<Dispatch> dequeue(LimitedExecutorService owner) {
+      List<Dispatch> removed = Lists.newArrayList();
+      for (Iterator<Dispatch> it = queue.iterator(); it.hasNext();) {
+         Dispatch dispatch = it.next();
+         if (dispatch.owner == owner) {
+            removed.add(dispatch);
+            it.remove();
+         }
+      }
+      return removed;
+   }
+
+   @VisibleForTesting
+   synchronized void onSuccess(String operation, long latencyNanos, long now) {
+      smoothedLatency = smoothedLatency == 0 ? latencyNanos : smoothedLatency * (1 - SMOOTHING) + latencyNanos
+            * SMOOTHING;
+      LatencyWindow window = latencies.get(operation);
+      if (window == null) {
+         window = new LatencyWindow();
+         latencies.put(operation, window);
+      }
+      window.add(latencyNanos);
+
+      if (window.isSpiking()) {
+         backOff(now, "latency spike in " + operation);
+      } else if (inFlight >= (int) limit && limit < maxLimit) {
+         // only grow when the limit is actually what keeps requests waiting
+         limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+   }
+
+   @VisibleForTesting
+   synchronized void onFailure(Throwable error, long now) {
+      if (isOverload(error))
+         backOff(now, error.getClass().getSimpleName());
+   }
+
+   private void backOff(long now, String reason) {
+      // back off at most once per round trip, as the requests already in
+      // flight were sent with the previous limit
+      if (lastBackOff != 0 && now - lastBackOff < smoothedLatency)
+         return;
+      lastBackOff = now;
+      limit = Math.max(1, limit * BACKOFF_RATIO);
+      logger.debug("<< reducing concurrency limit to %d: %s", (int) limit, reason);
+   }
+
+   @VisibleForTesting
+   static boolean isOverload(Throwable error) {
+      for (Throwable cause : Throwables.getCausalChain(error)) {
+         if (cause instanceof TimeoutException || cause instanceof SocketTimeoutException)
+            return true;
+         if (cause instanceof HttpResponseException) {
+            HttpResponseException responseException = HttpResponseException.class.cast(cause);
+            if (responseException.getResponse() != null && responseException.getResponse().getStatusCode() >= 500)
+               return true;
+         }
+      }
+      return false;
+   }
+
+   /**
+    * The latencies of the recent requests of an operation.
+    */
+   private static class LatencyWindow {
+      private final long[] samples = new long[BASELINE_WINDOW];
+      private int count;
+      private int next;
+      private double smoothed;
+
+      private void add(long latency) {
+         samples[next] = latency;
+         next = (next + 1) % samples.length;
+         count = Math.min(count + 1, samples.length);
+         if (count < MIN_SAMPLES)
+            return;
+         // start from the median, so a slow first request is not taken for a spike
+         smoothed = smoothed == 0 ? median() : smoothed * (1 - SMOOTHING) + latency * SMOOTHING;
+      }
+
+      private boolean isSpiking() {
+         // the median ignores the usual variance, unlike the lowest latency
+         return smoothed > median() * LATENCY_TOLERANCE;
+      }
+
+      private long median() {
+         long[] sorted = Arrays.copyOf(samples, count);
+         Arrays.sort(sorted);
+         return sorted[count / 2];
+      }
+   }
+
+   /**
+    * A task submitted to a limited executor, which fails if it cannot be run.
+    */
+   private static class Task<T> extends AbstractFuture<T> implements Runnable {
+      private final Callable<T> callable;
+
+      private Task(Callable<T> callable) {
+         this.callable = callable;
+      }
+
+      @Override
+      public void run() {
+         if (isDone())
+            return;
+         try {
+            set(callable.call());
+         } catch (Throwable e) {
+            setException(e);
+         }
+      }
+
+      private void fail(Throwable error) {
+         setException(error);
+      }
+   }
+
+   private class Dispatch implements Runnable {
+      private final LimitedExecutorService owner;
+      private final Runnable command;
+
+      private Dispatch(LimitedExecutorService owner, Runnable command) {
+         this.owner = owner;
+         this.command = command;
+      }
+
+      @Override
+      public void run() {
+         long start = System.nanoTime();
+         try {
+            command.run();
+            Throwable error = failureOf(command);
+            long now = System.nanoTime();
+            if (error == null)
+               onSuccess(owner.operation, now - start, now);
+            else
+               onFailure(error, now);
+         } catch (RuntimeException e) {
+            onFailure(e, System.nanoTime());
+            throw e;
+         } finally {
+            owner.finished();
+            release();
+         }
+      }
+
+      private void reject(RejectedExecutionException error) {
+         if (command instanceof Task)
+            Task.class.cast(command).fail(error);
+         else
+            logger.warn(error, "<< could not run task for %s", owner.operation);
+         owner.finished();
+      }
+
+      private Throwable failureOf(Runnable command) {
+         // the tasks submitted to a listening executor capture their failures
+         if (command instanceof Future && Future.class.cast(command).isDone()) {
+            try {
+               Uninterruptibles.getUninterruptibly(Future.class.cast(command));
+            } catch (ExecutionException e) {
+               return e.getCause();
+            } catch (RuntimeException e) {
+               return e;
+            }
+         }
+         return null;
+      }
+   }
+
+   private class LimitedExecutorService extends AbstractListeningExecutorService {
+      private final ListeningExecutorService delegate;
+      private final String operation;
+      private boolean shutdown;
+      private int pending;
+
+      private LimitedExecutorService(ListeningExecutorService delegate, String operation) {
+         this.delegate = delegate;
+         this.operation = operation;
+      }
+
+      @Override
+      public <T> ListenableFuture<T> submit(Callable<T> task) {
+         Task<T> future = new Task<T>(checkNotNull(task, "task"));
+         execute(future);
+         return future;
+      }
+
+      @Override
+      public ListenableFuture<?> submit(Runnable task) {
+         return submit(Executors.callable(checkNotNull(task, "task")));
+      }
+
+      @Override
+      public <T> ListenableFuture<T> submit(Runnable task, T result) {
+         return submit(Executors.callable(checkNotNull(task, "task"), result));
+      }
+
+      @Override
+      public void execute(Runnable command) {
+         checkNotNull(command, "command");
+         synchronized (this) {
+            if (shutdown)
+               throw new RejectedExecutionException("the executor for " + operation + " has been shut down");
+            pending++;
+         }
+         enqueue(new Dispatch(this, command));
+      }
+
+      private synchronized void finished() {
+         pending--;
+         notifyAll();
+      }
+
+      @Override
+      public synchronized void shutdown() {
+         shutdown = true;
+      }
+
+      @Override
+      public List<Runnable> shutdownNow() {
+         shutdown();
+         List<Runnable> notRun = Lists.newArrayList();
+         for (Dispatch dispatch : dequeue(this)) {
+            notRun.add(dispatch.command);
+            finished();
+         }
+         return notRun;
+      }
+
+      @Override
+      public synchronized boolean isShutdown() {
+         return shutdown;
+      }
+
+      @Override
+      public synchronized boolean isTerminated() {
+         return shutdown && pending == 0;
+      }
+
+      @Override
+      public synchronized boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+         long deadline = System.nanoTime() + unit.toNanos(timeout);
+         while (!isTerminated()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0)
+               return false;
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+         }
+         return true;
+      }
+   }
+}
@@ -0,0 +1,122 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.concurrent;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Utilities to consume the results of concurrent requests as they complete.
+ */
+public class FutureIterables {
+
+   /**
+    * Applies the function to each input in the given executor, yielding the
+    * results in completion order.
+    * <p>
+    * No more than {@code window} results are in flight or waiting to be
+    * consumed at any time, so the first result is available as soon as it has
+    * been retrieved and the memory used does not depend on the number of
+    * inputs. Each call to {@link Iterable#iterator()} runs the requests again.
+    *
+    * @param window
+    *           the maximum number of results in flight or buffered.
+    */
+   public static <F, T> Iterable<T> transformStreaming(final Iterable<F> inputs,
+         final Function<? super F, ? extends T> function, final ListeningExecutorService executor, final int window) {
+      checkNotNull(inputs, "inputs");
+      checkNotNull(function, "function");
+      checkNotNull(executor, "executor");
+      checkArgument(window > 0, "window must be positive");
+      return new Iterable<T>() {
+         @Override
+         public Iterator<T> iterator() {
+            return new StreamingIterator<F, T>(inputs.iterator(), function, executor, window);
+         }
+      };
+   }
+
+   private static class StreamingIterator<F, T> extends AbstractIterator<T> {
+      private final Iterator<F> pending;
+      private final Function<? super F, ? extends T> function;
+      private final ListeningExecutorService executor;
+      private final int window;
+      private final BlockingQueue<ListenableFuture<? extends T>> completed;
+      private int outstanding;
+
+      private StreamingIterator(Iterator<F> pending, Function<? super F, ? extends T> function,
+            ListeningExecutorService executor, int window) {
+         this.pending = pending;
+         this.function = function;
+         this.executor = executor;
+         this.window = window;
+         this.completed = new LinkedBlockingQueue<ListenableFuture<? extends T>>(window);
+      }
+
+      @Override
+      protected T computeNext() {
+         fill();
+         if (outstanding == 0)
+            return endOfData();
+         ListenableFuture<? extends T> next;
+         try {
+            next = completed.take();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+         }
+         outstanding--;
+         // keep the window full while the caller processes this result
+         fill();
+         return getUnchecked(next);
+      }
+
+      private void fill() {
+         while (outstanding < window && pending.hasNext()) {
+            final F input = pending.next();
+            final ListenableFuture<? extends T> future = executor.submit(new Callable<T>() {
+               @Override
+               public T call() throws Exception {
+                  return function.apply(input);
+               }
+            });
+            future.addListener(new Runnable() {
+               @Override
+               public void run() {
+                  completed.add(future);
+               }
+            }, MoreExecutors.sameThreadExecutor());
+            outstanding++;
+         }
+      }
+   }
+}
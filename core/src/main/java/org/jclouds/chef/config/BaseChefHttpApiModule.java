@@ -21,12 +21,14 @@ package org.jclouds.chef.config;
 import static com.google.common.base.Suppliers.compose;
 import static com.google.common.base.Suppliers.memoizeWithExpiration;
 import static com.google.common.base.Throwables.propagate;
+import static com.google.inject.matcher.Matchers.subclassesOf;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
 import static org.jclouds.chef.config.ChefProperties.CHEF_VALIDATOR_CREDENTIAL;
 import static org.jclouds.chef.config.ChefProperties.CHEF_VALIDATOR_NAME;
 import static org.jclouds.crypto.Pems.privateKeySpec;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.security.PrivateKey;
 import java.security.spec.InvalidKeySpecException;
 import java.util.List;
@@ -42,6 +44,9 @@ import org.jclouds.chef.functions.ClientForGroup;
 import org.jclouds.chef.functions.RunListForGroup;
 import org.jclouds.chef.handlers.ChefApiErrorRetryHandler;
 import org.jclouds.chef.handlers.ChefErrorHandler;
+import org.jclouds.chef.metrics.ChefApiListener;
+import org.jclouds.chef.metrics.ChefApiMetrics;
+import org.jclouds.chef.metrics.RecordChefApiMetrics;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.crypto.Pems;
 import org.jclouds.date.DateService;
@@ -55,6 +60,7 @@ import org.jclouds.http.annotation.Redirection;
 import org.jclouds.http.annotation.ServerError;
 import org.jclouds.rest.ConfiguresHttpApi;
 import org.jclouds.rest.config.HttpApiModule;
+import org.jclouds.rest.internal.InvokeHttpMethod;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Charsets;
@@ -69,6 +75,8 @@ import com.google.inject.ConfigurationException;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Provides;
+import com.google.inject.matcher.AbstractMatcher;
+import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
 
 /**
@@ -80,6 +88,26 @@ import com.google.inject.name.Names;
 @ConfiguresHttpApi
 public abstract class BaseChefHttpApiModule<S> extends HttpApiModule<S> {
 
+   @Override
+   protected void configure() {
+      super.configure();
+      // let other modules contribute listeners, even if none is configured
+      Multibinder.newSetBinder(binder(), ChefApiListener.class);
+      bindInterceptor(subclassesOf(InvokeHttpMethod.class), new InvocationMethod(),
+            new RecordChefApiMetrics(getProvider(ChefApiMetrics.class)));
+   }
+
+   /**
+    * Matches the method that executes the api invocations, but not its
+    * generated bridge method, so each request is recorded once.
+    */
+   private static class InvocationMethod extends AbstractMatcher<Method> {
+      @Override
+      public boolean matches(Method method) {
+         return method.getName().equals("apply") && !method.isSynthetic();
+      }
+   }
+
    @Provides
    @TimeStamp
    protected String provideTimeStamp(@TimeStamp Supplier<String> cache) {
@@ -37,11 +37,13 @@ import java.util.regex.Pattern;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.chef.domain.DatabagItem;
 import org.jclouds.chef.functions.ParseCookbookDefinitionFromJson;
 import org.jclouds.chef.functions.ParseCookbookVersionsV09FromJson;
 import org.jclouds.chef.functions.ParseCookbookVersionsV10FromJson;
 import org.jclouds.chef.functions.ParseKeySetFromJson;
+import org.jclouds.chef.util.JsonText;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.crypto.Pems;
 import org.jclouds.http.HttpResponse;
@@ -55,12 +57,14 @@ import com.google.common.base.Function;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.ByteStreams;
-import com.google.gson.Gson;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 import com.google.inject.AbstractModule;
 import com.google.inject.ImplementedBy;
 import com.google.inject.Provides;
@@ -175,50 +179,127 @@ public class ChefParserModule extends AbstractModule {
 
    /**
     * writes or reads the literal directly
+    * <p>
+    * The top level <code>id</code> field is located by scanning the json of
+    * the item once, so no regular expression or additional parsing is needed.
     */
    @Singleton
    public static class DataBagItemAdapter extends NullHackJsonLiteralAdapter<DatabagItem> {
-      final Gson gson = new Gson();
 
       @Override
       protected DatabagItem createJsonLiteralFromRawJson(String text) {
-         IdHolder idHolder = gson.fromJson(text, IdHolder.class);
-         checkState(idHolder.id != null,
+         IdField id = IdField.scan(text);
+         checkState(id.value != null,
                "databag item must be a json hash ex. {\"id\":\"item1\",\"my_key\":\"my_data\"}; was %s", text);
-         text = text.replaceFirst(String.format("\\{\"id\"[ ]?:\"%s\",", idHolder.id), "{");
-         return new DatabagItem(idHolder.id, text);
+         if (id.first && id.next != -1)
+            text = new StringBuilder(text.length()).append(text, 0, id.start).append(text, id.next, text.length())
+                  .toString();
+         return new DatabagItem(id.value, text);
       }
 
       @Override
       protected String toString(DatabagItem value) {
          String text = value.toString();
-
-         try {
-            IdHolder idHolder = gson.fromJson(text, IdHolder.class);
-            if (idHolder.id == null) {
-               text = text.replaceFirst("\\{", String.format("{\"id\":\"%s\",", value.getId()));
-            } else {
-               checkArgument(value.getId().equals(idHolder.id),
-                     "incorrect id in databagItem text, should be %s: was %s", value.getId(), idHolder.id);
-            }
-         } catch (JsonSyntaxException e) {
-            throw new IllegalArgumentException(e);
+         IdField id = IdField.scan(text);
+         if (id.start == -1) {
+            StringBuilder json = new StringBuilder(text.length() + value.getId().length() + 8);
+            json.append(text, 0, id.open + 1).append("\"id\":");
+            JsonText.appendQuoted(json, value.getId());
+            if (!id.empty)
+               json.append(',');
+            return json.append(text, id.open + 1, text.length()).toString();
          }
-
+         checkArgument(value.getId().equals(id.value), "incorrect id in databagItem text, should be %s: was %s",
+               value.getId(), id.value);
          return text;
       }
    }
 
-   private static class IdHolder {
-      private String id;
+   /**
+    * Reads and writes checksums as their hexadecimal form, which is also how
+    * they appear as the keys of the sandbox json.
+    */
+   @Singleton
+   public static class ChecksumAdapter extends TypeAdapter<Checksum> {
+
+      @Override
+      public void write(JsonWriter out, Checksum value) throws IOException {
+         if (value == null)
+            out.nullValue();
+         else
+            out.value(value.toString());
+      }
+
+      @Override
+      public Checksum read(JsonReader in) throws IOException {
+         if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+         }
+         return Checksum.fromHex(in.nextString());
+      }
+   }
+
+   /**
+    * Position of the top level <code>id</code> field in the json of a databag
+    * item.
+    */
+   private static class IdField {
+      /** Position of the opening brace. */
+      private int open;
+      /** True if the json has no fields. */
+      private boolean empty;
+      /** Start of the id field, or -1 if there is none. */
+      private int start = -1;
+      /** Start of the field that follows the id, or -1 if it is the last one. */
+      private int next = -1;
+      /** True if the id is the first field. */
+      private boolean first;
+      /** The id, or null if there is none or it is not a string or number. */
+      private String value;
+
+      /**
+       * Scans the tokens of the json once, without building any tree.
+       * 
+       * @throws IllegalArgumentException
+       *            if the json is not a hash.
+       */
+      private static IdField scan(String json) {
+         JsonText text = new JsonText(json);
+         IdField id = new IdField();
+         id.open = text.expect('{');
+         if (text.peek() == '}') {
+            id.empty = true;
+            return id;
+         }
+         for (int index = 0;; index++) {
+            int start = text.skipWhitespace();
+            if (text.peek() != '"')
+               throw text.syntaxError("expected a field name");
+            text.skipValue();
+            boolean isId = id.start == -1 && text.getPosition() - start == 4 && json.startsWith("\"id\"", start);
+            text.expect(':');
+            int valueStart = text.skipWhitespace();
+            text.skipValue();
+            if (isId) {
+               id.start = start;
+               id.first = index == 0;
+               id.value = text.decode(valueStart, text.getPosition());
+            }
+            if (!text.hasNext('}'))
+               return id;
+            if (isId)
+               id.next = text.skipWhitespace();
+         }
+      }
    }
 
    @Provides
    @Singleton
    public Map<Type, Object> provideCustomAdapterBindings(DataBagItemAdapter adapter, PrivateKeyAdapter privateAdapter,
-         PublicKeyAdapter publicAdapter, X509CertificateAdapter certAdapter) {
+         PublicKeyAdapter publicAdapter, X509CertificateAdapter certAdapter, ChecksumAdapter checksumAdapter) {
       return ImmutableMap.<Type, Object> of(DatabagItem.class, adapter, PrivateKey.class, privateAdapter,
-            PublicKey.class, publicAdapter, X509Certificate.class, certAdapter);
+            PublicKey.class, publicAdapter, X509Certificate.class, certAdapter, Checksum.class, checksumAdapter);
    }
 
    @Provides
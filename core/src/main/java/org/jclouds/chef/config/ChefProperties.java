@@ -106,4 +106,132 @@ public interface ChefProperties {
     */
    public static final String CHEF_UPDATE_GEMS = "chef.update-gems";
 
+   /**
+    * Boolean property. Default (false).
+    * <p>
+    * When listing nodes, use the search api to get them a page at a time,
+    * instead of getting the node names and then each node individually.
+    */
+   public static final String CHEF_LIST_NODES_WITH_SEARCH = "chef.list-nodes-with-search";
+
+   /**
+    * Integer property. Default (1000).
+    * <p>
+    * The number of rows to request in each page when the search api is used
+    * to list objects or to page through search results.
+    */
+   public static final String CHEF_SEARCH_PAGE_SIZE = "chef.search-page-size";
+
+   /**
+    * Boolean property. Default (false).
+    * <p>
+    * When paging through search results, request all the remaining pages
+    * concurrently once the first page reports the total number of rows,
+    * instead of fetching only the next page while the current one is being
+    * consumed.
+    */
+   public static final String CHEF_SEARCH_PARALLEL_PAGES = "chef.search-parallel-pages";
+
+   /**
+    * Integer property. Default (50).
+    * <p>
+    * The maximum number of objects that are being retrieved or waiting to be
+    * consumed when objects are listed in streaming mode.
+    */
+   public static final String CHEF_STREAMING_WINDOW = "chef.streaming-window";
+
+   /**
+    * Integer property. Default (10).
+    * <p>
+    * The number of concurrent requests the strategies start with when they
+    * fan out requests to the Chef server. The limit grows while the server
+    * latency stays flat and is reduced when the server seems overloaded.
+    */
+   public static final String CHEF_INITIAL_CONCURRENCY = "chef.initial-concurrency";
+
+   /**
+    * Integer property. Default (100).
+    * <p>
+    * The maximum number of concurrent requests the strategies send to the Chef
+    * server.
+    */
+   public static final String CHEF_MAX_CONCURRENCY = "chef.max-concurrency";
+
+   /**
+    * Long property. Default (0).
+    * <p>
+    * The time, in milliseconds, the ohai automatic attribute suppliers are
+    * given to compute their values. When set, the suppliers are called
+    * concurrently and the ones that do not finish in time are reported and
+    * represented by their last known value. Zero calls them one after another,
+    * without a time limit.
+    */
+   public static final String CHEF_OHAI_TIME_BUDGET = "chef.ohai-time-budget";
+
+   /**
+    * Long property. Default (0).
+    * <p>
+    * The time, in milliseconds, between full updates of the automatic
+    * attributes of a node. When set, the automatic attributes are only sent
+    * in between if they have changed, without reading the node first. This
+    * value must be lower than the age at which nodes are considered stale, as
+    * the {@code ohai_time} attribute is only refreshed by the full updates.
+    * Zero reads and updates the node each time.
+    */
+   public static final String CHEF_AUTOMATIC_ATTRIBUTES_HEARTBEAT = "chef.automatic-attributes-heartbeat";
+
+   /**
+    * Long property. Default (1800000).
+    * <p>
+    * The time, in milliseconds, between the refreshes of the automatic
+    * attributes of the nodes scheduled in the
+    * {@link org.jclouds.ohai.AutomaticAttributesRefresher}.
+    */
+   public static final String CHEF_OHAI_REFRESH_INTERVAL = "chef.ohai-refresh-interval";
+
+   /**
+    * Double property. Default (0.1).
+    * <p>
+    * The fraction of the refresh interval that is randomly added to or
+    * subtracted from each delay, so nodes started at the same time do not
+    * refresh their attributes at the same time.
+    */
+   public static final String CHEF_OHAI_REFRESH_JITTER = "chef.ohai-refresh-jitter";
+
+   /**
+    * Boolean property. Default (true).
+    * <p>
+    * Whether the request metrics of each Chef api operation are published in
+    * the platform MBean server. See
+    * {@link org.jclouds.chef.metrics.ChefApiMetrics}.
+    */
+   public static final String CHEF_METRICS_JMX = "chef.metrics-jmx";
+
+   /**
+    * String property. Default ().
+    * <p>
+    * The directory where the contents of the cookbook files read with
+    * {@link org.jclouds.chef.ChefService#getResourceContents} are cached, by
+    * checksum. Empty disables the cache.
+    */
+   public static final String CHEF_RESOURCE_CACHE_DIR = "chef.resource-cache-dir";
+
+   /**
+    * Long property. Default (1073741824).
+    * <p>
+    * The maximum size, in bytes, of the files in the resource cache. The least
+    * recently used files are deleted when it is exceeded.
+    */
+   public static final String CHEF_RESOURCE_CACHE_SIZE = "chef.resource-cache-size";
+
+   /**
+    * String property. Default ().
+    * <p>
+    * The directory where the checksums of the files uploaded with
+    * {@link org.jclouds.chef.ChefService#uploadCookbook} are kept, so the
+    * files that have not changed since the previous upload are not read
+    * again. Empty disables the cache.
+    */
+   public static final String CHEF_CHECKSUM_CACHE_DIR = "chef.checksum-cache-dir";
+
 }
@@ -0,0 +1,157 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.domain;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.List;
+
+import com.google.common.primitives.Bytes;
+
+/**
+ * An md5 checksum, as used to identify the files uploaded to sandboxes.
+ * <p>
+ * The checksum is kept in two longs, with its hash code and its hexadecimal
+ * form computed once, so large sets of checksums can be hashed, compared and
+ * serialized without copying byte arrays or boxing each byte.
+ */
+public final class Checksum {
+
+   private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+   private final long high;
+   private final long low;
+   private final int hashCode;
+   private final String hex;
+
+   private Checksum(long high, long low, String hex) {
+      this.high = high;
+      this.low = low;
+      this.hashCode = (int) (high ^ (high >>> 32) ^ low ^ (low >>> 32));
+      this.hex = hex != null ? hex : toHex(high, low);
+   }
+
+   /**
+    * @param md5
+    *           the 16 bytes of the checksum.
+    */
+   public static Checksum fromBytes(byte[] md5) {
+      checkArgument(checkNotNull(md5, "md5").length == 16, "an md5 has 16 bytes; was %s", md5.length);
+      return new Checksum(toLong(md5, 0), toLong(md5, 8), null);
+   }
+
+   /**
+    * @param md5
+    *           the 16 bytes of the checksum, as used by the previous sandbox
+    *           apis.
+    */
+   public static Checksum fromList(List<Byte> md5) {
+      return fromBytes(Bytes.toArray(checkNotNull(md5, "md5")));
+   }
+
+   /**
+    * @param hex
+    *           the 32 hexadecimal digits of the checksum, in any case.
+    */
+   public static Checksum fromHex(String hex) {
+      checkArgument(checkNotNull(hex, "hex").length() == 32, "an md5 has 32 hexadecimal digits; was %s", hex);
+      boolean lowerCase = true;
+      long high = 0;
+      long low = 0;
+      for (int i = 0; i < 32; i++) {
+         char c = hex.charAt(i);
+         int digit;
+         if (c >= '0' && c <= '9') {
+            digit = c - '0';
+         } else if (c >= 'a' && c <= 'f') {
+            digit = c - 'a' + 10;
+         } else if (c >= 'A' && c <= 'F') {
+            digit = c - 'A' + 10;
+            lowerCase = false;
+         } else {
+            throw new IllegalArgumentException("invalid hexadecimal digit " + c + " in " + hex);
+         }
+         if (i < 16)
+            high = high << 4 | digit;
+         else
+            low = low << 4 | digit;
+      }
+      // reuse the parsed string when it is already in the canonical form
+      return new Checksum(high, low, lowerCase ? hex : null);
+   }
+
+   /**
+    * @return a new array with the 16 bytes of the checksum.
+    */
+   public byte[] toBytes() {
+      byte[] md5 = new byte[16];
+      for (int i = 0; i < 8; i++) {
+         md5[i] = (byte) (high >>> (56 - 8 * i));
+         md5[i + 8] = (byte) (low >>> (56 - 8 * i));
+      }
+      return md5;
+   }
+
+   /**
+    * @return the bytes of the checksum, as used by the previous sandbox apis.
+    */
+   public List<Byte> toList() {
+      return Bytes.asList(toBytes());
+   }
+
+   private static long toLong(byte[] bytes, int offset) {
+      long value = 0;
+      for (int i = offset; i < offset + 8; i++)
+         value = value << 8 | (bytes[i] & 0xff);
+      return value;
+   }
+
+   private static String toHex(long high, long low) {
+      char[] digits = new char[32];
+      for (int i = 0; i < 16; i++) {
+         digits[i] = HEX_DIGITS[(int) (high >>> (60 - 4 * i)) & 0xf];
+         digits[i + 16] = HEX_DIGITS[(int) (low >>> (60 - 4 * i)) & 0xf];
+      }
+      return new String(digits);
+   }
+
+   @Override
+   public int hashCode() {
+      return hashCode;
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (!(obj instanceof Checksum))
+         return false;
+      Checksum other = (Checksum) obj;
+      return high == other.high && low == other.low;
+   }
+
+   /**
+    * @return the checksum in lowercase hexadecimal, as sent to the Chef server.
+    */
+   @Override
+   public String toString() {
+      return hex;
+   }
+}
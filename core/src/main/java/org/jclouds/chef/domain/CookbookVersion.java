@@ -33,7 +33,7 @@ public class CookbookVersion {
 
    private String name;
    private Set<Resource> definitions = Sets.newLinkedHashSet();
-   private Set<Attribute> attributes = Sets.newLinkedHashSet();
+   private Set<Resource> attributes = Sets.newLinkedHashSet();
    private Set<Resource> files = Sets.newLinkedHashSet();
    private Metadata metadata = new Metadata();
    private Set<Resource> providers = Sets.newLinkedHashSet();
@@ -61,7 +61,13 @@ public class CookbookVersion {
       this.name = cookbookName + "-" + version;
    }
 
-   public CookbookVersion(String name, Set<Resource> definitions, Set<Attribute> attributes, Set<Resource> files,
+   /**
+    * Note that the attributes are the attribute files of the cookbook, as
+    * {@link Resource}s. This constructor used to take metadata
+    * {@link Attribute}s, which is an incompatible change: the metadata
+    * attributes are in {@link Metadata#getAttributes()}.
+    */
+   public CookbookVersion(String name, Set<Resource> definitions, Set<Resource> attributes, Set<Resource> files,
          Metadata metadata, Set<Resource> providers, String cookbookName, Set<Resource> resources,
          Set<Resource> templates, Set<Resource> libraries, String version, Set<Resource> recipes,
          Set<Resource> rootFiles) {
@@ -93,7 +99,14 @@ public class CookbookVersion {
       return definitions;
    }
 
-   public Set<Attribute> getAttributes() {
+   /**
+    * @return the attribute files of the cookbook, such as
+    *         {@code attributes/default.rb}. This method used to return
+    *         {@link Attribute}s, into which the files sent by the server were
+    *         wrongly parsed. The metadata attributes are in
+    *         {@link Metadata#getAttributes()}.
+    */
+   public Set<Resource> getAttributes() {
       return attributes;
    }
 
@@ -0,0 +1,83 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+
+import com.google.common.base.Charsets;
+
+/**
+ * A databag item kept as the raw UTF-8 bytes of its json, without the
+ * <code>id</code> field.
+ * <p>
+ * The bytes are not copied: they must not be modified.
+ */
+public class RawDatabagItem {
+
+   private final String id;
+   private final byte[] rawData;
+
+   public RawDatabagItem(String id, byte[] rawData) {
+      this.id = checkNotNull(id, "id");
+      this.rawData = checkNotNull(rawData, "rawData");
+   }
+
+   public String getId() {
+      return id;
+   }
+
+   /**
+    * @return the UTF-8 encoded json of the item.
+    */
+   public byte[] getRawData() {
+      return rawData;
+   }
+
+   public DatabagItem toDatabagItem() {
+      return new DatabagItem(id, new String(rawData, Charsets.UTF_8));
+   }
+
+   @Override
+   public int hashCode() {
+      final int prime = 31;
+      int result = 1;
+      result = prime * result + id.hashCode();
+      result = prime * result + Arrays.hashCode(rawData);
+      return result;
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (obj == null)
+         return false;
+      if (getClass() != obj.getClass())
+         return false;
+      RawDatabagItem other = (RawDatabagItem) obj;
+      return id.equals(other.id) && Arrays.equals(rawData, other.rawData);
+   }
+
+   @Override
+   public String toString() {
+      return "RawDatabagItem [id=" + id + ", size=" + rawData.length + "]";
+   }
+}
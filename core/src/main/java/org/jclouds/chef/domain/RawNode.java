@@ -0,0 +1,242 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.domain;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.chef.util.JsonText;
+import org.jclouds.domain.JsonBall;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * A node that keeps each of its attribute blocks as raw json.
+ * <p>
+ * The attributes of a block are parsed the first time they are accessed, and
+ * single attributes can be looked up by path, walking through the raw json of
+ * the block without parsing the rest of it.
+ */
+public class RawNode {
+
+   public static final String NORMAL = "normal";
+   public static final String OVERRIDE = "override";
+   public static final String DEFAULT = "default";
+   public static final String AUTOMATIC = "automatic";
+
+   /**
+    * The names of the attribute blocks of a node.
+    */
+   public static final Set<String> ATTRIBUTE_BLOCKS = ImmutableSet.of(NORMAL, OVERRIDE, DEFAULT, AUTOMATIC);
+
+   private static final Splitter PATH_SPLITTER = Splitter.on('/').omitEmptyStrings();
+
+   private final String name;
+   private final List<String> runList;
+   private final String chefEnvironment;
+   private final Map<String, String> attributes;
+   private final Map<String, Map<String, JsonBall>> parsed = Maps.newHashMap();
+
+   /**
+    * @param attributes
+    *           the raw json of each attribute block, by block name.
+    */
+   public RawNode(String name, Iterable<String> runList, @Nullable String chefEnvironment,
+         Map<String, String> attributes) {
+      this.name = name;
+      this.runList = ImmutableList.copyOf(checkNotNull(runList, "runList"));
+      this.chefEnvironment = chefEnvironment;
+      this.attributes = ImmutableMap.copyOf(checkNotNull(attributes, "attributes"));
+   }
+
+   public String getName() {
+      return name;
+   }
+
+   public List<String> getRunList() {
+      return runList;
+   }
+
+   /**
+    * @since chef 0.10
+    */
+   public String getChefEnvironment() {
+      return chefEnvironment;
+   }
+
+   /**
+    * @return the raw json of the given attribute block, or null if the node
+    *         does not have it.
+    */
+   public String getRawAttributes(String block) {
+      return attributes.get(checkNotNull(block, "block"));
+   }
+
+   public Map<String, JsonBall> getNormal() {
+      return getAttributes(NORMAL);
+   }
+
+   public Map<String, JsonBall> getOverride() {
+      return getAttributes(OVERRIDE);
+   }
+
+   public Map<String, JsonBall> getDefault() {
+      return getAttributes(DEFAULT);
+   }
+
+   public Map<String, JsonBall> getAutomatic() {
+      return getAttributes(AUTOMATIC);
+   }
+
+   /**
+    * @return the top level attributes of the given block, which is parsed the
+    *         first time it is accessed.
+    */
+   public synchronized Map<String, JsonBall> getAttributes(String block) {
+      Map<String, JsonBall> values = parsed.get(checkNotNull(block, "block"));
+      if (values == null) {
+         values = parse(attributes.get(block));
+         parsed.put(block, values);
+      }
+      return values;
+   }
+
+   /**
+    * Looks up a single attribute, without parsing the whole block.
+    * <p>
+    * For example, <code>attribute("automatic", "network/interfaces/eth0")</code>
+    * returns the <code>eth0</code> attribute inside
+    * <code>network.interfaces</code>. The elements of an array are selected by
+    * their index.
+    * 
+    * @param path
+    *           the names of the nested attributes, separated by '/'.
+    * @return the raw json of the attribute, or null if it does not exist.
+    */
+   public JsonBall attribute(String block, String path) {
+      checkNotNull(path, "path");
+      String raw = getRawAttributes(block);
+      if (raw == null)
+         return null;
+      JsonText text = new JsonText(raw);
+      for (String segment : PATH_SPLITTER.split(path)) {
+         if (!find(text, segment))
+            return null;
+      }
+      return new JsonBall(text.readValue());
+   }
+
+   /**
+    * @return a {@link Node} with all the attributes of this one.
+    */
+   public Node toNode() {
+      return new Node(name, getNormal(), getOverride(), getDefault(), getAutomatic(), runList, chefEnvironment);
+   }
+
+   private static Map<String, JsonBall> parse(String raw) {
+      if (raw == null)
+         return ImmutableMap.of();
+      JsonText text = new JsonText(raw);
+      Map<String, JsonBall> values = Maps.newLinkedHashMap();
+      text.expect('{');
+      if (text.peek() == '}')
+         return ImmutableMap.of();
+      do {
+         String name = text.readString();
+         text.expect(':');
+         values.put(name, new JsonBall(text.readValue()));
+      } while (text.hasNext('}'));
+      return Collections.unmodifiableMap(values);
+   }
+
+   /**
+    * Moves to the value of the given field or array element.
+    * 
+    * @return false if it does not exist
+    */
+   private static boolean find(JsonText text, String segment) {
+      int c = text.peek();
+      if (c == '{') {
+         text.expect('{');
+         if (text.peek() == '}')
+            return false;
+         do {
+            String name = text.readString();
+            text.expect(':');
+            if (name.equals(segment))
+               return true;
+            text.skipValue();
+         } while (text.hasNext('}'));
+      } else if (c == '[') {
+         int index = index(segment);
+         text.expect('[');
+         if (index < 0 || text.peek() == ']')
+            return false;
+         for (int i = 0; i < index; i++) {
+            text.skipValue();
+            if (!text.hasNext(']'))
+               return false;
+         }
+         return true;
+      }
+      return false;
+   }
+
+   private static int index(String segment) {
+      try {
+         return Integer.parseInt(segment);
+      } catch (NumberFormatException e) {
+         return -1;
+      }
+   }
+
+   @Override
+   public int hashCode() {
+      return Objects.hashCode(name, runList, chefEnvironment, attributes);
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (obj == null)
+         return false;
+      if (getClass() != obj.getClass())
+         return false;
+      RawNode other = (RawNode) obj;
+      return Objects.equal(name, other.name) && Objects.equal(runList, other.runList)
+            && Objects.equal(chefEnvironment, other.chefEnvironment) && Objects.equal(attributes, other.attributes);
+   }
+
+   @Override
+   public String toString() {
+      return "RawNode [name=" + name + ", runList=" + runList + ", chefEnvironment=" + chefEnvironment
+            + ", attributes=" + attributes.keySet() + "]";
+   }
+}
@@ -29,6 +29,7 @@ import com.google.common.collect.Iterables;
  */
 public class SearchResult<T> extends LinkedHashSet<T> {
    private long start;
+   private long total = -1;
 
    SearchResult() {
    }
@@ -38,14 +39,28 @@ public class SearchResult<T> extends LinkedHashSet<T> {
       Iterables.addAll(this, results);
    }
 
+   public SearchResult(long start, long total, Iterable<T> results) {
+      this(start, results);
+      this.total = total;
+   }
+
    private static final long serialVersionUID = 4000610660948065287L;
 
    /**
     * 
     * @return the result position this started from from
     */
-   long getStart() {
+   public long getStart() {
       return start;
    }
 
+   /**
+    * 
+    * @return the total number of rows that matched the search, or -1 if it is
+    *         unknown
+    */
+   public long getTotal() {
+      return total;
+   }
+
 }
\ No newline at end of file
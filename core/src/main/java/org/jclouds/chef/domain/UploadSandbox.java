@@ -31,11 +31,11 @@ import com.google.gson.annotations.SerializedName;
  */
 public class UploadSandbox {
    private URI uri;
-   private Map<List<Byte>, ChecksumStatus> checksums = Maps.newLinkedHashMap();
+   private Map<Checksum, ChecksumStatus> checksums = Maps.newLinkedHashMap();
    @SerializedName("sandbox_id")
    private String sandboxId;
 
-   public UploadSandbox(URI uri, Map<List<Byte>, ChecksumStatus> checksums, String sandboxId) {
+   public UploadSandbox(URI uri, Map<Checksum, ChecksumStatus> checksums, String sandboxId) {
       this.uri = uri;
       this.checksums.putAll(checksums);
       this.sandboxId = sandboxId;
@@ -49,10 +49,26 @@ public class UploadSandbox {
       return uri;
    }
 
-   public Map<List<Byte>, ChecksumStatus> getChecksums() {
+   /**
+    * @return the status of each checksum in the sandbox.
+    */
+   public Map<Checksum, ChecksumStatus> getChecksumStatuses() {
       return checksums;
    }
 
+   /**
+    * @return a copy of the status of each checksum, keyed by its bytes.
+    * @deprecated use {@link #getChecksumStatuses()}, which does not copy the
+    *             checksums.
+    */
+   @Deprecated
+   public Map<List<Byte>, ChecksumStatus> getChecksums() {
+      Map<List<Byte>, ChecksumStatus> copy = Maps.newLinkedHashMap();
+      for (Map.Entry<Checksum, ChecksumStatus> checksum : checksums.entrySet())
+         copy.put(checksum.getKey().toList(), checksum.getValue());
+      return copy;
+   }
+
    public String getSandboxId() {
       return sandboxId;
    }
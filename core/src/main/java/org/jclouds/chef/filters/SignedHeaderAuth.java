@@ -23,19 +23,22 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.hash.Hashing.sha1;
 import static com.google.common.io.BaseEncoding.base64;
 import static com.google.common.io.ByteStreams.asByteSource;
-import static com.google.common.io.ByteStreams.toByteArray;
 
-import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 import javax.annotation.Resource;
-import javax.inject.Inject;
+import javax.crypto.Cipher;
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.jclouds.Constants;
+import org.jclouds.chef.metrics.ChefApiMetrics;
+import org.jclouds.chef.payloads.ChecksummedFilePayload;
 import org.jclouds.date.TimeStamp;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpException;
@@ -48,7 +51,6 @@ import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.io.payloads.MultipartForm;
 import org.jclouds.io.payloads.Part;
-import org.jclouds.io.payloads.RSAEncryptingPayload;
 import org.jclouds.logging.Logger;
 import org.jclouds.util.Strings2;
 
@@ -60,6 +62,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
+import com.google.inject.Inject;
 
 /**
  * Ported from mixlib-authentication in order to sign Chef requests.
@@ -78,11 +81,21 @@ public class SignedHeaderAuth implements HttpRequestFilter {
    private final Provider<String> timeStampProvider;
    private final String emptyStringHash;
    private final HttpUtils utils;
+   /**
+    * Idle ciphers, reused by the next signature. The pool is bounded, so a
+    * burst of concurrent requests doesn't keep a cipher for each thread that
+    * ever signed one.
+    */
+   private final BlockingQueue<KeyedCipher> ciphers = new ArrayBlockingQueue<KeyedCipher>(Runtime.getRuntime()
+         .availableProcessors());
 
    @Resource
    @Named(Constants.LOGGER_SIGNATURE)
    Logger signatureLog = Logger.NULL;
 
+   @Inject(optional = true)
+   ChefApiMetrics metrics;
+
    @Inject
    public SignedHeaderAuth(SignatureWire signatureWire, @org.jclouds.location.Provider Supplier<Credentials> creds,
          Supplier<PrivateKey> supplyKey, @TimeStamp Provider<String> timeStampProvider, HttpUtils utils) {
@@ -95,6 +108,7 @@ public class SignedHeaderAuth implements HttpRequestFilter {
    }
 
    public HttpRequest filter(HttpRequest input) throws HttpException {
+      long start = System.nanoTime();
       HttpRequest request = input.toBuilder().endpoint(input.getEndpoint().toString().replace("%3F", "?")).build();
       String contentHash = hashBody(request.getPayload());
       Multimap<String, String> headers = ArrayListMultimap.create();
@@ -108,7 +122,10 @@ public class SignedHeaderAuth implements HttpRequestFilter {
       headers.put("X-Ops-Timestamp", timestamp);
       utils.logRequest(signatureLog, request, "<<");
 
-      return request.toBuilder().replaceHeaders(headers).build();
+      request = request.toBuilder().replaceHeaders(headers).build();
+      if (metrics != null)
+         metrics.record(ChefApiMetrics.SIGNING, System.nanoTime() - start, null);
+      return request;
    }
 
    @VisibleForTesting
@@ -160,6 +177,9 @@ public class SignedHeaderAuth implements HttpRequestFilter {
          return emptyStringHash;
       payload = useTheFilePartIfForm(payload);
       checkArgument(payload != null, "payload was null");
+      if (payload instanceof ChecksummedFilePayload)
+         // reused when the request is signed again to be retried
+         return base64().encode(ChecksummedFilePayload.class.cast(payload).getSHA1());
       checkArgument(payload.isRepeatable(), "payload must be repeatable: " + payload);
       try {
          return base64().encode(ByteSources.asByteSource(payload.getInput()).hash(sha1()).asBytes());
@@ -190,11 +210,47 @@ public class SignedHeaderAuth implements HttpRequestFilter {
 
    public String sign(String toSign) {
       try {
-         byte[] encrypted = toByteArray(new RSAEncryptingPayload(Payloads.newStringPayload(toSign), supplyKey.get()));
-         return base64().encode(encrypted);
-      } catch (IOException e) {
+         KeyedCipher cipher = cipherFor(supplyKey.get());
+         String signature = cipher.encryptToBase64(toSign.getBytes(UTF_8));
+         // dropped when the pool is already full
+         ciphers.offer(cipher);
+         return signature;
+      } catch (GeneralSecurityException e) {
          throw new HttpException("error signing request", e);
       }
    }
 
+   private KeyedCipher cipherFor(PrivateKey key) throws GeneralSecurityException {
+      KeyedCipher cipher = ciphers.poll();
+      // the key changes when the credentials do
+      while (cipher != null && cipher.key != key)
+         cipher = ciphers.poll();
+      return cipher != null ? cipher : new KeyedCipher(key);
+   }
+
+   /**
+    * An RSA cipher initialized with a private key, and the buffer its output
+    * is written to. Ciphers are not thread safe, so a cipher is only used by
+    * one signature at a time.
+    */
+   private static class KeyedCipher {
+      private final PrivateKey key;
+      private final Cipher cipher;
+      private final byte[] output;
+
+      private KeyedCipher(PrivateKey key) throws GeneralSecurityException {
+         this.key = key;
+         // PKCS#1 padding with the private key, as mixlib-authentication does
+         this.cipher = Cipher.getInstance("RSA");
+         this.cipher.init(Cipher.ENCRYPT_MODE, key);
+         this.output = new byte[cipher.getOutputSize(0)];
+      }
+
+      private String encryptToBase64(byte[] input) throws GeneralSecurityException {
+         // doFinal leaves the cipher initialized for the next signature
+         int length = cipher.doFinal(input, 0, input.length, output);
+         return base64().encode(output, 0, length);
+      }
+   }
+
 }
@@ -0,0 +1,64 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import java.util.Map;
+import java.util.Set;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.chef.domain.CookbookDefinition;
+import org.jclouds.chef.domain.CookbookDefinition.Version;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.functions.ParseJson;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+
+/**
+ * Parses the versions of all the cookbooks in a Chef Server >= 0.10.0.
+ */
+@Singleton
+public class ParseCookbookVersionsOfAllCookbooksFromJson implements Function<HttpResponse, Map<String, Set<String>>> {
+
+   private final ParseJson<Map<String, CookbookDefinition>> parser;
+
+   @Inject
+   ParseCookbookVersionsOfAllCookbooksFromJson(ParseJson<Map<String, CookbookDefinition>> parser) {
+      this.parser = parser;
+   }
+
+   @Override
+   public Map<String, Set<String>> apply(HttpResponse response) {
+      ImmutableMap.Builder<String, Set<String>> versions = ImmutableMap.builder();
+      for (Map.Entry<String, CookbookDefinition> cookbook : parser.apply(response).entrySet()) {
+         versions.put(cookbook.getKey(), ImmutableSet.copyOf(Iterables.transform(cookbook.getValue().getVersions(),
+               new Function<Version, String>() {
+                  @Override
+                  public String apply(Version input) {
+                     return input.getVersion();
+                  }
+               })));
+      }
+      return versions.build();
+   }
+}
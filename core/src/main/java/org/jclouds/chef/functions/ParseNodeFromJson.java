@@ -0,0 +1,147 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.RawNode;
+import org.jclouds.chef.options.NodeProjection;
+import org.jclouds.domain.JsonBall;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.rest.InvocationContext;
+import org.jclouds.rest.internal.GeneratedHttpRequest;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Parses a {@link Node}, keeping only the attributes selected by the
+ * {@link NodeProjection} given to the api method, if any.
+ * <p>
+ * The attributes that are not selected are skipped token by token, so they
+ * are never deserialized.
+ */
+public class ParseNodeFromJson implements Function<HttpResponse, Node>, InvocationContext<ParseNodeFromJson> {
+
+   private static final NodeProjection ALL = new NodeProjection();
+
+   private NodeProjection projection = ALL;
+
+   @Override
+   public Node apply(HttpResponse response) {
+      InputStream input = response.getPayload().getInput();
+      try {
+         try {
+            return read(new JsonReader(new InputStreamReader(input, Charsets.UTF_8)), projection);
+         } finally {
+            Closeables.close(input, true);
+         }
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public ParseNodeFromJson setContext(HttpRequest request) {
+      NodeProjection projection = projectionOf(request);
+      this.projection = projection == null ? ALL : projection;
+      return this;
+   }
+
+   /**
+    * @return the projection passed to the api method that created the
+    *         request, or null if there is none.
+    */
+   static NodeProjection projectionOf(HttpRequest request) {
+      if (request instanceof GeneratedHttpRequest) {
+         for (Object arg : GeneratedHttpRequest.class.cast(request).getInvocation().getArgs()) {
+            if (arg instanceof NodeProjection)
+               return NodeProjection.class.cast(arg);
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Reads the node at the current position of the reader, skipping the
+    * attributes not selected by the projection.
+    */
+   public static Node read(JsonReader reader, NodeProjection projection) throws IOException {
+      String name = null;
+      String chefEnvironment = null;
+      List<String> runList = Lists.newArrayList();
+      Map<String, Map<String, JsonBall>> attributes = Maps.newHashMap();
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String field = reader.nextName();
+         if (reader.peek() == JsonToken.NULL) {
+            reader.skipValue();
+         } else if ("name".equals(field)) {
+            name = reader.nextString();
+         } else if ("chef_environment".equals(field)) {
+            chefEnvironment = reader.nextString();
+         } else if ("run_list".equals(field)) {
+            reader.beginArray();
+            while (reader.hasNext())
+               runList.add(reader.nextString());
+            reader.endArray();
+         } else if (RawNode.ATTRIBUTE_BLOCKS.contains(field) && projection.includes(field)) {
+            attributes.put(field, readAttributes(reader, field, projection));
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return new Node(name, attributes(attributes, RawNode.NORMAL), attributes(attributes, RawNode.OVERRIDE),
+            attributes(attributes, RawNode.DEFAULT), attributes(attributes, RawNode.AUTOMATIC), runList,
+            chefEnvironment);
+   }
+
+   private static Map<String, JsonBall> readAttributes(JsonReader reader, String block, NodeProjection projection)
+         throws IOException {
+      Map<String, JsonBall> values = Maps.newLinkedHashMap();
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String attribute = reader.nextName();
+         if (projection.includes(block, attribute))
+            values.put(attribute, new JsonBall(ParseSearchResultFromJson.readJson(reader)));
+         else
+            reader.skipValue();
+      }
+      reader.endObject();
+      return values;
+   }
+
+   private static Map<String, JsonBall> attributes(Map<String, Map<String, JsonBall>> attributes, String block) {
+      Map<String, JsonBall> values = attributes.get(block);
+      return values == null ? Maps.<String, JsonBall> newHashMap() : values;
+   }
+}
@@ -0,0 +1,63 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.domain.JsonBall;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Parses the result of a partial search.
+ * <p>
+ * Each row contains the values of the requested keys inside the
+ * <code>data</code> object.
+ */
+@Singleton
+public class ParsePartialSearchFromJson extends ParseSearchResultFromJson<Map<String, JsonBall>> {
+
+   @Inject
+   ParsePartialSearchFromJson(Gson gson) {
+      super(gson, new TypeToken<Map<String, JsonBall>>() {
+      }.getType());
+   }
+
+   @Override
+   protected Map<String, JsonBall> readRow(JsonReader reader) throws IOException {
+      Map<String, JsonBall> data = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+         if ("data".equals(reader.nextName()))
+            data = gson.fromJson(reader, rowType);
+         else
+            reader.skipValue();
+      }
+      reader.endObject();
+      // missing attributes are returned as null values
+      return data == null ? null : Collections.unmodifiableMap(data);
+   }
+}
@@ -0,0 +1,93 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Singleton;
+
+import org.jclouds.chef.domain.RawNode;
+import org.jclouds.http.HttpResponse;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.Closeables;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Parses a {@link RawNode}, copying its attribute blocks as raw json instead
+ * of deserializing them.
+ */
+@Singleton
+public class ParseRawNodeFromJson implements Function<HttpResponse, RawNode> {
+
+   @Override
+   public RawNode apply(HttpResponse response) {
+      InputStream input = response.getPayload().getInput();
+      try {
+         try {
+            return read(new JsonReader(new InputStreamReader(input, Charsets.UTF_8)));
+         } finally {
+            Closeables.close(input, true);
+         }
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   /**
+    * Reads the node at the current position of the reader.
+    */
+   public static RawNode read(JsonReader reader) throws IOException {
+      String name = null;
+      String chefEnvironment = null;
+      List<String> runList = Lists.newArrayList();
+      Map<String, String> attributes = Maps.newHashMap();
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String field = reader.nextName();
+         if (reader.peek() == JsonToken.NULL) {
+            reader.skipValue();
+         } else if ("name".equals(field)) {
+            name = reader.nextString();
+         } else if ("chef_environment".equals(field)) {
+            chefEnvironment = reader.nextString();
+         } else if ("run_list".equals(field)) {
+            reader.beginArray();
+            while (reader.hasNext())
+               runList.add(reader.nextString());
+            reader.endArray();
+         } else if (RawNode.ATTRIBUTE_BLOCKS.contains(field)) {
+            attributes.put(field, ParseSearchResultFromJson.readJson(reader));
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return new RawNode(name, runList, chefEnvironment, attributes);
+   }
+}
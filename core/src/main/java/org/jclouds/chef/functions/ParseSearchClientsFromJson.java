@@ -22,7 +22,8 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.chef.domain.Client;
-import org.jclouds.http.functions.ParseJson;
+
+import com.google.gson.Gson;
 
 /**
  * 
@@ -34,8 +35,8 @@ public class ParseSearchClientsFromJson extends ParseSearchResultFromJson<Client
    // TODO add generic json parser detector
 
    @Inject
-   ParseSearchClientsFromJson(ParseJson<Response<Client>> json) {
-      super(json);
+   ParseSearchClientsFromJson(Gson gson) {
+      super(gson, Client.class);
    }
 
 }
@@ -18,64 +18,75 @@
  */
 package org.jclouds.chef.functions;
 
-import java.util.List;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.IOException;
+import java.io.StringWriter;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.chef.domain.DatabagItem;
-import org.jclouds.chef.domain.SearchResult;
-import org.jclouds.domain.JsonBall;
-import org.jclouds.http.HttpResponse;
-import org.jclouds.http.functions.ParseJson;
-import org.jclouds.json.Json;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
-import com.google.gson.annotations.SerializedName;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Parses the search result into a {@link DatabagItem} object.
  * <p>
  * When searching databags, the items are contained inside the
  * <code>raw_data</code> list.
+ * <p>
+ * Each item is copied token by token from the response into its raw json,
+ * leaving the <code>id</code> field out, so the items are parsed only once.
  * 
  * @author Adrian Cole
  */
 @Singleton
-public class ParseSearchDatabagFromJson implements Function<HttpResponse, SearchResult<DatabagItem>> {
-
-   private final ParseJson<Response> responseParser;
-
-   private final Json json;
-
-   static class Row {
-      @SerializedName("raw_data")
-      JsonBall rawData;
-   }
-
-   static class Response {
-      long start;
-      List<Row> rows;
-   }
+public class ParseSearchDatabagFromJson extends ParseSearchResultFromJson<DatabagItem> {
 
    @Inject
-   ParseSearchDatabagFromJson(ParseJson<Response> responseParser, Json json) {
-      this.responseParser = responseParser;
-      this.json = json;
+   ParseSearchDatabagFromJson(Gson gson) {
+      super(gson, DatabagItem.class);
    }
 
    @Override
-   public SearchResult<DatabagItem> apply(HttpResponse arg0) {
-      Response returnVal = responseParser.apply(arg0);
-      Iterable<DatabagItem> items = Iterables.transform(returnVal.rows, new Function<Row, DatabagItem>() {
-         @Override
-         public DatabagItem apply(Row input) {
-            return json.fromJson(input.rawData.toString(), DatabagItem.class);
-         }
-      });
-
-      return new SearchResult<DatabagItem>(returnVal.start, items);
+   protected DatabagItem readRow(JsonReader reader) throws IOException {
+      DatabagItem item = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+         if ("raw_data".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT)
+            item = readItem(reader);
+         else
+            reader.skipValue();
+      }
+      reader.endObject();
+      return item;
    }
 
+   private static DatabagItem readItem(JsonReader reader) throws IOException {
+      String id = null;
+      StringWriter raw = new StringWriter();
+      JsonWriter writer = new JsonWriter(raw);
+      writer.setLenient(true);
+      writer.beginObject();
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if (id == null && "id".equals(name) && reader.peek() == JsonToken.STRING) {
+            id = reader.nextString();
+         } else {
+            writer.name(name);
+            copy(reader, writer);
+         }
+      }
+      reader.endObject();
+      writer.endObject();
+      writer.flush();
+      checkState(id != null, "databag item must be a json hash ex. {\"id\":\"item1\",\"my_key\":\"my_data\"}; was %s",
+            raw);
+      return new DatabagItem(id, raw.toString());
+   }
 }
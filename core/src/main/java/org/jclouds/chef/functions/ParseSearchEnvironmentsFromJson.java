@@ -18,12 +18,13 @@
  */
 package org.jclouds.chef.functions;
 
-import org.jclouds.chef.domain.Environment;
-import org.jclouds.http.functions.ParseJson;
-
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.jclouds.chef.domain.Environment;
+
+import com.google.gson.Gson;
+
 /**
  * @author Alex Kulik
  */
@@ -33,8 +34,8 @@ public class ParseSearchEnvironmentsFromJson extends ParseSearchResultFromJson<E
    // TODO add generic json parser detector
 
    @Inject
-   ParseSearchEnvironmentsFromJson(ParseJson<Response<Environment>> json) {
-      super(json);
+   ParseSearchEnvironmentsFromJson(Gson gson) {
+      super(gson, Environment.class);
    }
 
 }
@@ -18,24 +18,51 @@
  */
 package org.jclouds.chef.functions;
 
+import java.io.IOException;
+
 import javax.inject.Inject;
-import javax.inject.Singleton;
 
 import org.jclouds.chef.domain.Node;
-import org.jclouds.http.functions.ParseJson;
+import org.jclouds.chef.options.NodeProjection;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.rest.InvocationContext;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 /**
+ * Parses a node search result, keeping only the attributes selected by the
+ * {@link NodeProjection} given to the api method, if any.
  * 
  * @author Adrian Cole
  */
-@Singleton
-public class ParseSearchNodesFromJson extends ParseSearchResultFromJson<Node> {
+public class ParseSearchNodesFromJson extends ParseSearchResultFromJson<Node> implements
+      InvocationContext<ParseSearchNodesFromJson> {
 
    // TODO add generic json parser detector
 
+   private NodeProjection projection;
+
    @Inject
-   ParseSearchNodesFromJson(ParseJson<Response<Node>> json) {
-      super(json);
+   ParseSearchNodesFromJson(Gson gson) {
+      super(gson, Node.class);
    }
 
+   @Override
+   public ParseSearchNodesFromJson setContext(HttpRequest request) {
+      this.projection = ParseNodeFromJson.projectionOf(request);
+      return this;
+   }
+
+   @Override
+   protected Node readRow(JsonReader reader) throws IOException {
+      if (projection == null)
+         return super.readRow(reader);
+      if (reader.peek() == JsonToken.NULL) {
+         reader.nextNull();
+         return null;
+      }
+      return ParseNodeFromJson.read(reader, projection);
+   }
 }
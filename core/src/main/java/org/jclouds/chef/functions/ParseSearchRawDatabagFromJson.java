@@ -0,0 +1,318 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.List;
+
+import javax.inject.Singleton;
+
+import org.jclouds.chef.domain.RawDatabagItem;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.http.HttpResponse;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Parses a databag search result into {@link RawDatabagItem} objects.
+ * <p>
+ * The response is scanned byte by byte and the json of each item is copied
+ * verbatim, leaving the <code>id</code> field out, so no String is created for
+ * the contents of the items.
+ */
+@Singleton
+public class ParseSearchRawDatabagFromJson implements Function<HttpResponse, SearchResult<RawDatabagItem>> {
+
+   private static final byte[] ID = "\"id\"".getBytes(Charsets.UTF_8);
+
+   @Override
+   public SearchResult<RawDatabagItem> apply(HttpResponse response) {
+      InputStream input = response.getPayload().getInput();
+      try {
+         try {
+            return read(new ByteScanner(input));
+         } finally {
+            Closeables.close(input, true);
+         }
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   private static SearchResult<RawDatabagItem> read(ByteScanner in) throws IOException {
+      long start = 0;
+      long total = -1;
+      List<RawDatabagItem> rows = Lists.newArrayList();
+      in.expect('{');
+      if (!in.consume('}')) {
+         do {
+            String name = in.readString();
+            in.expect(':');
+            if (in.peekToken() == 'n')
+               in.copyValue(null);
+            else if ("start".equals(name))
+               start = in.readLong();
+            else if ("total".equals(name))
+               total = in.readLong();
+            else if ("rows".equals(name))
+               readRows(in, rows);
+            else
+               in.copyValue(null);
+         } while (in.hasNext('}'));
+      }
+      return new SearchResult<RawDatabagItem>(start, total, rows);
+   }
+
+   private static void readRows(ByteScanner in, List<RawDatabagItem> rows) throws IOException {
+      in.expect('[');
+      if (in.consume(']'))
+         return;
+      do {
+         RawDatabagItem item = readRow(in);
+         if (item != null)
+            rows.add(item);
+      } while (in.hasNext(']'));
+   }
+
+   private static RawDatabagItem readRow(ByteScanner in) throws IOException {
+      if (in.peekToken() != '{') {
+         in.copyValue(null);
+         return null;
+      }
+      RawDatabagItem item = null;
+      in.expect('{');
+      if (!in.consume('}')) {
+         do {
+            String name = in.readString();
+            in.expect(':');
+            if ("raw_data".equals(name) && in.peekToken() == '{')
+               item = readItem(in);
+            else
+               in.copyValue(null);
+         } while (in.hasNext('}'));
+      }
+      return item;
+   }
+
+   private static RawDatabagItem readItem(ByteScanner in) throws IOException {
+      String id = null;
+      Buffer raw = new Buffer();
+      raw.write('{');
+      in.expect('{');
+      if (!in.consume('}')) {
+         do {
+            int mark = raw.size();
+            if (mark > 1)
+               raw.write(',');
+            int name = raw.size();
+            in.copyValue(raw);
+            in.expect(':');
+            if (id == null && raw.regionEquals(name, ID) && in.peekToken() == '"') {
+               // the id is returned apart from the json of the item
+               raw.truncate(mark);
+               id = in.readString();
+            } else {
+               raw.write(':');
+               in.copyValue(raw);
+            }
+         } while (in.hasNext('}'));
+      }
+      raw.write('}');
+      checkState(id != null, "databag item must be a json hash ex. {\"id\":\"item1\",\"my_key\":\"my_data\"}");
+      return new RawDatabagItem(id, raw.toByteArray());
+   }
+
+   /**
+    * A byte array stream that can be rolled back.
+    */
+   private static class Buffer extends ByteArrayOutputStream {
+      private boolean regionEquals(int offset, byte[] bytes) {
+         if (count - offset != bytes.length)
+            return false;
+         for (int i = 0; i < bytes.length; i++) {
+            if (buf[offset + i] != bytes[i])
+               return false;
+         }
+         return true;
+      }
+
+      private void truncate(int size) {
+         count = size;
+      }
+   }
+
+   /**
+    * Reads the json tokens needed to walk through the search result, copying
+    * the bytes of the values that have to be kept.
+    */
+   private static class ByteScanner {
+      private final InputStream input;
+      private final byte[] buffer = new byte[8192];
+      private int pos;
+      private int limit;
+      private OutputStream sink;
+      private int sinkStart;
+
+      private ByteScanner(InputStream input) {
+         this.input = input;
+      }
+
+      private int peek() throws IOException {
+         if (pos == limit && !fill())
+            return -1;
+         return buffer[pos] & 0xff;
+      }
+
+      private boolean fill() throws IOException {
+         if (sink != null)
+            sink.write(buffer, sinkStart, pos - sinkStart);
+         pos = 0;
+         sinkStart = 0;
+         limit = Math.max(0, input.read(buffer, 0, buffer.length));
+         return limit > 0;
+      }
+
+      private int peekToken() throws IOException {
+         int b = peek();
+         while (b == ' ' || b == '\t' || b == '\n' || b == '\r') {
+            pos++;
+            b = peek();
+         }
+         return b;
+      }
+
+      private void expect(char c) throws IOException {
+         if (peekToken() != c)
+            throw syntaxError("expected '" + c + "'");
+         pos++;
+      }
+
+      private boolean consume(char c) throws IOException {
+         if (peekToken() != c)
+            return false;
+         pos++;
+         return true;
+      }
+
+      /**
+       * @return true if there is another element, false if the given closing
+       *         character has been reached.
+       */
+      private boolean hasNext(char close) throws IOException {
+         int b = peekToken();
+         if (b == ',' || b == close) {
+            pos++;
+            return b == ',';
+         }
+         throw syntaxError("expected ',' or '" + close + "'");
+      }
+
+      /**
+       * Skips the next value, copying its bytes to the given stream if it is
+       * not null.
+       */
+      private void copyValue(OutputStream out) throws IOException {
+         int b = peekToken();
+         sink = out;
+         sinkStart = pos;
+         if (b == '"') {
+            skipString();
+         } else if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+               b = peek();
+               if (b == '"') {
+                  skipString();
+                  continue;
+               }
+               if (b == -1)
+                  throw syntaxError("unterminated value");
+               pos++;
+               if (b == '{' || b == '[')
+                  depth++;
+               else if (b == '}' || b == ']')
+                  depth--;
+            } while (depth > 0);
+         } else {
+            while ((b = peek()) != -1 && b != ',' && b != '}' && b != ']' && b != ' ' && b != '\t' && b != '\n'
+                  && b != '\r')
+               pos++;
+         }
+         if (sink != null)
+            sink.write(buffer, sinkStart, pos - sinkStart);
+         sink = null;
+      }
+
+      private void skipString() throws IOException {
+         pos++;
+         for (;;) {
+            int b = peek();
+            if (b == -1)
+               throw syntaxError("unterminated string");
+            pos++;
+            if (b == '"')
+               return;
+            if (b == '\\') {
+               if (peek() == -1)
+                  throw syntaxError("unterminated string");
+               pos++;
+            }
+         }
+      }
+
+      private String readString() throws IOException {
+         if (peekToken() != '"')
+            throw syntaxError("expected a string");
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         copyValue(bytes);
+         String quoted = new String(bytes.toByteArray(), Charsets.UTF_8);
+         if (quoted.indexOf('\\') == -1)
+            return quoted.substring(1, quoted.length() - 1);
+         JsonReader reader = new JsonReader(new StringReader(quoted));
+         reader.setLenient(true);
+         return reader.nextString();
+      }
+
+      private long readLong() throws IOException {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         copyValue(bytes);
+         try {
+            return Long.parseLong(new String(bytes.toByteArray(), Charsets.US_ASCII));
+         } catch (NumberFormatException e) {
+            throw syntaxError("expected a number");
+         }
+      }
+
+      private MalformedJsonException syntaxError(String message) {
+         return new MalformedJsonException(message + " in search result");
+      }
+   }
+}
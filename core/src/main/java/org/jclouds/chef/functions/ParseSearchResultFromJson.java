@@ -18,38 +18,215 @@
  */
 package org.jclouds.chef.functions;
 
-import java.util.List;
+import static com.google.common.base.Preconditions.checkNotNull;
 
-import javax.inject.Inject;
-import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.lang.reflect.Type;
+import java.util.List;
 
 import org.jclouds.chef.domain.SearchResult;
 import org.jclouds.http.HttpResponse;
-import org.jclouds.http.functions.ParseJson;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
 /**
+ * Parses a search result, mapping each row straight from the response stream.
+ * <p>
+ * The response body is never buffered: only the row being read is held in
+ * memory while parsing.
+ * 
  * @author Adrian Cole
  */
-@Singleton
 public class ParseSearchResultFromJson<T> implements Function<HttpResponse, SearchResult<T>> {
 
-   private final ParseJson<Response<T>> json;
-
-   static class Response<T> {
-      long start;
-      List<T> rows;
+   /**
+    * Receives the rows of a search result as they are parsed.
+    */
+   public interface RowHandler<T> {
+      void handle(T row);
    }
 
-   @Inject
-   ParseSearchResultFromJson(ParseJson<Response<T>> json) {
-      this.json = json;
+   protected final Gson gson;
+   protected final Type rowType;
+
+   protected ParseSearchResultFromJson(Gson gson, Type rowType) {
+      this.gson = checkNotNull(gson, "gson");
+      this.rowType = checkNotNull(rowType, "rowType");
    }
 
    @Override
-   public SearchResult<T> apply(HttpResponse arg0) {
-      Response<T> returnVal = json.apply(arg0);
-      return new SearchResult<T>(returnVal.start, returnVal.rows);
+   public SearchResult<T> apply(HttpResponse response) {
+      final List<T> rows = Lists.newArrayList();
+      Page page = parsePage(response.getPayload().getInput(), new RowHandler<T>() {
+         @Override
+         public void handle(T row) {
+            rows.add(row);
+         }
+      });
+      return new SearchResult<T>(page.start, page.total, rows);
+   }
+
+   /**
+    * Parses the response, passing each row to the handler as soon as it has
+    * been read, so the rows of the page are never held in memory together.
+    * The stream is closed once parsed.
+    * 
+    * @return the total number of rows that matched the search, or -1 if the
+    *         server did not report it.
+    */
+   public long parse(InputStream response, RowHandler<? super T> handler) {
+      return parsePage(response, handler).total;
+   }
+
+   private Page parsePage(InputStream response, RowHandler<? super T> handler) {
+      try {
+         try {
+            return read(new JsonReader(new InputStreamReader(response, Charsets.UTF_8)), handler);
+         } finally {
+            Closeables.close(response, true);
+         }
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   private Page read(JsonReader reader, RowHandler<? super T> handler) throws IOException {
+      Page page = new Page();
+      reader.beginObject();
+      while (reader.hasNext()) {
+         String name = reader.nextName();
+         if (reader.peek() == JsonToken.NULL) {
+            reader.skipValue();
+         } else if ("start".equals(name)) {
+            page.start = reader.nextLong();
+         } else if ("total".equals(name)) {
+            page.total = reader.nextLong();
+         } else if ("rows".equals(name)) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+               T row = readRow(reader);
+               if (row != null)
+                  handler.handle(row);
+            }
+            reader.endArray();
+         } else {
+            reader.skipValue();
+         }
+      }
+      reader.endObject();
+      return page;
+   }
+
+   /**
+    * Reads a single row of the result.
+    * 
+    * @return the row, or null if it should be skipped
+    */
+   protected T readRow(JsonReader reader) throws IOException {
+      return gson.fromJson(reader, rowType);
+   }
+
+   /**
+    * @return the raw json of the next value, without any whitespace.
+    */
+   protected static String readJson(JsonReader reader) throws IOException {
+      StringWriter raw = new StringWriter();
+      JsonWriter writer = new JsonWriter(raw);
+      writer.setLenient(true);
+      copy(reader, writer);
+      writer.flush();
+      return raw.toString();
+   }
+
+   /**
+    * Copies the next value token by token, without building any tree.
+    */
+   protected static void copy(JsonReader reader, JsonWriter writer) throws IOException {
+      switch (reader.peek()) {
+         case BEGIN_OBJECT:
+            reader.beginObject();
+            writer.beginObject();
+            while (reader.hasNext()) {
+               writer.name(reader.nextName());
+               copy(reader, writer);
+            }
+            reader.endObject();
+            writer.endObject();
+            break;
+         case BEGIN_ARRAY:
+            reader.beginArray();
+            writer.beginArray();
+            while (reader.hasNext())
+               copy(reader, writer);
+            reader.endArray();
+            writer.endArray();
+            break;
+         case STRING:
+            writer.value(reader.nextString());
+            break;
+         case NUMBER:
+            // keep the number exactly as it was sent
+            writer.value(new RawNumber(reader.nextString()));
+            break;
+         case BOOLEAN:
+            writer.value(reader.nextBoolean());
+            break;
+         case NULL:
+            reader.nextNull();
+            writer.nullValue();
+            break;
+         default:
+            throw new IllegalStateException("unexpected token " + reader.peek());
+      }
+   }
+
+   private static class RawNumber extends Number {
+      private static final long serialVersionUID = 1L;
+      private final String value;
+
+      private RawNumber(String value) {
+         this.value = value;
+      }
+
+      @Override
+      public int intValue() {
+         return (int) longValue();
+      }
+
+      @Override
+      public long longValue() {
+         return Long.parseLong(value);
+      }
+
+      @Override
+      public float floatValue() {
+         return Float.parseFloat(value);
+      }
+
+      @Override
+      public double doubleValue() {
+         return Double.parseDouble(value);
+      }
+
+      @Override
+      public String toString() {
+         return value;
+      }
+   }
+
+   private static class Page {
+      private long start;
+      private long total = -1;
    }
 }
@@ -22,7 +22,8 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.chef.domain.Role;
-import org.jclouds.http.functions.ParseJson;
+
+import com.google.gson.Gson;
 
 /**
  * 
@@ -34,8 +35,8 @@ public class ParseSearchRolesFromJson extends ParseSearchResultFromJson<Role> {
    // TODO add generic json parser detector
 
    @Inject
-   ParseSearchRolesFromJson(ParseJson<Response<Role>> json) {
-      super(json);
+   ParseSearchRolesFromJson(Gson gson) {
+      super(gson, Role.class);
    }
 
 }
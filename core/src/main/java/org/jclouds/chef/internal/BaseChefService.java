@@ -21,6 +21,7 @@ package org.jclouds.chef.internal;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.chef.config.ChefProperties.CHEF_BOOTSTRAP_DATABAG;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.security.PrivateKey;
@@ -30,20 +31,27 @@ import java.util.Map;
 import javax.annotation.Resource;
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.jclouds.chef.ChefApi;
 import org.jclouds.chef.ChefContext;
 import org.jclouds.chef.ChefService;
+import org.jclouds.chef.cache.ResourceCache;
 import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.domain.DatabagItem;
 import org.jclouds.chef.domain.Environment;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
 import org.jclouds.chef.functions.BootstrapConfigForGroup;
 import org.jclouds.chef.functions.GroupToBootScript;
+import org.jclouds.chef.functions.ParseSearchNodesFromJson;
+import org.jclouds.chef.functions.ParseSearchResultFromJson.RowHandler;
 import org.jclouds.chef.functions.RunListForGroup;
+import org.jclouds.chef.options.SearchOptions;
 import org.jclouds.chef.strategy.CleanupStaleNodesAndClients;
 import org.jclouds.chef.strategy.CreateNodeAndPopulateAutomaticAttributes;
 import org.jclouds.chef.strategy.DeleteAllClientsInList;
@@ -52,7 +60,10 @@ import org.jclouds.chef.strategy.ListClients;
 import org.jclouds.chef.strategy.ListCookbookVersions;
 import org.jclouds.chef.strategy.ListEnvironments;
 import org.jclouds.chef.strategy.ListNodes;
+import org.jclouds.chef.strategy.PaginatedSearch;
+import org.jclouds.chef.strategy.SyncCookbookVersions;
 import org.jclouds.chef.strategy.UpdateAutomaticAttributesOnNode;
+import org.jclouds.chef.strategy.UploadCookbook;
 import org.jclouds.domain.JsonBall;
 import org.jclouds.io.Payloads;
 import org.jclouds.io.payloads.RSADecryptingPayload;
@@ -64,11 +75,17 @@ import org.jclouds.scriptbuilder.domain.Statement;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
 import com.google.common.io.InputSupplier;
 
 /**
@@ -94,6 +111,11 @@ public class BaseChefService implements ChefService {
    private final ListCookbookVersions listCookbookVersions;
    private final ListEnvironments listEnvironments;
    private final Json json;
+   private final PaginatedSearch paginatedSearch;
+   private final UploadCookbook uploadCookbook;
+   private final ResourceCache resourceCache;
+   private final SyncCookbookVersions syncCookbookVersions;
+   private final Provider<ParseSearchNodesFromJson> searchNodesParser;
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
@@ -107,7 +129,9 @@ public class BaseChefService implements ChefService {
          UpdateAutomaticAttributesOnNode updateAutomaticAttributesOnNode, Supplier<PrivateKey> privateKey,
          @Named(CHEF_BOOTSTRAP_DATABAG) String databag, GroupToBootScript groupToBootScript,
          BootstrapConfigForGroup bootstrapConfigForGroup, RunListForGroup runListForGroup,
-         ListEnvironments listEnvironments, Json json) {
+         ListEnvironments listEnvironments, Json json, PaginatedSearch paginatedSearch, UploadCookbook uploadCookbook,
+         ResourceCache resourceCache, SyncCookbookVersions syncCookbookVersions,
+         Provider<ParseSearchNodesFromJson> searchNodesParser) {
       this.chefContext = checkNotNull(chefContext, "chefContext");
       this.api = checkNotNull(api, "api");
       this.cleanupStaleNodesAndClients = checkNotNull(cleanupStaleNodesAndClients, "cleanupStaleNodesAndClients");
@@ -127,6 +151,11 @@ public class BaseChefService implements ChefService {
       this.runListForGroup = checkNotNull(runListForGroup, "runListForGroup");
       this.listEnvironments = checkNotNull(listEnvironments, "listEnvironments");
       this.json = checkNotNull(json, "json");
+      this.paginatedSearch = checkNotNull(paginatedSearch, "paginatedSearch");
+      this.uploadCookbook = checkNotNull(uploadCookbook, "uploadCookbook");
+      this.resourceCache = checkNotNull(resourceCache, "resourceCache");
+      this.syncCookbookVersions = checkNotNull(syncCookbookVersions, "syncCookbookVersions");
+      this.searchNodesParser = checkNotNull(searchNodesParser, "searchNodesParser");
    }
 
    @Override
@@ -159,6 +188,36 @@ public class BaseChefService implements ChefService {
       return listNodes.execute(names);
    }
 
+   @Override
+   public Iterable<Map<String, JsonBall>> partialSearch(final String index, final String query,
+         Map<String, String> keys) {
+      checkNotNull(index, "index");
+      checkNotNull(query, "query");
+      ImmutableMap.Builder<String, List<String>> paths = ImmutableMap.builder();
+      for (Map.Entry<String, String> key : checkNotNull(keys, "keys").entrySet())
+         paths.put(key.getKey(), ImmutableList.copyOf(Splitter.on('.').split(key.getValue())));
+      final Map<String, List<String>> requestedKeys = paths.build();
+
+      return paginatedSearch.<Map<String, JsonBall>> execute(
+            new Function<SearchOptions, SearchResult<Map<String, JsonBall>>>() {
+               @Override
+               public SearchResult<Map<String, JsonBall>> apply(SearchOptions input) {
+                  return api.partialSearch(index, requestedKeys, input);
+               }
+            }, query);
+   }
+
+   @Override
+   public Iterable<Map<String, JsonBall>> partialSearchNodes(String query, Map<String, String> keys) {
+      return partialSearch("node", query, keys);
+   }
+
+   @Override
+   public long searchNodes(String query, RowHandler<? super Node> handler) {
+      // parsers keep the context of a request, so they are not shared
+      return paginatedSearch.execute("node", query, searchNodesParser.get(), handler);
+   }
+
    @Override
    public void deleteAllClientsInList(Iterable<String> names) {
       deleteAllClientsInList.execute(names);
@@ -194,6 +253,39 @@ public class BaseChefService implements ChefService {
       return listCookbookVersions.execute(names);
    }
 
+   @Override
+   public CookbookVersion uploadCookbook(File directory, String name, String version) {
+      return uploadCookbook.execute(directory, name, version);
+   }
+
+   @Override
+   public void syncCookbookVersions(File directory, Iterable<? extends CookbookVersion> cookbookVersions) {
+      syncCookbookVersions.execute(directory, cookbookVersions);
+   }
+
+   @Override
+   public InputStream getResourceContents(org.jclouds.chef.domain.Resource resource) {
+      byte[] md5 = resource.getChecksum();
+      if (!resourceCache.isEnabled() || md5 == null || md5.length != 16)
+         return api.getResourceContents(resource);
+      Checksum checksum = Checksum.fromBytes(md5);
+      InputStream cached = resourceCache.get(checksum);
+      if (cached != null)
+         return cached;
+      InputStream download = api.getResourceContents(resource);
+      if (download == null)
+         return null;
+      try {
+         try {
+            return resourceCache.put(checksum, download);
+         } finally {
+            Closeables.close(download, true);
+         }
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
    @Override
    public void updateAutomaticAttributesOnNode(String nodeName) {
       updateAutomaticAttributesOnNode.execute(nodeName);
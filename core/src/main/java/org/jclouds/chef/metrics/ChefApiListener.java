@@ -0,0 +1,47 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import org.jclouds.javax.annotation.Nullable;
+
+/**
+ * Receives the outcome of each request sent to the Chef server.
+ * <p>
+ * Listeners are notified in the thread that executed the request, so they
+ * should return quickly. They can be registered with
+ * {@link ChefApiMetrics#addListener(ChefApiListener)} or contributed to the
+ * context with a {@code Multibinder}.
+ */
+public interface ChefApiListener {
+
+   /**
+    * Called when a request completes.
+    * 
+    * @param operation
+    *           the {@code @Named} id of the api method, such as
+    *           {@code node:get}, or {@link ChefApiMetrics#SIGNING} for the
+    *           time spent signing a request.
+    * @param latencyNanos
+    *           the time, in nanoseconds, the request took.
+    * @param error
+    *           the error the request failed with, or {@code null} if it
+    *           succeeded.
+    */
+   void onRequest(String operation, long latencyNanos, @Nullable Throwable error);
+}
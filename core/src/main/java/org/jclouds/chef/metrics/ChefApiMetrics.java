@@ -0,0 +1,189 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.chef.config.ChefProperties.CHEF_METRICS_JMX;
+
+import java.io.Closeable;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Keeps the request count, error count and latency histogram of each Chef
+ * api operation, keyed by the {@code @Named} id of the api methods.
+ * <p>
+ * The latency of an operation covers the whole request execution: signing,
+ * sending the request, retries and parsing the response. The time spent
+ * signing is also recorded on its own, under the {@link #SIGNING} id, to tell
+ * it apart from the time spent on the network and in the Chef server.
+ * <p>
+ * Unless disabled with {@link ChefProperties#CHEF_METRICS_JMX}, each
+ * operation is published as an MBean in the platform MBean server, named
+ * {@code org.jclouds.chef:type=ChefApiMetrics,instance=<n>,operation="<id>"}
+ * and unregistered when the context is closed.
+ */
+@Singleton
+public class ChefApiMetrics implements Closeable {
+
+   /** The id under which the time spent signing the requests is recorded. */
+   public static final String SIGNING = "auth:sign";
+
+   private static final String DOMAIN = "org.jclouds.chef";
+   private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final ConcurrentMap<String, OperationMetrics> operations = Maps.newConcurrentMap();
+   private final List<ChefApiListener> listeners = new CopyOnWriteArrayList<ChefApiListener>();
+   private final List<ObjectName> registered = new CopyOnWriteArrayList<ObjectName>();
+   private final MBeanServer mbeanServer;
+   private final int instance = INSTANCES.incrementAndGet();
+
+   @Inject
+   ChefApiMetrics(Closer closer, Set<ChefApiListener> listeners, @Named(CHEF_METRICS_JMX) boolean jmx) {
+      this(jmx ? ManagementFactory.getPlatformMBeanServer() : null);
+      this.listeners.addAll(listeners);
+      closer.addToClose(this);
+   }
+
+   /**
+    * @param mbeanServer
+    *           the server where the operations are published, or
+    *           {@code null} to not publish them.
+    */
+   @VisibleForTesting
+   ChefApiMetrics(@Nullable MBeanServer mbeanServer) {
+      this.mbeanServer = mbeanServer;
+   }
+
+   /**
+    * Records the outcome of a request and notifies the listeners.
+    * 
+    * @param error
+    *           the error the request failed with, or {@code null} if it
+    *           succeeded.
+    */
+   public void record(String operation, long latencyNanos, @Nullable Throwable error) {
+      metricsFor(checkNotNull(operation, "operation")).record(latencyNanos, error != null);
+      for (ChefApiListener listener : listeners) {
+         try {
+            listener.onRequest(operation, latencyNanos, error);
+         } catch (RuntimeException e) {
+            logger.warn(e, "<< listener %s failed for %s", listener, operation);
+         }
+      }
+   }
+
+   /**
+    * @return the metrics of the operations that have been recorded, sorted by
+    *         their id.
+    */
+   public Map<String, OperationMetrics> getOperations() {
+      return ImmutableSortedMap.copyOf(operations);
+   }
+
+   /**
+    * @return the metrics of the given operation, or {@code null} if it has
+    *         not been recorded.
+    */
+   @Nullable
+   public OperationMetrics getOperation(String operation) {
+      return operations.get(checkNotNull(operation, "operation"));
+   }
+
+   public void addListener(ChefApiListener listener) {
+      listeners.add(checkNotNull(listener, "listener"));
+   }
+
+   public void removeListener(ChefApiListener listener) {
+      listeners.remove(listener);
+   }
+
+   /**
+    * Unregisters the operations from the MBean server. The metrics are still
+    * recorded, but are no longer published.
+    */
+   @Override
+   public void close() {
+      for (ObjectName name : registered) {
+         try {
+            mbeanServer.unregisterMBean(name);
+         } catch (JMException e) {
+            logger.debug("<< could not unregister %s: %s", name, e.getMessage());
+         }
+      }
+      registered.clear();
+   }
+
+   private OperationMetrics metricsFor(String operation) {
+      OperationMetrics metrics = operations.get(operation);
+      if (metrics == null) {
+         OperationMetrics created = new OperationMetrics(operation);
+         metrics = operations.putIfAbsent(operation, created);
+         if (metrics == null) {
+            metrics = created;
+            publish(created);
+         }
+      }
+      return metrics;
+   }
+
+   private void publish(OperationMetrics metrics) {
+      if (mbeanServer == null)
+         return;
+      try {
+         ObjectName name = objectName(metrics.getOperation());
+         mbeanServer.registerMBean(metrics, name);
+         registered.add(name);
+      } catch (JMException e) {
+         logger.warn(e, "<< could not publish the metrics of %s", metrics.getOperation());
+      }
+   }
+
+   @VisibleForTesting
+   ObjectName objectName(String operation) throws JMException {
+      return new ObjectName(DOMAIN + ":type=ChefApiMetrics,instance=" + instance + ",operation="
+            + ObjectName.quote(operation));
+   }
+}
@@ -0,0 +1,109 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free latency histogram with logarithmic buckets.
+ * <p>
+ * Each power of two is divided in eight buckets, so the percentiles are
+ * reported with a relative error below 12.5%, using a fixed amount of memory
+ * no matter how many latencies are recorded. Latencies are recorded with
+ * microsecond resolution, up to about twelve days.
+ */
+public class LatencyHistogram {
+
+   private static final int SUB_BUCKET_BITS = 3;
+   private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+   private static final int LINEAR_BUCKETS = 2 * SUB_BUCKETS;
+   private static final int MAX_EXPONENT = 39;
+   private static final int BUCKETS = (MAX_EXPONENT - 1) * SUB_BUCKETS;
+
+   private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+   /**
+    * Records the given latency, in nanoseconds.
+    */
+   public void record(long latencyNanos) {
+      counts.incrementAndGet(bucketOf(TimeUnit.NANOSECONDS.toMicros(Math.max(0, latencyNanos))));
+   }
+
+   /**
+    * @return the number of recorded latencies.
+    */
+   public long getCount() {
+      long count = 0;
+      for (int i = 0; i < BUCKETS; i++)
+         count += counts.get(i);
+      return count;
+   }
+
+   /**
+    * @param quantile
+    *           the quantile to return, between 0 and 1 (0.99 for the 99th
+    *           percentile).
+    * @return the latency, in nanoseconds, below which the given quantile of
+    *         the recorded latencies are, or zero if nothing has been recorded.
+    */
+   public long getPercentile(double quantile) {
+      checkArgument(quantile >= 0 && quantile <= 1, "quantile must be between 0 and 1");
+      long[] snapshot = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         snapshot[i] = counts.get(i);
+         total += snapshot[i];
+      }
+      if (total == 0)
+         return 0;
+      long rank = Math.max(1, (long) Math.ceil(quantile * total));
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+         seen += snapshot[i];
+         if (seen >= rank)
+            return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(i));
+      }
+      return TimeUnit.MICROSECONDS.toNanos(upperBoundOf(BUCKETS - 1));
+   }
+
+   static int bucketOf(long micros) {
+      if (micros < LINEAR_BUCKETS)
+         return (int) micros;
+      int exponent = 63 - Long.numberOfLeadingZeros(micros);
+      if (exponent > MAX_EXPONENT)
+         return BUCKETS - 1;
+      int subBucket = (int) (micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      return (exponent - 2) * SUB_BUCKETS + subBucket;
+   }
+
+   /**
+    * @return the lowest latency, in microseconds, that is not recorded in the
+    *         given bucket or the ones before it.
+    */
+   static long upperBoundOf(int bucket) {
+      if (bucket < LINEAR_BUCKETS)
+         return bucket + 1;
+      int exponent = bucket / SUB_BUCKETS + 2;
+      long width = 1L << (exponent - SUB_BUCKET_BITS);
+      return (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) * width;
+   }
+}
@@ -0,0 +1,101 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The request count, error count and latency of a Chef api operation.
+ */
+public class OperationMetrics implements OperationMetricsMBean {
+   private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+   private final String operation;
+   private final AtomicLong count = new AtomicLong();
+   private final AtomicLong errors = new AtomicLong();
+   private final AtomicLong totalNanos = new AtomicLong();
+   private final LatencyHistogram latency = new LatencyHistogram();
+
+   OperationMetrics(String operation) {
+      this.operation = checkNotNull(operation, "operation");
+   }
+
+   void record(long latencyNanos, boolean failed) {
+      latency.record(latencyNanos);
+      totalNanos.addAndGet(latencyNanos);
+      if (failed)
+         errors.incrementAndGet();
+      count.incrementAndGet();
+   }
+
+   /**
+    * @return the {@code @Named} id of the operation.
+    */
+   public String getOperation() {
+      return operation;
+   }
+
+   @Override
+   public long getCount() {
+      return count.get();
+   }
+
+   @Override
+   public long getErrorCount() {
+      return errors.get();
+   }
+
+   /**
+    * @return the latency histogram of the operation.
+    */
+   public LatencyHistogram getLatency() {
+      return latency;
+   }
+
+   @Override
+   public double getMeanLatencyMillis() {
+      long requests = count.get();
+      return requests == 0 ? 0 : totalNanos.get() / NANOS_PER_MILLI / requests;
+   }
+
+   @Override
+   public double getLatency50thPercentileMillis() {
+      return latency.getPercentile(0.5) / NANOS_PER_MILLI;
+   }
+
+   @Override
+   public double getLatency99thPercentileMillis() {
+      return latency.getPercentile(0.99) / NANOS_PER_MILLI;
+   }
+
+   @Override
+   public double getLatency999thPercentileMillis() {
+      return latency.getPercentile(0.999) / NANOS_PER_MILLI;
+   }
+
+   @Override
+   public String toString() {
+      return "OperationMetrics [operation=" + operation + ", count=" + getCount() + ", errors=" + getErrorCount()
+            + ", p50=" + getLatency50thPercentileMillis() + ", p99=" + getLatency99thPercentileMillis() + ", p999="
+            + getLatency999thPercentileMillis() + "]";
+   }
+}
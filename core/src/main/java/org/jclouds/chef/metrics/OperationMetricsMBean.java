@@ -0,0 +1,55 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+/**
+ * The metrics of a Chef api operation, as published through JMX.
+ */
+public interface OperationMetricsMBean {
+
+   /**
+    * @return the number of requests sent.
+    */
+   long getCount();
+
+   /**
+    * @return the number of requests that failed.
+    */
+   long getErrorCount();
+
+   /**
+    * @return the mean latency, in milliseconds.
+    */
+   double getMeanLatencyMillis();
+
+   /**
+    * @return the median latency, in milliseconds.
+    */
+   double getLatency50thPercentileMillis();
+
+   /**
+    * @return the 99th percentile of the latency, in milliseconds.
+    */
+   double getLatency99thPercentileMillis();
+
+   /**
+    * @return the 99.9th percentile of the latency, in milliseconds.
+    */
+   double getLatency999thPercentileMillis();
+}
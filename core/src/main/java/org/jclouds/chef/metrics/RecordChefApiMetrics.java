@@ -0,0 +1,66 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.jclouds.reflect.Invocation;
+
+/**
+ * Records the {@link ChefApiMetrics} around the execution of each api call.
+ * <p>
+ * This interceptor is bound around the function that executes the
+ * invocations of the api methods, and only records the methods that have a
+ * {@code @Named} id.
+ */
+public class RecordChefApiMetrics implements MethodInterceptor {
+   private final Provider<ChefApiMetrics> metrics;
+
+   public RecordChefApiMetrics(Provider<ChefApiMetrics> metrics) {
+      this.metrics = checkNotNull(metrics, "metrics");
+   }
+
+   @Override
+   public Object invoke(MethodInvocation invocation) throws Throwable {
+      String operation = operationOf(invocation.getArguments());
+      if (operation == null)
+         return invocation.proceed();
+      long start = System.nanoTime();
+      try {
+         Object result = invocation.proceed();
+         metrics.get().record(operation, System.nanoTime() - start, null);
+         return result;
+      } catch (Throwable e) {
+         metrics.get().record(operation, System.nanoTime() - start, e);
+         throw e;
+      }
+   }
+
+   private static String operationOf(Object[] arguments) {
+      if (arguments.length != 1 || !(arguments[0] instanceof Invocation))
+         return null;
+      Named named = Invocation.class.cast(arguments[0]).getInvokable().getAnnotation(Named.class);
+      return named == null ? null : named.value();
+   }
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.options;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.chef.domain.RawNode;
+import org.jclouds.http.options.BaseHttpRequestOptions;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Selects the attributes to keep when parsing nodes.
+ * <p>
+ * The attributes that are not selected are skipped token by token while the
+ * response is parsed, without being deserialized. The request sent to the
+ * server is not modified. By default all the attributes are kept.
+ * <p>
+ * Projections are immutable: {@link #skip(String)} and
+ * {@link #only(String, String...)} return a new projection, so a projection
+ * can be shared as a constant.
+ * <p>
+ * This class extends {@link BaseHttpRequestOptions} only so that it can be
+ * passed to the api methods without a binder: jclouds accepts options
+ * arguments and applies them to the request, and these options are empty, so
+ * the request is unchanged. The response parsers then find the projection
+ * among the arguments of the invocation.
+ */
+public final class NodeProjection extends BaseHttpRequestOptions {
+
+   private final Map<String, Set<String>> selected;
+
+   /**
+    * Creates a projection that keeps all the attributes.
+    */
+   public NodeProjection() {
+      this(ImmutableMap.<String, Set<String>> of());
+   }
+
+   private NodeProjection(Map<String, Set<String>> selected) {
+      this.selected = selected;
+   }
+
+   /**
+    * @return a projection that also skips the whole attribute block, such as
+    *         "automatic".
+    */
+   public NodeProjection skip(String block) {
+      return with(checkBlock(block), ImmutableSet.<String> of());
+   }
+
+   /**
+    * @return a projection that also keeps only the given top level attributes
+    *         of the block, such as "ohai_time" in "automatic".
+    */
+   public NodeProjection only(String block, String... attributes) {
+      checkArgument(checkNotNull(attributes, "attributes").length > 0, "attributes must not be empty");
+      return with(checkBlock(block), ImmutableSet.copyOf(attributes));
+   }
+
+   private NodeProjection with(String block, Set<String> attributes) {
+      Map<String, Set<String>> copy = Maps.newHashMap(selected);
+      copy.put(block, attributes);
+      return new NodeProjection(ImmutableMap.copyOf(copy));
+   }
+
+   /**
+    * @return false if the block is skipped.
+    */
+   public boolean includes(String block) {
+      Set<String> attributes = selected.get(block);
+      return attributes == null || !attributes.isEmpty();
+   }
+
+   /**
+    * @return true if the attribute of the block is kept.
+    */
+   public boolean includes(String block, String attribute) {
+      Set<String> attributes = selected.get(block);
+      return attributes == null || attributes.contains(attribute);
+   }
+
+   private static String checkBlock(String block) {
+      checkArgument(RawNode.ATTRIBUTE_BLOCKS.contains(checkNotNull(block, "block")), "%s is not one of %s", block,
+            RawNode.ATTRIBUTE_BLOCKS);
+      return block;
+   }
+
+   @Override
+   public int hashCode() {
+      return 31 * super.hashCode() + selected.hashCode();
+   }
+
+   @Override
+   public boolean equals(Object obj) {
+      if (this == obj)
+         return true;
+      if (!super.equals(obj))
+         return false;
+      if (getClass() != obj.getClass())
+         return false;
+      return selected.equals(NodeProjection.class.cast(obj).selected);
+   }
+
+   @Override
+   public String toString() {
+      return "NodeProjection " + selected;
+   }
+
+   public static class Builder {
+
+      /**
+       * @see NodeProjection#skip(String)
+       */
+      public static NodeProjection skip(String block) {
+         return new NodeProjection().skip(block);
+      }
+
+      /**
+       * @see NodeProjection#only(String, String...)
+       */
+      public static NodeProjection only(String block, String... attributes) {
+         return new NodeProjection().only(block, attributes);
+      }
+   }
+}
@@ -0,0 +1,152 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.payloads;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.jclouds.io.payloads.FilePayload;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.io.Closeables;
+
+/**
+ * A file payload that computes its MD5 and SHA-1 checksums in a single pass
+ * over the file, and keeps them.
+ * <p>
+ * The MD5 is the checksum used to upload the file to a sandbox, and the SHA-1
+ * is the content hash used to sign the upload request. Both are computed when
+ * the payload is created, and the MD5 is set in the content metadata, so the
+ * payload can be used to create a {@link org.jclouds.chef.domain.Resource}
+ * straight away. Computing both at once means the file is only read once
+ * before it is sent, and the request can be signed again, when it is retried,
+ * without reading the file. Large files are memory mapped to compute the
+ * checksums.
+ * <p>
+ * The file must not change once the payload has been created.
+ */
+public class ChecksummedFilePayload extends FilePayload {
+
+   /** Files of this size or bigger are memory mapped to compute the checksums. */
+   static final long MAPPED_THRESHOLD = 1024 * 1024;
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final byte[] md5;
+   private final byte[] sha1;
+
+   public ChecksummedFilePayload(File content) {
+      this(content, MAPPED_THRESHOLD);
+   }
+
+   /**
+    * Creates a payload for a file whose checksums are already known, so it
+    * is not read to compute them.
+    */
+   public ChecksummedFilePayload(File content, byte[] md5, byte[] sha1) {
+      super(content);
+      this.md5 = checkNotNull(md5, "md5").clone();
+      this.sha1 = checkNotNull(sha1, "sha1").clone();
+      getContentMetadata().setContentMD5(this.md5);
+   }
+
+   @VisibleForTesting
+   ChecksummedFilePayload(File content, long mappedThreshold) {
+      this(content, digest(content, mappedThreshold));
+   }
+
+   private ChecksummedFilePayload(File content, MessageDigest[] digests) {
+      this(content, digests[0].digest(), digests[1].digest());
+   }
+
+   /**
+    * @return the MD5 checksum of the file. It is also set as the MD5 of the
+    *         content metadata.
+    */
+   public byte[] getMD5() {
+      return md5.clone();
+   }
+
+   /**
+    * @return the SHA-1 checksum of the file.
+    */
+   public byte[] getSHA1() {
+      return sha1.clone();
+   }
+
+   /**
+    * @return the MD5 and SHA-1 digests, updated with the content of the file.
+    */
+   private static MessageDigest[] digest(File content, long mappedThreshold) {
+      MessageDigest md5Digest = digest("MD5");
+      MessageDigest sha1Digest = digest("SHA-1");
+      try {
+         FileInputStream input = new FileInputStream(content);
+         try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size >= mappedThreshold) {
+               for (long position = 0; position < size; position += Integer.MAX_VALUE) {
+                  MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position,
+                        Math.min(Integer.MAX_VALUE, size - position));
+                  int length = buffer.capacity();
+                  for (int offset = 0; offset < length; offset += BUFFER_SIZE) {
+                     // both digests read the chunk while its pages are still cached
+                     buffer.limit(Math.min(offset + BUFFER_SIZE, length));
+                     buffer.position(offset);
+                     md5Digest.update(buffer);
+                     buffer.position(offset);
+                     sha1Digest.update(buffer);
+                  }
+               }
+            } else {
+               byte[] buffer = new byte[BUFFER_SIZE];
+               int read;
+               while ((read = input.read(buffer)) != -1) {
+                  md5Digest.update(buffer, 0, read);
+                  sha1Digest.update(buffer, 0, read);
+               }
+            }
+         } finally {
+            Closeables.close(input, true);
+         }
+      } catch (IOException e) {
+         throw Throwables.propagate(e);
+      }
+      return new MessageDigest[] { md5Digest, sha1Digest };
+   }
+
+   private static MessageDigest digest(String algorithm) {
+      try {
+         return MessageDigest.getInstance(algorithm);
+      } catch (NoSuchAlgorithmException e) {
+         // every Java platform is required to support MD5 and SHA-1
+         throw new AssertionError(e);
+      }
+   }
+}
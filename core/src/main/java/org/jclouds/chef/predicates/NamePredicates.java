@@ -0,0 +1,114 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.predicates;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Set;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSet;
+
+/**
+ * Container for name filters (predicates) that can be translated to search
+ * queries.
+ *
+ * This class has static methods that create customized predicates to use with
+ * {@link org.jclouds.chef.ChefService}. When the search api is used to list
+ * objects, the predicates returned here are sent to the server as a query,
+ * instead of being applied to every object name.
+ */
+public class NamePredicates {
+
+   /**
+    * @return true if the name starts with the given prefix.
+    */
+   public static SearchQueryPredicate startsWith(final String prefix) {
+      checkNotNull(prefix, "prefix must be defined");
+      return new SearchQueryPredicate() {
+         @Override
+         public boolean apply(String input) {
+            return input.startsWith(prefix);
+         }
+
+         @Override
+         public String toSearchQuery(String field) {
+            return prefix.isEmpty() ? "*:*" : field + ":" + escape(prefix) + "*";
+         }
+
+         @Override
+         public String toString() {
+            return "startsWith(" + prefix + ")";
+         }
+      };
+   }
+
+   /**
+    * @return true if the name is equal to the given one.
+    */
+   public static SearchQueryPredicate equalTo(String name) {
+      return in(ImmutableSet.of(checkNotNull(name, "name must be defined")));
+   }
+
+   /**
+    * @return true if the name is one of the given ones.
+    */
+   public static SearchQueryPredicate in(Iterable<String> names) {
+      final Set<String> search = ImmutableSet.copyOf(checkNotNull(names, "names must be defined"));
+      checkArgument(!search.isEmpty(), "names must not be empty");
+      return new SearchQueryPredicate() {
+         @Override
+         public boolean apply(String input) {
+            return search.contains(input);
+         }
+
+         @Override
+         public String toSearchQuery(String field) {
+            StringBuilder query = new StringBuilder();
+            for (String name : search) {
+               if (query.length() > 0)
+                  query.append(" OR ");
+               query.append(field).append(':').append(escape(name));
+            }
+            return query.toString();
+         }
+
+         @Override
+         public String toString() {
+            return "in(" + Joiner.on(',').join(search) + ")";
+         }
+      };
+   }
+
+   /**
+    * Escapes the characters that have a special meaning in the Lucene query
+    * syntax used by the Chef search api.
+    */
+   static String escape(String value) {
+      StringBuilder escaped = new StringBuilder(value.length());
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if ("+-&|!(){}[]^\"~*?:\\/ ".indexOf(c) != -1)
+            escaped.append('\\');
+         escaped.append(c);
+      }
+      return escaped.toString();
+   }
+}
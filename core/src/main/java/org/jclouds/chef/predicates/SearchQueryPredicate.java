@@ -0,0 +1,36 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.predicates;
+
+import com.google.common.base.Predicate;
+
+/**
+ * A predicate that can also be expressed as a Chef search query, so that the
+ * filtering can be done by the server instead of fetching every object.
+ */
+public interface SearchQueryPredicate extends Predicate<String> {
+
+   /**
+    * @param field
+    *           the indexed field the predicate applies to, ex. {@code name}
+    * @return a search query that matches at least the values accepted by this
+    *         predicate.
+    */
+   String toSearchQuery(String field);
+}
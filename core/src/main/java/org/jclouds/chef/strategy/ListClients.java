@@ -44,4 +44,16 @@ public interface ListClients {
    public Iterable<? extends Client> execute(ListeningExecutorService executor, Predicate<String> clientNameSelector);
 
    public Iterable<? extends Client> execute(ListeningExecutorService executor, Iterable<String> toGet);
+
+   /**
+    * Like {@link #execute()}, but yields each client as soon as it has been
+    * retrieved, keeping a bounded number of clients in memory.
+    */
+   public Iterable<? extends Client> executeStreaming();
+
+   public Iterable<? extends Client> executeStreaming(Predicate<String> clientNameSelector);
+
+   public Iterable<? extends Client> executeStreaming(Iterable<String> toGet);
+
+   public Iterable<? extends Client> executeStreaming(ListeningExecutorService executor, Iterable<String> toGet);
 }
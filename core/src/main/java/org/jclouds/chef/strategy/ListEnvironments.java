@@ -40,4 +40,16 @@ public interface ListEnvironments {
          Predicate<String> environmentNameSelector);
 
    public Iterable<? extends Environment> execute(ListeningExecutorService executor, Iterable<String> toGet);
+
+   /**
+    * Like {@link #execute()}, but yields each environment as soon as it has been
+    * retrieved, keeping a bounded number of environments in memory.
+    */
+   public Iterable<? extends Environment> executeStreaming();
+
+   public Iterable<? extends Environment> executeStreaming(Predicate<String> environmentNameSelector);
+
+   public Iterable<? extends Environment> executeStreaming(Iterable<String> toGet);
+
+   public Iterable<? extends Environment> executeStreaming(ListeningExecutorService executor, Iterable<String> toGet);
 }
@@ -19,6 +19,7 @@
 package org.jclouds.chef.strategy;
 
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.options.NodeProjection;
 import org.jclouds.chef.strategy.internal.ListNodesImpl;
 
 import com.google.common.base.Predicate;
@@ -37,6 +38,12 @@ public interface ListNodes {
 
    public Iterable<? extends Node> execute(Predicate<String> nodeNameSelector);
 
+   /**
+    * Like {@link #execute(Predicate)}, but only keeps the attributes of the
+    * nodes selected by the projection.
+    */
+   public Iterable<? extends Node> execute(Predicate<String> nodeNameSelector, NodeProjection projection);
+
    public Iterable<? extends Node> execute(Iterable<String> toGet);
 
    public Iterable<? extends Node> execute(ListeningExecutorService executor);
@@ -44,4 +51,16 @@ public interface ListNodes {
    public Iterable<? extends Node> execute(ListeningExecutorService executor, Predicate<String> nodeNameSelector);
 
    public Iterable<? extends Node> execute(ListeningExecutorService executor, Iterable<String> toGet);
+
+   /**
+    * Like {@link #execute()}, but yields each node as soon as it has been
+    * retrieved, keeping a bounded number of nodes in memory.
+    */
+   public Iterable<? extends Node> executeStreaming();
+
+   public Iterable<? extends Node> executeStreaming(Predicate<String> nodeNameSelector);
+
+   public Iterable<? extends Node> executeStreaming(Iterable<String> toGet);
+
+   public Iterable<? extends Node> executeStreaming(ListeningExecutorService executor, Iterable<String> toGet);
 }
@@ -0,0 +1,112 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy;
+
+import org.jclouds.chef.domain.Client;
+import org.jclouds.chef.domain.DatabagItem;
+import org.jclouds.chef.domain.Environment;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.RawDatabagItem;
+import org.jclouds.chef.domain.RawNode;
+import org.jclouds.chef.domain.Role;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.functions.ParseSearchResultFromJson;
+import org.jclouds.chef.functions.ParseSearchResultFromJson.RowHandler;
+import org.jclouds.chef.options.NodeProjection;
+import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.chef.strategy.internal.PaginatedSearchImpl;
+
+import com.google.common.base.Function;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Pages through all the results of a search.
+ * <p>
+ * The pages are requested as the returned iterables are consumed: the next
+ * page is retrieved in the background while the current one is being
+ * consumed. Each call to {@link Iterable#iterator()} runs the search again.
+ */
+@ImplementedBy(PaginatedSearchImpl.class)
+public interface PaginatedSearch {
+
+   public Iterable<? extends Node> searchNodes(String query);
+
+   /**
+    * Pages through the nodes, keeping only the attributes selected by the
+    * projection.
+    */
+   public Iterable<? extends Node> searchNodes(String query, NodeProjection projection);
+
+   /**
+    * Pages through the nodes, keeping their attributes as raw json until they
+    * are accessed.
+    */
+   public Iterable<RawNode> searchRawNodes(String query);
+
+   public Iterable<? extends Client> searchClients(String query);
+
+   public Iterable<? extends Role> searchRoles(String query);
+
+   public Iterable<? extends Environment> searchEnvironments(String query);
+
+   public Iterable<? extends DatabagItem> searchDatabag(String databagName, String query);
+
+   /**
+    * Pages through the items of the databag, keeping each one as the raw UTF-8
+    * bytes of its json.
+    */
+   public Iterable<RawDatabagItem> searchRawDatabag(String databagName, String query);
+
+   /**
+    * Pages through the results of the given search function, using the
+    * configured page size.
+    * 
+    * @param search
+    *           the function that retrieves a page of results for the given
+    *           search options.
+    */
+   public <T> Iterable<T> execute(Function<SearchOptions, ? extends SearchResult<? extends T>> search, String query);
+
+   /**
+    * Pages through the results of the given search function.
+    * 
+    * @param pageSize
+    *           the number of rows to request in each page.
+    * @param parallel
+    *           if true, all the remaining pages are requested concurrently once
+    *           the first page reports the total number of rows. All these
+    *           pages may be held in memory until they are consumed.
+    */
+   public <T> Iterable<T> execute(Function<SearchOptions, ? extends SearchResult<? extends T>> search, String query,
+         int pageSize, boolean parallel);
+
+   /**
+    * Pages through the results of a search on the given index one row at a
+    * time. Each row is passed to the handler as soon as it has been parsed
+    * from the response, so only the row being handled is held in memory. The
+    * pages are requested one after the other, in the calling thread.
+    * 
+    * @param parser
+    *           the parser of the rows of the index. It is not shared with other
+    *           threads while the search runs.
+    * @return the number of rows passed to the handler.
+    */
+   public <T> long execute(String index, String query, ParseSearchResultFromJson<T> parser,
+         RowHandler<? super T> handler);
+}
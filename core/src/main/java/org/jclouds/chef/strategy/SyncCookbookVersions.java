@@ -0,0 +1,46 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy;
+
+import java.io.File;
+
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.strategy.internal.SyncCookbookVersionsImpl;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Downloads the files of cookbook versions to a local directory.
+ */
+@ImplementedBy(SyncCookbookVersionsImpl.class)
+public interface SyncCookbookVersions {
+
+   /**
+    * Writes the files of each cookbook version to a subdirectory of the given
+    * one named after the cookbook version, such as {@code apache2-1.0.0}, as
+    * {@code knife cookbook download} does. Files that are already there with
+    * the right content are left untouched.
+    */
+   void execute(File directory, Iterable<? extends CookbookVersion> cookbookVersions);
+
+   void execute(ListeningExecutorService executor, File directory,
+         Iterable<? extends CookbookVersion> cookbookVersions);
+
+}
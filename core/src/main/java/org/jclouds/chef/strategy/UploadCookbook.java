@@ -0,0 +1,45 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy;
+
+import java.io.File;
+
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.strategy.internal.UploadCookbookImpl;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Uploads a cookbook from a local directory.
+ */
+@ImplementedBy(UploadCookbookImpl.class)
+public interface UploadCookbook {
+
+   /**
+    * Uploads the files of the cookbook in the given directory that the server
+    * does not have yet, and creates or updates the cookbook version.
+    * 
+    * @return the cookbook version as stored in the server.
+    */
+   CookbookVersion execute(File directory, String name, String version);
+
+   CookbookVersion execute(ListeningExecutorService executor, File directory, String name, String version);
+
+}
@@ -23,6 +23,7 @@ import static com.google.common.base.Predicates.and;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
+import static org.jclouds.chef.predicates.NamePredicates.startsWith;
 import static org.jclouds.chef.util.ChefUtils.fromOhaiTime;
 
 import java.util.Calendar;
@@ -35,6 +36,8 @@ import javax.inject.Singleton;
 
 import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.RawNode;
+import org.jclouds.chef.options.NodeProjection;
 import org.jclouds.chef.strategy.CleanupStaleNodesAndClients;
 import org.jclouds.chef.strategy.DeleteAllClientsInList;
 import org.jclouds.chef.strategy.DeleteAllNodesInList;
@@ -44,6 +47,7 @@ import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
 
 /**
  * 
@@ -53,6 +57,12 @@ import com.google.common.base.Predicate;
  */
 @Singleton
 public class CleanupStaleNodesAndClientsImpl implements CleanupStaleNodesAndClients {
+   /**
+    * Only the ohai time of the nodes is needed to know if they are stale.
+    */
+   private static final NodeProjection ONLY_OHAI_TIME = NodeProjection.Builder.skip(RawNode.NORMAL)
+         .skip(RawNode.OVERRIDE).skip(RawNode.DEFAULT).only(RawNode.AUTOMATIC, "ohai_time");
+
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
@@ -74,14 +84,7 @@ public class CleanupStaleNodesAndClientsImpl implements CleanupStaleNodesAndClie
       final Calendar expired = Calendar.getInstance();
       expired.setTime(new Date());
       expired.add(Calendar.SECOND, -secondsStale);
-      Iterable<? extends Node> staleNodes = filter(nodeLister.execute(new Predicate<String>() {
-
-         @Override
-         public boolean apply(String input) {
-            return input.startsWith(prefix);
-         }
-
-      }), and(notNull(), new Predicate<Node>() {
+      Predicate<Node> isStale = new Predicate<Node>() {
          @Override
          public boolean apply(Node input) {
             JsonBall dateLong = input.getAutomatic().get("ohai_time");
@@ -92,15 +95,18 @@ public class CleanupStaleNodesAndClientsImpl implements CleanupStaleNodesAndClie
             return expired.after(nodeUpdate);
          }
 
-      }));
-      Iterable<String> nodeNames = transform(staleNodes, new Function<Node, String>() {
+      };
+      Iterable<? extends Node> staleNodes = filter(nodeLister.execute(startsWith(prefix), ONLY_OHAI_TIME),
+            and(notNull(), isStale));
+      // copy the names, as the nodes could be lazily listed from the server
+      Iterable<String> nodeNames = ImmutableSet.copyOf(transform(staleNodes, new Function<Node, String>() {
 
          @Override
          public String apply(Node from) {
             return from.getName();
          }
 
-      });
+      }));
       nodeDeleter.execute(nodeNames);
       clientDeleter.execute(nodeNames);
    }
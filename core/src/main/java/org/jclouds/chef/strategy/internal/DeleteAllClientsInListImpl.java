@@ -32,6 +32,7 @@ import javax.inject.Singleton;
 
 import org.jclouds.Constants;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
 import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.strategy.DeleteAllClientsInList;
@@ -54,14 +55,17 @@ public class DeleteAllClientsInListImpl implements DeleteAllClientsInList {
 
    protected final ChefApi api;
    protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
    @Inject
-   DeleteAllClientsInListImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
+   DeleteAllClientsInListImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         ChefApi api, AdaptiveConcurrencyLimiter limiter) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
       this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
    }
 
    @Override
@@ -70,12 +74,13 @@ public class DeleteAllClientsInListImpl implements DeleteAllClientsInList {
    }
 
    @Override
-   public void execute(final ListeningExecutorService executor, Iterable<String> names) {
+   public void execute(ListeningExecutorService executor, Iterable<String> names) {
+      final ListeningExecutorService limited = limiter.limit(executor, "client:delete");
       ListenableFuture<List<Client>> futures = allAsList(transform(names,
             new Function<String, ListenableFuture<Client>>() {
                @Override
                public ListenableFuture<Client> apply(final String input) {
-                  return executor.submit(new Callable<Client>() {
+                  return limited.submit(new Callable<Client>() {
                      @Override
                      public Client call() throws Exception {
                         return api.deleteClient(input);
@@ -32,6 +32,7 @@ import javax.inject.Singleton;
 
 import org.jclouds.Constants;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
 import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.strategy.DeleteAllNodesInList;
@@ -53,14 +54,17 @@ public class DeleteAllNodesInListImpl implements DeleteAllNodesInList {
 
    protected final ChefApi api;
    protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
    @Inject
-   DeleteAllNodesInListImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
+   DeleteAllNodesInListImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api,
+         AdaptiveConcurrencyLimiter limiter) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
       this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
    }
 
    @Override
@@ -69,11 +73,12 @@ public class DeleteAllNodesInListImpl implements DeleteAllNodesInList {
    }
 
    @Override
-   public void execute(final ListeningExecutorService executor, Iterable<String> names) {
+   public void execute(ListeningExecutorService executor, Iterable<String> names) {
+      final ListeningExecutorService limited = limiter.limit(executor, "node:delete");
       ListenableFuture<List<Node>> futures = allAsList(transform(names, new Function<String, ListenableFuture<Node>>() {
          @Override
          public ListenableFuture<Node> apply(final String input) {
-            return executor.submit(new Callable<Node>() {
+            return limited.submit(new Callable<Node>() {
                @Override
                public Node call() throws Exception {
                   return api.deleteNode(input);
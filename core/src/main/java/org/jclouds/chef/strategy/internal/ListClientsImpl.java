@@ -18,12 +18,16 @@
  */
 package org.jclouds.chef.strategy.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.chef.concurrent.FutureIterables.transformStreaming;
+import static org.jclouds.chef.config.ChefProperties.CHEF_STREAMING_WINDOW;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -33,6 +37,7 @@ import javax.inject.Singleton;
 
 import org.jclouds.Constants;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
 import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.strategy.ListClients;
@@ -55,14 +60,20 @@ public class ListClientsImpl implements ListClients {
 
    protected final ChefApi api;
    protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
+   protected final int streamingWindow;
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
    @Inject
-   ListClientsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
+   ListClientsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api,
+         AdaptiveConcurrencyLimiter limiter, @Named(CHEF_STREAMING_WINDOW) int streamingWindow) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
       this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
+      checkArgument(streamingWindow > 0, "streamingWindow must be positive");
+      this.streamingWindow = streamingWindow;
    }
 
    @Override
@@ -91,12 +102,13 @@ public class ListClientsImpl implements ListClients {
    }
 
    @Override
-   public Iterable<? extends Client> execute(final ListeningExecutorService executor, Iterable<String> toGet) {
+   public Iterable<? extends Client> execute(ListeningExecutorService executor, Iterable<String> toGet) {
+      final ListeningExecutorService limited = limiter.limit(executor, "client:get");
       ListenableFuture<List<Client>> futures = allAsList(transform(toGet,
             new Function<String, ListenableFuture<Client>>() {
                @Override
                public ListenableFuture<Client> apply(final String input) {
-                  return executor.submit(new Callable<Client>() {
+                  return limited.submit(new Callable<Client>() {
                      @Override
                      public Client call() throws Exception {
                         return api.getClient(input);
@@ -109,4 +121,40 @@ public class ListClientsImpl implements ListClients {
       return getUnchecked(futures);
    }
 
+   @Override
+   public Iterable<? extends Client> executeStreaming() {
+      return executeStreaming(userExecutor, clientNames());
+   }
+
+   @Override
+   public Iterable<? extends Client> executeStreaming(Predicate<String> clientNameSelector) {
+      return executeStreaming(userExecutor, filter(clientNames(), clientNameSelector));
+   }
+
+   @Override
+   public Iterable<? extends Client> executeStreaming(Iterable<String> toGet) {
+      return executeStreaming(userExecutor, toGet);
+   }
+
+   @Override
+   public Iterable<? extends Client> executeStreaming(ListeningExecutorService executor, Iterable<String> toGet) {
+      return transformStreaming(toGet, new Function<String, Client>() {
+         @Override
+         public Client apply(String input) {
+            return api.getClient(input);
+         }
+      }, limiter.limit(executor, "client:get"), streamingWindow);
+   }
+
+   /**
+    * @return the names of the clients, listed again every time they are iterated.
+    */
+   private Iterable<String> clientNames() {
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return api.listClients().iterator();
+         }
+      };
+   }
 }
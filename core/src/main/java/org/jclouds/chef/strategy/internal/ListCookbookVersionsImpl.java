@@ -19,15 +19,19 @@
 package org.jclouds.chef.strategy.internal;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.filter;
-import static com.google.common.collect.Iterables.transform;
+import static com.google.common.collect.Maps.filterKeys;
 import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.getUnchecked;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -35,13 +39,22 @@ import javax.inject.Singleton;
 
 import org.jclouds.Constants;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
 import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.strategy.ListCookbookVersions;
 import org.jclouds.logging.Logger;
+import org.jclouds.rest.annotations.ApiVersion;
 
-import com.google.common.base.Function;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AsyncFunction;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
@@ -54,16 +67,23 @@ import com.google.inject.Inject;
 @Singleton
 public class ListCookbookVersionsImpl implements ListCookbookVersions {
 
+   private static final Pattern VERSION_PATTERN = Pattern.compile("(\\d+)\\.(\\d+)(\\..*)?");
+
    protected final ChefApi api;
    protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
+   protected final boolean listAllVersions;
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
    @Inject
-   ListCookbookVersionsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
+   ListCookbookVersionsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api,
+         AdaptiveConcurrencyLimiter limiter, @ApiVersion String apiVersion) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
       this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
+      this.listAllVersions = supportsListingAllVersions(checkNotNull(apiVersion, "apiVersion"));
    }
 
    @Override
@@ -83,40 +103,91 @@ public class ListCookbookVersionsImpl implements ListCookbookVersions {
 
    @Override
    public Iterable<? extends CookbookVersion> execute(ListeningExecutorService executor) {
+      if (listAllVersions)
+         return getCookbookVersions(executor, api.listVersionsOfCookbooks());
       return execute(executor, api.listCookbooks());
    }
 
    @Override
    public Iterable<? extends CookbookVersion> execute(ListeningExecutorService executor,
          Predicate<String> cookbookNameSelector) {
+      if (listAllVersions)
+         return getCookbookVersions(executor, filterKeys(api.listVersionsOfCookbooks(), cookbookNameSelector));
       return execute(executor, filter(api.listCookbooks(), cookbookNameSelector));
    }
 
    @Override
-   public Iterable<? extends CookbookVersion> execute(final ListeningExecutorService executor,
+   public Iterable<? extends CookbookVersion> execute(ListeningExecutorService executor,
          Iterable<String> cookbookNames) {
-      return concat(transform(cookbookNames, new Function<String, Iterable<? extends CookbookVersion>>() {
-
-         @Override
-         public Iterable<? extends CookbookVersion> apply(final String cookbook) {
-            // TODO getting each version could also go parallel
-            Set<String> cookbookVersions = api.getVersionsOfCookbook(cookbook);
-            ListenableFuture<List<CookbookVersion>> futures = allAsList(transform(cookbookVersions,
-                  new Function<String, ListenableFuture<CookbookVersion>>() {
-                     @Override
-                     public ListenableFuture<CookbookVersion> apply(final String version) {
-                        return executor.submit(new Callable<CookbookVersion>() {
-                           @Override
-                           public CookbookVersion call() throws Exception {
-                              return api.getCookbook(cookbook, version);
-                           }
-                        });
-                     }
-                  }));
-
-            logger.trace(String.format("getting versions of cookbook: " + cookbook));
-            return getUnchecked(futures);
-         }
-      }));
+      if (listAllVersions) {
+         Set<String> toGet = ImmutableSet.copyOf(cookbookNames);
+         return getCookbookVersions(executor, filterKeys(api.listVersionsOfCookbooks(), Predicates.in(toGet)));
+      }
+
+      // the version lists are fetched concurrently, and the versions of each
+      // cookbook are fetched as soon as its version list arrives
+      ListeningExecutorService listVersions = limiter.limit(executor, "cookbook:versions");
+      final ListeningExecutorService getVersions = limiter.limit(executor, "cookbook:get");
+      List<ListenableFuture<List<CookbookVersion>>> futures = Lists.newArrayList();
+      for (final String cookbook : cookbookNames) {
+         ListenableFuture<Set<String>> versions = listVersions.submit(new Callable<Set<String>>() {
+            @Override
+            public Set<String> call() throws Exception {
+               return api.getVersionsOfCookbook(cookbook);
+            }
+         });
+         futures.add(Futures.transform(versions, new AsyncFunction<Set<String>, List<CookbookVersion>>() {
+            @Override
+            public ListenableFuture<List<CookbookVersion>> apply(Set<String> input) {
+               return getVersions(getVersions, cookbook, input);
+            }
+         }));
+      }
+
+      logger.trace(String.format("getting versions of cookbooks: %s", Joiner.on(',').join(cookbookNames)));
+      return materialize(futures);
+   }
+
+   private Iterable<? extends CookbookVersion> getCookbookVersions(ListeningExecutorService executor,
+         Map<String, Set<String>> versions) {
+      ListeningExecutorService limited = limiter.limit(executor, "cookbook:get");
+      List<ListenableFuture<List<CookbookVersion>>> futures = Lists.newArrayList();
+      for (Map.Entry<String, Set<String>> cookbook : versions.entrySet())
+         futures.add(getVersions(limited, cookbook.getKey(), cookbook.getValue()));
+
+      logger.trace(String.format("getting versions of cookbooks: %s", Joiner.on(',').join(versions.keySet())));
+      return materialize(futures);
+   }
+
+   private ListenableFuture<List<CookbookVersion>> getVersions(ListeningExecutorService executor,
+         final String cookbook, Set<String> versions) {
+      List<ListenableFuture<CookbookVersion>> futures = Lists.newArrayList();
+      for (final String version : versions) {
+         futures.add(executor.submit(new Callable<CookbookVersion>() {
+            @Override
+            public CookbookVersion call() throws Exception {
+               return api.getCookbook(cookbook, version);
+            }
+         }));
+      }
+      return allAsList(futures);
+   }
+
+   private static Iterable<? extends CookbookVersion> materialize(
+         List<ListenableFuture<List<CookbookVersion>>> futures) {
+      // versions deleted while the cookbooks are being listed come back as null
+      return ImmutableList.copyOf(filter(concat(getUnchecked(allAsList(futures))), notNull()));
+   }
+
+   /**
+    * The versions of all cookbooks can be listed in a single request since
+    * Chef 0.10.0. Unknown versions are considered to be the latest one.
+    */
+   @VisibleForTesting
+   static boolean supportsListingAllVersions(String apiVersion) {
+      Matcher m = VERSION_PATTERN.matcher(apiVersion);
+      if (!m.matches())
+         return true;
+      return Integer.parseInt(m.group(1)) > 0 || Integer.parseInt(m.group(2)) >= 10;
    }
 }
@@ -18,12 +18,16 @@
  */
 package org.jclouds.chef.strategy.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.chef.concurrent.FutureIterables.transformStreaming;
+import static org.jclouds.chef.config.ChefProperties.CHEF_STREAMING_WINDOW;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -50,14 +54,18 @@ public class ListEnvironmentsImpl implements ListEnvironments {
 
    protected final ChefApi api;
    protected final ListeningExecutorService userExecutor;
+   protected final int streamingWindow;
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
    @Inject
-   ListEnvironmentsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
+   ListEnvironmentsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api,
+         @Named(CHEF_STREAMING_WINDOW) int streamingWindow) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
       this.api = checkNotNull(api, "api");
+      checkArgument(streamingWindow > 0, "streamingWindow must be positive");
+      this.streamingWindow = streamingWindow;
    }
 
    @Override
@@ -104,4 +112,41 @@ public class ListEnvironmentsImpl implements ListEnvironments {
       logger.trace(String.format("deleting environments: %s", Joiner.on(',').join(toGet)));
       return getUnchecked(futures);
    }
+
+   @Override
+   public Iterable<? extends Environment> executeStreaming() {
+      return executeStreaming(userExecutor, environmentNames());
+   }
+
+   @Override
+   public Iterable<? extends Environment> executeStreaming(Predicate<String> environmentNameSelector) {
+      return executeStreaming(userExecutor, filter(environmentNames(), environmentNameSelector));
+   }
+
+   @Override
+   public Iterable<? extends Environment> executeStreaming(Iterable<String> toGet) {
+      return executeStreaming(userExecutor, toGet);
+   }
+
+   @Override
+   public Iterable<? extends Environment> executeStreaming(ListeningExecutorService executor, Iterable<String> toGet) {
+      return transformStreaming(toGet, new Function<String, Environment>() {
+         @Override
+         public Environment apply(String input) {
+            return api.getEnvironment(input);
+         }
+      }, executor, streamingWindow);
+   }
+
+   /**
+    * @return the names of the environments, listed again every time they are iterated.
+    */
+   private Iterable<String> environmentNames() {
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return api.listEnvironments().iterator();
+         }
+      };
+   }
 }
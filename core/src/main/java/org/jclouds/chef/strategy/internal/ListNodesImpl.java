@@ -18,12 +18,17 @@
  */
 package org.jclouds.chef.strategy.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.util.concurrent.Futures.allAsList;
 import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.chef.concurrent.FutureIterables.transformStreaming;
+import static org.jclouds.chef.config.ChefProperties.CHEF_LIST_NODES_WITH_SEARCH;
+import static org.jclouds.chef.config.ChefProperties.CHEF_STREAMING_WINDOW;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -33,9 +38,13 @@ import javax.inject.Singleton;
 
 import org.jclouds.Constants;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
 import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.options.NodeProjection;
+import org.jclouds.chef.predicates.SearchQueryPredicate;
 import org.jclouds.chef.strategy.ListNodes;
+import org.jclouds.chef.strategy.PaginatedSearch;
 import org.jclouds.logging.Logger;
 
 import com.google.common.base.Function;
@@ -55,14 +64,26 @@ public class ListNodesImpl implements ListNodes {
 
    protected final ChefApi api;
    protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
+   protected final PaginatedSearch paginatedSearch;
+   protected final boolean listWithSearch;
+   protected final int streamingWindow;
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
    @Inject
-   ListNodesImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api) {
+   ListNodesImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api,
+         AdaptiveConcurrencyLimiter limiter, PaginatedSearch paginatedSearch,
+         @Named(CHEF_LIST_NODES_WITH_SEARCH) boolean listWithSearch,
+         @Named(CHEF_STREAMING_WINDOW) int streamingWindow) {
       this.userExecutor = checkNotNull(userExecutor, "userExecuor");
       this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
+      this.paginatedSearch = checkNotNull(paginatedSearch, "paginatedSearch");
+      checkArgument(streamingWindow > 0, "streamingWindow must be positive");
+      this.listWithSearch = listWithSearch;
+      this.streamingWindow = streamingWindow;
    }
 
    @Override
@@ -82,23 +103,58 @@ public class ListNodesImpl implements ListNodes {
 
    @Override
    public Iterable<? extends Node> execute(ListeningExecutorService executor) {
+      if (listWithSearch)
+         return paginatedSearch.searchNodes("*:*");
       return execute(executor, api.listNodes());
    }
 
+   @Override
+   public Iterable<? extends Node> execute(Predicate<String> nodeNameSelector, NodeProjection projection) {
+      return list(userExecutor, nodeNameSelector, checkNotNull(projection, "projection"));
+   }
+
    @Override
    public Iterable<? extends Node> execute(ListeningExecutorService executor, Predicate<String> nodeNameSelector) {
-      return execute(executor, filter(api.listNodes(), nodeNameSelector));
+      return list(executor, nodeNameSelector, null);
    }
 
    @Override
-   public Iterable<? extends Node> execute(final ListeningExecutorService executor, Iterable<String> toGet) {
+   public Iterable<? extends Node> execute(ListeningExecutorService executor, Iterable<String> toGet) {
+      return getNodes(executor, toGet, null);
+   }
+
+   private Iterable<? extends Node> list(ListeningExecutorService executor, final Predicate<String> nodeNameSelector,
+         NodeProjection projection) {
+      if (listWithSearch) {
+         // the search query may match more nodes than the predicate, as the
+         // indexed name is tokenized, so the predicate is always applied
+         String query = nodeNameSelector instanceof SearchQueryPredicate ? SearchQueryPredicate.class.cast(
+               nodeNameSelector).toSearchQuery("name") : "*:*";
+         Iterable<? extends Node> nodes;
+         if (projection == null)
+            nodes = paginatedSearch.searchNodes(query);
+         else
+            nodes = paginatedSearch.searchNodes(query, projection);
+         return filter(nodes, new Predicate<Node>() {
+            @Override
+            public boolean apply(Node input) {
+               return nodeNameSelector.apply(input.getName());
+            }
+         });
+      }
+      return getNodes(executor, filter(api.listNodes(), nodeNameSelector), projection);
+   }
+
+   private Iterable<? extends Node> getNodes(ListeningExecutorService executor, Iterable<String> toGet,
+         final NodeProjection projection) {
+      final ListeningExecutorService limited = limiter.limit(executor, "node:get");
       ListenableFuture<List<Node>> futures = allAsList(transform(toGet, new Function<String, ListenableFuture<Node>>() {
          @Override
          public ListenableFuture<Node> apply(final String input) {
-            return executor.submit(new Callable<Node>() {
+            return limited.submit(new Callable<Node>() {
                @Override
                public Node call() throws Exception {
-                  return api.getNode(input);
+                  return projection == null ? api.getNode(input) : api.getNode(input, projection);
                }
             });
          }
@@ -108,4 +164,44 @@ public class ListNodesImpl implements ListNodes {
       return getUnchecked(futures);
    }
 
+   @Override
+   public Iterable<? extends Node> executeStreaming() {
+      if (listWithSearch)
+         return paginatedSearch.searchNodes("*:*");
+      return executeStreaming(userExecutor, nodeNames());
+   }
+
+   @Override
+   public Iterable<? extends Node> executeStreaming(Predicate<String> nodeNameSelector) {
+      if (listWithSearch)
+         return execute(userExecutor, nodeNameSelector);
+      return executeStreaming(userExecutor, filter(nodeNames(), nodeNameSelector));
+   }
+
+   @Override
+   public Iterable<? extends Node> executeStreaming(Iterable<String> toGet) {
+      return executeStreaming(userExecutor, toGet);
+   }
+
+   @Override
+   public Iterable<? extends Node> executeStreaming(ListeningExecutorService executor, Iterable<String> toGet) {
+      return transformStreaming(toGet, new Function<String, Node>() {
+         @Override
+         public Node apply(String input) {
+            return api.getNode(input);
+         }
+      }, limiter.limit(executor, "node:get"), streamingWindow);
+   }
+
+   /**
+    * @return the names of the nodes, listed again every time they are iterated.
+    */
+   private Iterable<String> nodeNames() {
+      return new Iterable<String>() {
+         @Override
+         public Iterator<String> iterator() {
+            return api.listNodes().iterator();
+         }
+      };
+   }
 }
@@ -0,0 +1,292 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.chef.config.ChefProperties.CHEF_SEARCH_PAGE_SIZE;
+import static org.jclouds.chef.config.ChefProperties.CHEF_SEARCH_PARALLEL_PAGES;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.domain.Client;
+import org.jclouds.chef.domain.DatabagItem;
+import org.jclouds.chef.domain.Environment;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.RawDatabagItem;
+import org.jclouds.chef.domain.RawNode;
+import org.jclouds.chef.domain.Role;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.functions.ParseSearchResultFromJson;
+import org.jclouds.chef.functions.ParseSearchResultFromJson.RowHandler;
+import org.jclouds.chef.options.NodeProjection;
+import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.chef.strategy.PaginatedSearch;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.inject.Inject;
+
+/**
+ * Pages through search results, prefetching the next page while the current
+ * one is consumed.
+ */
+@Singleton
+public class PaginatedSearchImpl implements PaginatedSearch {
+
+   protected final ChefApi api;
+   protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
+   protected final int pageSize;
+   protected final boolean parallelPages;
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject
+   public PaginatedSearchImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         ChefApi api, AdaptiveConcurrencyLimiter limiter, @Named(CHEF_SEARCH_PAGE_SIZE) int pageSize,
+         @Named(CHEF_SEARCH_PARALLEL_PAGES) boolean parallelPages) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecuor");
+      this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
+      checkArgument(pageSize > 0, "pageSize must be positive");
+      this.pageSize = pageSize;
+      this.parallelPages = parallelPages;
+   }
+
+   @Override
+   public Iterable<? extends Node> searchNodes(String query) {
+      return this.<Node> execute(new Function<SearchOptions, SearchResult<? extends Node>>() {
+         @Override
+         public SearchResult<? extends Node> apply(SearchOptions input) {
+            return api.searchNodes(input);
+         }
+      }, query);
+   }
+
+   @Override
+   public Iterable<? extends Node> searchNodes(String query, final NodeProjection projection) {
+      checkNotNull(projection, "projection");
+      return this.<Node> execute(new Function<SearchOptions, SearchResult<? extends Node>>() {
+         @Override
+         public SearchResult<? extends Node> apply(SearchOptions input) {
+            return api.searchNodes(input, projection);
+         }
+      }, query);
+   }
+
+   @Override
+   public Iterable<RawNode> searchRawNodes(String query) {
+      return this.<RawNode> execute(new Function<SearchOptions, SearchResult<RawNode>>() {
+         @Override
+         public SearchResult<RawNode> apply(SearchOptions input) {
+            return api.searchRawNodes(input);
+         }
+      }, query);
+   }
+
+   @Override
+   public Iterable<? extends Client> searchClients(String query) {
+      return this.<Client> execute(new Function<SearchOptions, SearchResult<? extends Client>>() {
+         @Override
+         public SearchResult<? extends Client> apply(SearchOptions input) {
+            return api.searchClients(input);
+         }
+      }, query);
+   }
+
+   @Override
+   public Iterable<? extends Role> searchRoles(String query) {
+      return this.<Role> execute(new Function<SearchOptions, SearchResult<? extends Role>>() {
+         @Override
+         public SearchResult<? extends Role> apply(SearchOptions input) {
+            return api.searchRoles(input);
+         }
+      }, query);
+   }
+
+   @Override
+   public Iterable<? extends Environment> searchEnvironments(String query) {
+      return this.<Environment> execute(new Function<SearchOptions, SearchResult<? extends Environment>>() {
+         @Override
+         public SearchResult<? extends Environment> apply(SearchOptions input) {
+            return api.searchEnvironments(input);
+         }
+      }, query);
+   }
+
+   @Override
+   public Iterable<? extends DatabagItem> searchDatabag(final String databagName, String query) {
+      checkNotNull(databagName, "databagName");
+      return this.<DatabagItem> execute(new Function<SearchOptions, SearchResult<? extends DatabagItem>>() {
+         @Override
+         public SearchResult<? extends DatabagItem> apply(SearchOptions input) {
+            return api.searchDatabag(databagName, input);
+         }
+      }, query);
+   }
+
+   @Override
+   public Iterable<RawDatabagItem> searchRawDatabag(final String databagName, String query) {
+      checkNotNull(databagName, "databagName");
+      return this.<RawDatabagItem> execute(new Function<SearchOptions, SearchResult<RawDatabagItem>>() {
+         @Override
+         public SearchResult<RawDatabagItem> apply(SearchOptions input) {
+            return api.searchRawDatabag(databagName, input);
+         }
+      }, query);
+   }
+
+   @Override
+   public <T> Iterable<T> execute(Function<SearchOptions, ? extends SearchResult<? extends T>> search, String query) {
+      return execute(search, query, pageSize, parallelPages);
+   }
+
+   @Override
+   public <T> Iterable<T> execute(final Function<SearchOptions, ? extends SearchResult<? extends T>> search,
+         final String query, final int pageSize, final boolean parallel) {
+      checkNotNull(search, "search");
+      checkNotNull(query, "query");
+      checkArgument(pageSize > 0, "pageSize must be positive");
+      final ListeningExecutorService executor = limiter.limit(userExecutor, "search");
+      return Iterables.<T> concat(new Iterable<SearchResult<? extends T>>() {
+         @Override
+         public Iterator<SearchResult<? extends T>> iterator() {
+            logger.trace(String.format("paging through search: %s", query));
+            return new PageIterator<T>(search, query, pageSize, parallel, executor);
+         }
+      });
+   }
+
+   @Override
+   public <T> long execute(String index, String query, ParseSearchResultFromJson<T> parser,
+         RowHandler<? super T> handler) {
+      checkNotNull(index, "index");
+      checkNotNull(query, "query");
+      checkNotNull(parser, "parser");
+      checkNotNull(handler, "handler");
+      logger.trace(String.format("streaming search of %s: %s", index, query));
+      long handled = 0;
+      for (int start = 0;; start += pageSize) {
+         SearchOptions options = SearchOptions.Builder.query(query).rows(pageSize).start(start);
+         CountingRowHandler<T> page = new CountingRowHandler<T>(handler);
+         long total = parser.parse(api.streamSearch(index, options), page);
+         handled += page.count;
+         // objects may have been deleted since the total was calculated
+         if (page.count == 0)
+            return handled;
+         // without the total, only a short page marks the last one
+         if (total >= 0 ? start + pageSize >= total : page.count < pageSize)
+            return handled;
+      }
+   }
+
+   private static class CountingRowHandler<T> implements RowHandler<T> {
+      private final RowHandler<? super T> delegate;
+      private long count;
+
+      private CountingRowHandler(RowHandler<? super T> delegate) {
+         this.delegate = delegate;
+      }
+
+      @Override
+      public void handle(T row) {
+         count++;
+         delegate.handle(row);
+      }
+   }
+
+   private static class PageIterator<T> extends AbstractIterator<SearchResult<? extends T>> {
+      private final Function<SearchOptions, ? extends SearchResult<? extends T>> search;
+      private final String query;
+      private final int pageSize;
+      private final boolean parallel;
+      private final ListeningExecutorService executor;
+      private final Queue<ListenableFuture<SearchResult<? extends T>>> pending = Lists.newLinkedList();
+      private int nextStart = 0;
+      private long total = -1;
+
+      private PageIterator(Function<SearchOptions, ? extends SearchResult<? extends T>> search, String query,
+            int pageSize, boolean parallel, ListeningExecutorService executor) {
+         this.search = search;
+         this.query = query;
+         this.pageSize = pageSize;
+         this.parallel = parallel;
+         this.executor = executor;
+         request(0);
+      }
+
+      @Override
+      protected SearchResult<? extends T> computeNext() {
+         if (pending.isEmpty())
+            return endOfData();
+         SearchResult<? extends T> page = getUnchecked(pending.poll());
+         if (page.isEmpty()) {
+            // objects may have been deleted since the total was calculated
+            for (ListenableFuture<SearchResult<? extends T>> future : pending)
+               future.cancel(true);
+            pending.clear();
+            return endOfData();
+         }
+         if (total < 0)
+            total = page.getTotal();
+
+         if (total >= 0) {
+            if (parallel) {
+               while (nextStart < total)
+                  request(nextStart);
+            } else if (pending.isEmpty() && nextStart < total) {
+               request(nextStart);
+            }
+         } else if (page.size() >= pageSize) {
+            // without the total, only a short page marks the last one
+            request(nextStart);
+         }
+         return page;
+      }
+
+      private void request(int start) {
+         final SearchOptions options = SearchOptions.Builder.query(query).rows(pageSize).start(start);
+         pending.add(executor.submit(new Callable<SearchResult<? extends T>>() {
+            @Override
+            public SearchResult<? extends T> call() throws Exception {
+               return search.apply(options);
+            }
+         }));
+         nextStart = start + pageSize;
+      }
+   }
+}
@@ -0,0 +1,337 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.chef.concurrent.FutureIterables.transformStreaming;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.cache.ResourceCache;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.domain.Checksum;
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.domain.Resource;
+import org.jclouds.chef.strategy.SyncCookbookVersions;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Downloads cookbook versions the way {@code knife cookbook download} does.
+ * <p>
+ * The files that are already present are checksummed in parallel and skipped
+ * if their content is right. The content of the other files is downloaded
+ * once, even if it is shared by several files or cookbook versions, as many
+ * at a time as the {@link AdaptiveConcurrencyLimiter} allows, and copied to
+ * the files that share it. Contents found in the {@link ResourceCache} are
+ * not downloaded, and the downloaded ones are added to it.
+ * <p>
+ * Each file is written to a temporary file in the same directory and renamed
+ * once it is complete and its checksum verified, so a failed or interrupted
+ * sync never leaves partial files behind.
+ */
+@Singleton
+public class SyncCookbookVersionsImpl implements SyncCookbookVersions {
+
+   private static final String TEMP_PREFIX = ".tmp-";
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   protected final ChefApi api;
+   protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
+   protected final ResourceCache resourceCache;
+   @javax.annotation.Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject
+   SyncCookbookVersionsImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         ChefApi api, AdaptiveConcurrencyLimiter limiter, ResourceCache resourceCache) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
+      this.resourceCache = checkNotNull(resourceCache, "resourceCache");
+   }
+
+   @Override
+   public void execute(File directory, Iterable<? extends CookbookVersion> cookbookVersions) {
+      execute(userExecutor, directory, cookbookVersions);
+   }
+
+   @Override
+   public void execute(ListeningExecutorService executor, File directory,
+         Iterable<? extends CookbookVersion> cookbookVersions) {
+      checkNotNull(executor, "executor");
+      checkNotNull(directory, "directory");
+      checkNotNull(cookbookVersions, "cookbookVersions");
+
+      Map<File, Resource> files = Maps.newLinkedHashMap();
+      for (CookbookVersion cookbook : cookbookVersions) {
+         File root = fileOf(directory, checkNotNull(cookbook.getName(), "name of cookbook %s", cookbook));
+         for (Resource resource : resourcesOf(cookbook))
+            files.put(fileOf(root, checkNotNull(resource.getPath(), "path of %s", resource)), resource);
+      }
+
+      Map<File, Checksum> present = checksumPresent(executor, files.keySet());
+      ListMultimap<Checksum, File> missing = ArrayListMultimap.create();
+      Map<Checksum, Resource> sources = Maps.newHashMap();
+      for (Map.Entry<File, Resource> file : files.entrySet()) {
+         byte[] md5 = file.getValue().getChecksum();
+         checkArgument(md5 != null, "%s has no checksum", file.getValue());
+         Checksum checksum = Checksum.fromBytes(md5);
+         if (!checksum.equals(present.get(file.getKey()))) {
+            missing.put(checksum, file.getKey());
+            sources.put(checksum, file.getValue());
+         }
+      }
+      logger.trace("syncing %d of %d files with %d distinct contents", missing.size(), files.size(), missing
+            .keySet().size());
+
+      Collection<Checksum> toDownload = resourceCache.isEnabled() ? copyFromCache(executor, missing) : missing
+            .keySet();
+      ListeningExecutorService limited = limiter.limit(executor, "content:get");
+      List<ListenableFuture<Void>> downloads = Lists.newArrayList();
+      for (final Checksum checksum : toDownload) {
+         final Resource resource = sources.get(checksum);
+         final List<File> targets = missing.get(checksum);
+         downloads.add(limited.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+               download(checksum, resource, targets.get(0));
+               for (File target : targets.subList(1, targets.size()))
+                  copy(targets.get(0), target);
+               return null;
+            }
+         }));
+      }
+      logger.trace("downloading %d contents", downloads.size());
+      getUnchecked(allAsList(downloads));
+   }
+
+   private static Iterable<Resource> resourcesOf(CookbookVersion cookbook) {
+      return Iterables.concat(Iterables.filter(
+            ImmutableList.of(cookbook.getAttributes(), cookbook.getDefinitions(), cookbook.getFiles(),
+                  cookbook.getLibraries(), cookbook.getSuppliers(), cookbook.getRecipes(), cookbook.getResources(),
+                  cookbook.getTemplates(), cookbook.getRootFiles()), Predicates.notNull()));
+   }
+
+   /**
+    * @return the file at the given path, which must stay in the directory; the
+    *         paths are sent by the server.
+    */
+   private static File fileOf(File directory, String path) {
+      for (String part : Splitter.on('/').split(path))
+         checkArgument(!part.isEmpty() && !part.equals(".") && !part.equals("..") && part.indexOf('\\') == -1,
+               "invalid path: %s", path);
+      return new File(directory, path);
+   }
+
+   /**
+    * @return the checksums of the files that already exist.
+    */
+   private static Map<File, Checksum> checksumPresent(ListeningExecutorService executor, Set<File> files) {
+      // reading the files is bound by the disk and the cpu, not by the server
+      int window = Runtime.getRuntime().availableProcessors();
+      Iterable<Map.Entry<File, Checksum>> checksums = transformStreaming(
+            Iterables.filter(files, new Predicate<File>() {
+               @Override
+               public boolean apply(File file) {
+                  return file.isFile();
+               }
+            }), new Function<File, Map.Entry<File, Checksum>>() {
+               @Override
+               public Map.Entry<File, Checksum> apply(File file) {
+                  try {
+                     byte[] md5 = Files.asByteSource(file).hash(Hashing.md5()).asBytes();
+                     return Maps.immutableEntry(file, Checksum.fromBytes(md5));
+                  } catch (IOException e) {
+                     throw Throwables.propagate(e);
+                  }
+               }
+            }, executor, window);
+      Map<File, Checksum> present = Maps.newHashMap();
+      for (Map.Entry<File, Checksum> checksum : checksums)
+         present.put(checksum.getKey(), checksum.getValue());
+      return present;
+   }
+
+   /**
+    * Copies the cached contents to their files, without going through the
+    * concurrency limiter, as they do not reach the server.
+    * 
+    * @return the checksums of the contents that still have to be downloaded.
+    */
+   private Collection<Checksum> copyFromCache(ListeningExecutorService executor,
+         final ListMultimap<Checksum, File> missing) {
+      int window = Runtime.getRuntime().availableProcessors();
+      Iterable<Map.Entry<Checksum, Boolean>> copies = transformStreaming(missing.keySet(),
+            new Function<Checksum, Map.Entry<Checksum, Boolean>>() {
+               @Override
+               public Map.Entry<Checksum, Boolean> apply(Checksum checksum) {
+                  try {
+                     List<File> targets = missing.get(checksum);
+                     if (!copyFromCache(checksum, targets.get(0)))
+                        return Maps.immutableEntry(checksum, false);
+                     // the content may be evicted meanwhile, but the first
+                     // file already has it
+                     for (File target : targets.subList(1, targets.size()))
+                        copy(targets.get(0), target);
+                     return Maps.immutableEntry(checksum, true);
+                  } catch (IOException e) {
+                     throw Throwables.propagate(e);
+                  }
+               }
+            }, executor, window);
+      List<Checksum> toDownload = Lists.newArrayList();
+      for (Map.Entry<Checksum, Boolean> copy : copies) {
+         if (!copy.getValue())
+            toDownload.add(copy.getKey());
+      }
+      return toDownload;
+   }
+
+   private boolean copyFromCache(Checksum checksum, File target) throws IOException {
+      File temp = tempFileFor(target);
+      try {
+         if (!resourceCache.copyTo(checksum, temp))
+            return false;
+         moveTo(temp, target);
+         return true;
+      } finally {
+         temp.delete();
+      }
+   }
+
+   private void download(Checksum checksum, Resource resource, File target) throws IOException {
+      File temp = tempFileFor(target);
+      try {
+         InputStream content = api.getResourceContents(resource);
+         if (content == null)
+            throw new IOException(resource + " was not found in the server");
+         Hasher md5 = Hashing.md5().newHasher();
+         try {
+            OutputStream out = new FileOutputStream(temp);
+            try {
+               byte[] buffer = new byte[BUFFER_SIZE];
+               for (int read = content.read(buffer); read != -1; read = content.read(buffer)) {
+                  md5.putBytes(buffer, 0, read);
+                  out.write(buffer, 0, read);
+               }
+            } finally {
+               Closeables.close(out, false);
+            }
+         } finally {
+            Closeables.close(content, true);
+         }
+         Checksum actual = Checksum.fromBytes(md5.hash().asBytes());
+         if (!actual.equals(checksum))
+            throw new IOException("expected " + resource.getPath() + " to have checksum " + checksum + " but it was "
+                  + actual);
+         moveTo(temp, target);
+      } finally {
+         temp.delete();
+      }
+      if (resourceCache.isEnabled())
+         addToCache(checksum, target);
+   }
+
+   private void addToCache(Checksum checksum, File file) {
+      try {
+         // verified while it was downloaded
+         resourceCache.putVerified(checksum, file);
+      } catch (IOException e) {
+         // the file is synced; the next sync will just download it again
+         logger.warn(e, "<< could not add %s to the resource cache", file);
+      }
+   }
+
+   private static void copy(File source, File target) throws IOException {
+      File temp = tempFileFor(target);
+      try {
+         FileInputStream in = new FileInputStream(source);
+         try {
+            FileOutputStream out = new FileOutputStream(temp);
+            try {
+               FileChannel from = in.getChannel();
+               FileChannel to = out.getChannel();
+               long length = from.size();
+               for (long position = 0; position < length;)
+                  position += from.transferTo(position, length - position, to);
+            } finally {
+               Closeables.close(out, false);
+            }
+         } finally {
+            Closeables.close(in, true);
+         }
+         moveTo(temp, target);
+      } finally {
+         temp.delete();
+      }
+   }
+
+   private static File tempFileFor(File target) throws IOException {
+      Files.createParentDirs(target);
+      return File.createTempFile(TEMP_PREFIX, null, target.getParentFile());
+   }
+
+   private static void moveTo(File temp, File target) throws IOException {
+      // renaming replaces the target atomically, except on windows, where it
+      // has to be deleted first
+      if (!temp.renameTo(target) && !(target.delete() && temp.renameTo(target)))
+         throw new IOException("could not rename " + temp + " to " + target);
+   }
+}
@@ -18,9 +18,16 @@
  */
 package org.jclouds.chef.strategy.internal;
 
+import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.chef.config.ChefProperties.CHEF_AUTOMATIC_ATTRIBUTES_HEARTBEAT;
 
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -34,38 +41,176 @@ import org.jclouds.chef.strategy.UpdateAutomaticAttributesOnNode;
 import org.jclouds.domain.JsonBall;
 import org.jclouds.logging.Logger;
 import org.jclouds.ohai.Automatic;
+import org.jclouds.ohai.Live;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 
 /**
  * 
  * Updates node with new automatic attributes.
+ * <p>
+ * When the {@link ChefProperties#CHEF_AUTOMATIC_ATTRIBUTES_HEARTBEAT} property
+ * is set, a digest of the last automatic attributes pushed to each node is
+ * kept, together with a copy of the node. Unchanged attributes are not sent
+ * again until the heartbeat is due, and changed ones are sent using the copy
+ * of the node, without reading it first. Each heartbeat reads and updates the
+ * node as usual, refreshing the copy and the {@code ohai_time} in the server.
+ * The attributes whose suppliers are {@link org.jclouds.ohai.Freshness.Policy#LIVE}
+ * change each time, so they are not considered when looking for changes.
  * 
  * @author Adrian Cole
  */
 @Singleton
 public class UpdateAutomaticAttributesOnNodeImpl implements UpdateAutomaticAttributesOnNode {
 
+   /**
+    * The attributes that change each time they are computed, and are never
+    * considered when looking for changes, even if their suppliers are not
+    * known to be live.
+    */
+   static final Set<String> VOLATILE_ATTRIBUTES = ImmutableSet.of("ohai_time", "uptime_seconds");
+
    @Resource
    @Named(ChefProperties.CHEF_LOGGER)
    protected Logger logger = Logger.NULL;
 
    private final ChefApi chef;
    private final Supplier<Map<String, JsonBall>> automaticSupplier;
+   private final Set<String> volatileAttributes;
+   private final long heartbeatNanos;
+   private final Ticker ticker;
+   private final ConcurrentMap<String, PushedNode> pushedNodes = Maps.newConcurrentMap();
 
-   @Inject
    public UpdateAutomaticAttributesOnNodeImpl(ChefApi chef, @Automatic Supplier<Map<String, JsonBall>> automaticSupplier) {
+      this(chef, automaticSupplier, ImmutableSet.<String> of(), 0);
+   }
+
+   /**
+    * @param liveAttributes
+    *           the keys of the attributes whose suppliers are live, such as
+    *           {@code jvm/memory}. They are not considered when looking for
+    *           changes.
+    */
+   @Inject
+   public UpdateAutomaticAttributesOnNodeImpl(ChefApi chef,
+         @Automatic Supplier<Map<String, JsonBall>> automaticSupplier, @Live Set<String> liveAttributes,
+         @Named(CHEF_AUTOMATIC_ATTRIBUTES_HEARTBEAT) long heartbeat) {
+      this(chef, automaticSupplier, liveAttributes, heartbeat, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   UpdateAutomaticAttributesOnNodeImpl(ChefApi chef, Supplier<Map<String, JsonBall>> automaticSupplier,
+         Set<String> liveAttributes, long heartbeat, Ticker ticker) {
       this.chef = checkNotNull(chef, "chef");
       this.automaticSupplier = checkNotNull(automaticSupplier, "automaticSupplier");
+      this.volatileAttributes = ImmutableSet.<String> builder().addAll(VOLATILE_ATTRIBUTES)
+            .addAll(checkNotNull(liveAttributes, "liveAttributes")).build();
+      this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeat);
+      this.ticker = checkNotNull(ticker, "ticker");
    }
 
    @Override
    public void execute(String nodeName) {
       logger.trace("updating node %s", nodeName);
-      Node node = chef.getNode(nodeName);
-      Node mutable = new Node(node.getName(), node.getNormal(), node.getOverride(), node.getDefault(),
-            automaticSupplier.get(), node.getRunList(), node.getChefEnvironment());
+      Map<String, JsonBall> automatic = automaticSupplier.get();
+      if (heartbeatNanos <= 0) {
+         update(chef.getNode(nodeName), automatic);
+         logger.debug("updated node %s", nodeName);
+         return;
+      }
+
+      HashCode digest = digest(automatic, volatileAttributes);
+      long now = ticker.read();
+      PushedNode pushed = pushedNodes.get(nodeName);
+      if (pushed == null || now - pushed.heartbeat >= heartbeatNanos) {
+         Node updated = update(chef.getNode(nodeName), automatic);
+         pushedNodes.put(nodeName, new PushedNode(updated, digest, now));
+         logger.debug("updated node %s", nodeName);
+      } else if (!digest.equals(pushed.digest)) {
+         Node updated;
+         try {
+            updated = update(pushed.node, automatic);
+         } catch (RuntimeException e) {
+            // the copy may be outdated, so read the node in the next update
+            pushedNodes.remove(nodeName);
+            throw e;
+         }
+         pushedNodes.put(nodeName, new PushedNode(updated, digest, pushed.heartbeat));
+         logger.debug("updated changed automatic attributes of node %s", nodeName);
+      } else {
+         logger.trace("automatic attributes of node %s have not changed", nodeName);
+      }
+   }
+
+   private Node update(Node node, Map<String, JsonBall> automatic) {
+      Node mutable = new Node(node.getName(), node.getNormal(), node.getOverride(), node.getDefault(), automatic,
+            node.getRunList(), node.getChefEnvironment());
       chef.updateNode(mutable);
-      logger.debug("updated node %s", nodeName);
+      return mutable;
+   }
+
+   @VisibleForTesting
+   static HashCode digest(Map<String, JsonBall> automatic, Set<String> volatileAttributes) {
+      Hasher hasher = Hashing.md5().newHasher();
+      for (Entry<String, JsonBall> entry : new TreeMap<String, JsonBall>(automatic).entrySet()) {
+         if (volatileAttributes.contains(entry.getKey()))
+            continue;
+         hasher.putString(entry.getKey(), UTF_8).putByte((byte) 0);
+         hasher.putString(without(volatileAttributes, entry.getKey(), entry.getValue()), UTF_8).putByte((byte) 0);
+      }
+      return hasher.hash();
+   }
+
+   /**
+    * @return the value of the attribute, without its volatile nested
+    *         attributes.
+    */
+   private static String without(Set<String> volatileAttributes, String key, JsonBall value) {
+      String json = String.valueOf(value);
+      JsonElement element = null;
+      for (String path : volatileAttributes) {
+         if (!path.startsWith(key + "/"))
+            continue;
+         if (element == null)
+            element = new JsonParser().parse(json);
+         remove(element, path.substring(key.length() + 1));
+      }
+      return element == null ? json : element.toString();
+   }
+
+   private static void remove(JsonElement element, String path) {
+      if (!element.isJsonObject())
+         return;
+      JsonObject object = element.getAsJsonObject();
+      int slash = path.indexOf('/');
+      if (slash == -1)
+         object.remove(path);
+      else if (object.has(path.substring(0, slash)))
+         remove(object.get(path.substring(0, slash)), path.substring(slash + 1));
+   }
+
+   /**
+    * The copy of a node as it was last updated.
+    */
+   private static class PushedNode {
+      private final Node node;
+      private final HashCode digest;
+      private final long heartbeat;
+
+      private PushedNode(Node node, HashCode digest, long heartbeat) {
+         this.node = node;
+         this.digest = digest;
+         this.heartbeat = heartbeat;
+      }
    }
 }
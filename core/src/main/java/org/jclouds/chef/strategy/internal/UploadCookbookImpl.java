@@ -0,0 +1,315 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.Futures.allAsList;
+import static com.google.common.util.concurrent.Futures.getUnchecked;
+import static org.jclouds.chef.concurrent.FutureIterables.transformStreaming;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.Constants;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.cache.ChecksumCache;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.domain.Attribute;
+import org.jclouds.chef.domain.Checksum;
+import org.jclouds.chef.domain.ChecksumStatus;
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.domain.Metadata;
+import org.jclouds.chef.domain.Resource;
+import org.jclouds.chef.domain.UploadSandbox;
+import org.jclouds.chef.payloads.ChecksummedFilePayload;
+import org.jclouds.chef.strategy.UploadCookbook;
+import org.jclouds.json.Json;
+import org.jclouds.logging.Logger;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+/**
+ * Uploads a cookbook the way {@code knife cookbook upload} does.
+ * <p>
+ * The checksums of the files are computed in parallel, unless the
+ * {@link ChecksumCache} has them from a previous upload, and compared with the
+ * version on the server. If nothing changed, the cookbook is not updated at
+ * all. Otherwise only the files the sandbox reports as missing are uploaded,
+ * as many at a time as the {@link AdaptiveConcurrencyLimiter} allows. Files
+ * with the same content are uploaded once. Commits that fail because the
+ * server does not see the uploaded files yet are retried by the
+ * {@link org.jclouds.chef.handlers.ChefApiErrorRetryHandler}.
+ */
+@Singleton
+public class UploadCookbookImpl implements UploadCookbook {
+
+   /** The directories whose files are uploaded to the segment of the same name. */
+   private static final Set<String> SEGMENTS = ImmutableSet.of("attributes", "definitions", "files", "libraries",
+         "providers", "recipes", "resources", "templates");
+
+   /** The segments that keep their files in a directory per host or platform. */
+   private static final Set<String> SPECIFIC_SEGMENTS = ImmutableSet.of("files", "templates");
+
+   private static final String METADATA = "metadata.json";
+
+   protected final ChefApi api;
+   protected final ListeningExecutorService userExecutor;
+   protected final AdaptiveConcurrencyLimiter limiter;
+   protected final Json json;
+   protected final ChecksumCache checksumCache;
+   @javax.annotation.Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject
+   UploadCookbookImpl(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService userExecutor, ChefApi api,
+         AdaptiveConcurrencyLimiter limiter, Json json, ChecksumCache checksumCache) {
+      this.userExecutor = checkNotNull(userExecutor, "userExecutor");
+      this.api = checkNotNull(api, "api");
+      this.limiter = checkNotNull(limiter, "limiter");
+      this.json = checkNotNull(json, "json");
+      this.checksumCache = checkNotNull(checksumCache, "checksumCache");
+   }
+
+   @Override
+   public CookbookVersion execute(File directory, String name, String version) {
+      return execute(userExecutor, directory, name, version);
+   }
+
+   @Override
+   public CookbookVersion execute(ListeningExecutorService executor, File directory, String name, String version) {
+      checkNotNull(executor, "executor");
+      checkNotNull(directory, "directory");
+      checkNotNull(name, "name");
+      checkNotNull(version, "version");
+      checkArgument(directory.isDirectory(), "%s is not a directory", directory);
+
+      ChecksumCache.Manifest previous = checksumCache.open(directory);
+      Map<String, File> paths = Maps.newTreeMap();
+      listFiles(directory, "", paths);
+      Map<String, ChecksummedFilePayload> files = checksum(executor, previous, paths);
+      Map<String, Checksum> checksums = Maps.newTreeMap();
+      for (Map.Entry<String, ChecksummedFilePayload> file : files.entrySet())
+         checksums.put(file.getKey(), Checksum.fromBytes(file.getValue().getMD5()));
+      for (Map.Entry<String, ChecksummedFilePayload> file : files.entrySet())
+         previous.record(file.getKey(), file.getValue());
+      previous.save();
+
+      CookbookVersion cookbook = manifest(directory, name, version, checksums);
+      CookbookVersion current = api.getCookbook(name, version);
+      if (current != null && checksums.equals(checksums(current))
+            && hasMetadata(current, directory, cookbook.getMetadata())) {
+         logger.trace("cookbook %s has not changed", cookbook.getName());
+         return current;
+      }
+
+      // the files of the current version are already on the server
+      Map<String, Checksum> missing = Maps.newTreeMap();
+      Set<Checksum> uploaded = current != null ? ImmutableSet.copyOf(checksums(current).values()) : ImmutableSet
+            .<Checksum> of();
+      for (Map.Entry<String, Checksum> checksum : checksums.entrySet()) {
+         if (!uploaded.contains(checksum.getValue()))
+            missing.put(checksum.getKey(), checksum.getValue());
+      }
+      if (!missing.isEmpty())
+         upload(executor, files, missing);
+
+      logger.trace("updating cookbook %s with %d files", cookbook.getName(), files.size());
+      return api.updateCookbook(name, version, cookbook);
+   }
+
+   private static void listFiles(File directory, String prefix, Map<String, File> files) {
+      File[] children = directory.listFiles();
+      if (children == null)
+         throw new IllegalStateException("could not list the files in " + directory);
+      for (File child : children) {
+         // skip hidden files, such as version control metadata
+         if (child.getName().startsWith("."))
+            continue;
+         String path = prefix + child.getName();
+         if (child.isDirectory()) {
+            // like knife, only upload the directories chef knows about
+            if (!prefix.isEmpty() || SEGMENTS.contains(child.getName()))
+               listFiles(child, path + "/", files);
+         } else {
+            files.put(path, child);
+         }
+      }
+   }
+
+   /**
+    * @return the payloads of the given files, by path. The files that have
+    *         changed since the checksums were recorded are hashed in parallel
+    *         on the executor.
+    */
+   private static Map<String, ChecksummedFilePayload> checksum(ListeningExecutorService executor,
+         final ChecksumCache.Manifest previous, final Map<String, File> files) {
+      // reading the files is bound by the disk and the cpu, not by the server
+      int window = Runtime.getRuntime().availableProcessors();
+      Iterable<Map.Entry<String, ChecksummedFilePayload>> payloads = transformStreaming(files.keySet(),
+            new Function<String, Map.Entry<String, ChecksummedFilePayload>>() {
+               @Override
+               public Map.Entry<String, ChecksummedFilePayload> apply(String path) {
+                  ChecksummedFilePayload payload = previous.payloadFor(path, files.get(path));
+                  payload.getContentMetadata().setContentType("application/x-binary");
+                  return Maps.immutableEntry(path, payload);
+               }
+            }, executor, window);
+      Map<String, ChecksummedFilePayload> byPath = Maps.newTreeMap();
+      for (Map.Entry<String, ChecksummedFilePayload> payload : payloads)
+         byPath.put(payload.getKey(), payload.getValue());
+      return byPath;
+   }
+
+   private void upload(ListeningExecutorService executor, Map<String, ChecksummedFilePayload> files,
+         Map<String, Checksum> checksums) {
+      Map<Checksum, ChecksummedFilePayload> contents = Maps.newLinkedHashMap();
+      for (Map.Entry<String, Checksum> checksum : checksums.entrySet()) {
+         if (!contents.containsKey(checksum.getValue()))
+            contents.put(checksum.getValue(), files.get(checksum.getKey()));
+      }
+
+      UploadSandbox sandbox = api.createUploadSandbox(ImmutableSet.copyOf(contents.keySet()));
+      try {
+         ListeningExecutorService limited = limiter.limit(executor, "content:upload");
+         List<ListenableFuture<Void>> uploads = Lists.newArrayList();
+         for (Map.Entry<Checksum, ChecksumStatus> status : sandbox.getChecksumStatuses().entrySet()) {
+            if (status.getValue().needsUpload()) {
+               final URI url = status.getValue().getUrl();
+               final ChecksummedFilePayload content = checkNotNull(contents.get(status.getKey()),
+                     "the sandbox returned an unknown checksum: %s", status.getKey());
+               uploads.add(limited.submit(new Callable<Void>() {
+                  @Override
+                  public Void call() throws Exception {
+                     api.uploadContent(url, content);
+                     return null;
+                  }
+               }));
+            }
+         }
+         logger.trace("uploading %d of %d files to sandbox %s", uploads.size(), contents.size(),
+               sandbox.getSandboxId());
+         getUnchecked(allAsList(uploads));
+         api.commitSandbox(sandbox.getSandboxId(), true);
+      } catch (RuntimeException e) {
+         abandon(sandbox);
+         throw e;
+      }
+   }
+
+   /**
+    * @return the checksums of the files of the given cookbook version, by
+    *         path.
+    */
+   private static Map<String, Checksum> checksums(CookbookVersion cookbook) {
+      Map<String, Checksum> byPath = Maps.newTreeMap();
+      for (Resource resource : Iterables.concat(cookbook.getAttributes(), cookbook.getDefinitions(),
+            cookbook.getFiles(), cookbook.getLibraries(), cookbook.getSuppliers(), cookbook.getRecipes(),
+            cookbook.getResources(), cookbook.getTemplates(), cookbook.getRootFiles())) {
+         if (resource.getPath() != null && resource.getChecksum() != null)
+            byPath.put(resource.getPath(), Checksum.fromBytes(resource.getChecksum()));
+      }
+      return byPath;
+   }
+
+   /**
+    * @return true if the given version has the metadata that would be
+    *         uploaded. Without a {@code metadata.json}, only the name and
+    *         version are uploaded and the server fills in the rest with its
+    *         defaults, so only those are compared.
+    */
+   private static boolean hasMetadata(CookbookVersion current, File directory, Metadata uploaded) {
+      Metadata stored = current.getMetadata();
+      if (new File(directory, METADATA).isFile())
+         return uploaded.equals(stored);
+      return stored != null && Objects.equal(uploaded.getName(), stored.getName())
+            && Objects.equal(uploaded.getVersion(), stored.getVersion());
+   }
+
+   private void abandon(UploadSandbox sandbox) {
+      try {
+         api.commitSandbox(sandbox.getSandboxId(), false);
+      } catch (RuntimeException e) {
+         logger.warn(e, "<< could not abandon sandbox %s", sandbox.getSandboxId());
+      }
+   }
+
+   private CookbookVersion manifest(File directory, String name, String version, Map<String, Checksum> checksums) {
+      Map<String, Set<Resource>> segments = Maps.newHashMap();
+      for (String segment : Iterables.concat(SEGMENTS, ImmutableSet.of(""))) {
+         segments.put(segment, Sets.<Resource> newLinkedHashSet());
+      }
+      for (Map.Entry<String, Checksum> checksum : checksums.entrySet()) {
+         String path = checksum.getKey();
+         List<String> parts = Splitter.on('/').splitToList(path);
+         String segment = parts.size() == 1 ? "" : parts.get(0);
+         String specificity = SPECIFIC_SEGMENTS.contains(segment) && parts.size() > 2 ? parts.get(1) : "default";
+         segments.get(segment).add(
+               new Resource(parts.get(parts.size() - 1), null, checksum.getValue().toBytes(), path,
+                     specificity));
+      }
+
+      return new CookbookVersion(name + "-" + version, segments.get("definitions"), segments.get("attributes"),
+            segments.get("files"), metadata(directory, name, version), segments.get("providers"), name,
+            segments.get("resources"), segments.get("templates"), segments.get("libraries"), version,
+            segments.get("recipes"), segments.get(""));
+   }
+
+   /**
+    * @return the metadata compiled by knife in the cookbook directory, or the
+    *         name and version of the cookbook if there is none.
+    */
+   private Metadata metadata(File directory, String name, String version) {
+      File metadata = new File(directory, METADATA);
+      if (metadata.isFile()) {
+         try {
+            return json.fromJson(Files.toString(metadata, Charsets.UTF_8), Metadata.class);
+         } catch (IOException e) {
+            throw Throwables.propagate(e);
+         }
+      }
+      Map<String, String> none = ImmutableMap.of();
+      return new Metadata(null, null, none, none, null, none, null, none, none, version, none, none, name, none, null,
+            ImmutableMap.<String, Attribute> of(), none);
+   }
+}
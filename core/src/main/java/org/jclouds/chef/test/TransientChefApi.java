@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -38,19 +39,24 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.domain.CookbookDefinition;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.domain.DatabagItem;
 import org.jclouds.chef.domain.Environment;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.RawDatabagItem;
+import org.jclouds.chef.domain.RawNode;
 import org.jclouds.chef.domain.Resource;
 import org.jclouds.chef.domain.Role;
 import org.jclouds.chef.domain.Sandbox;
 import org.jclouds.chef.domain.SearchResult;
 import org.jclouds.chef.domain.UploadSandbox;
 import org.jclouds.chef.options.CreateClientOptions;
+import org.jclouds.chef.options.NodeProjection;
 import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.domain.JsonBall;
 import org.jclouds.io.Payload;
 import org.jclouds.lifecycle.Closer;
 import org.jclouds.util.Strings2;
@@ -214,11 +220,26 @@ public class TransientChefApi implements ChefApi {
       throw new UnsupportedOperationException();
    }
 
+   @Override
+   public Node getNode(String nodename, NodeProjection projection) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public RawNode getRawNode(String nodename) {
+      throw new UnsupportedOperationException();
+   }
+
    @Override
    public Role getRole(String rolename) {
       throw new UnsupportedOperationException();
    }
 
+   @Override
+   public UploadSandbox createUploadSandbox(Set<Checksum> checksums) {
+      throw new UnsupportedOperationException();
+   }
+
    @Override
    public UploadSandbox getUploadSandboxForChecksums(Set<List<Byte>> md5s) {
       throw new UnsupportedOperationException();
@@ -229,6 +250,11 @@ public class TransientChefApi implements ChefApi {
       throw new UnsupportedOperationException();
    }
 
+   @Override
+   public Map<String, Set<String>> listVersionsOfCookbooks() {
+      throw new UnsupportedOperationException();
+   }
+
    @Override
    public Set<String> listClients() {
       throw new UnsupportedOperationException();
@@ -294,6 +320,27 @@ public class TransientChefApi implements ChefApi {
       throw new UnsupportedOperationException();
    }
 
+   @Override
+   public SearchResult<RawDatabagItem> searchRawDatabag(String databagName) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public SearchResult<RawDatabagItem> searchRawDatabag(String databagName, SearchOptions options) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public SearchResult<Map<String, JsonBall>> partialSearch(String index, Map<String, List<String>> keys) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public SearchResult<Map<String, JsonBall>> partialSearch(String index, Map<String, List<String>> keys,
+         SearchOptions options) {
+      throw new UnsupportedOperationException();
+   }
+
    @Override
    public SearchResult<? extends Node> searchNodes() {
       throw new UnsupportedOperationException();
@@ -304,6 +351,16 @@ public class TransientChefApi implements ChefApi {
       throw new UnsupportedOperationException();
    }
 
+   @Override
+   public SearchResult<? extends Node> searchNodes(SearchOptions options, NodeProjection projection) {
+      throw new UnsupportedOperationException();
+   }
+
+   @Override
+   public SearchResult<RawNode> searchRawNodes(SearchOptions options) {
+      throw new UnsupportedOperationException();
+   }
+
    @Override
    public SearchResult<? extends Role> searchRoles() {
       throw new UnsupportedOperationException();
@@ -344,6 +401,11 @@ public class TransientChefApi implements ChefApi {
       throw new UnsupportedOperationException();
    }
 
+   @Override
+   public InputStream streamSearch(String index, SearchOptions options) {
+      throw new UnsupportedOperationException();
+   }
+
    @Override
    public Set<String> listEnvironments() {
       throw new UnsupportedOperationException();
@@ -0,0 +1,204 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.util;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import com.google.gson.stream.JsonReader;
+
+/**
+ * Walks through the tokens of a json text without building any tree, keeping
+ * track of the position of each value so it can be extracted as raw json.
+ */
+public class JsonText {
+   private final String json;
+   private int pos;
+
+   public JsonText(String json) {
+      this.json = checkNotNull(json, "json");
+   }
+
+   public String getJson() {
+      return json;
+   }
+
+   /**
+    * @return the position of the next character to read.
+    */
+   public int getPosition() {
+      return pos;
+   }
+
+   /**
+    * @return the position of the next character that is not whitespace.
+    */
+   public int skipWhitespace() {
+      while (pos < json.length() && Character.isWhitespace(json.charAt(pos)))
+         pos++;
+      return pos;
+   }
+
+   /**
+    * @return the next character that is not whitespace, without consuming it,
+    *         or -1 at the end of the text.
+    */
+   public int peek() {
+      skipWhitespace();
+      return pos < json.length() ? json.charAt(pos) : -1;
+   }
+
+   /**
+    * Consumes the given character.
+    * 
+    * @return the position of the character
+    * @throws IllegalArgumentException
+    *            if the next character is not the expected one.
+    */
+   public int expect(char c) {
+      if (peek() != c)
+         throw syntaxError("expected '" + c + "'");
+      return pos++;
+   }
+
+   /**
+    * Consumes a ',' separating two elements of an object or array.
+    * 
+    * @return true if there is another element, false if the given closing
+    *         character has been consumed.
+    */
+   public boolean hasNext(char close) {
+      int c = peek();
+      if (c != ',' && c != close)
+         throw syntaxError("expected ',' or '" + close + "'");
+      pos++;
+      return c == ',';
+   }
+
+   /**
+    * Skips the next value, of any kind.
+    */
+   public void skipValue() {
+      int c = peek();
+      if (c == '"') {
+         skipString();
+      } else if (c == '{' || c == '[') {
+         int depth = 0;
+         do {
+            if (pos == json.length())
+               throw syntaxError("unterminated value");
+            c = json.charAt(pos);
+            if (c == '"') {
+               skipString();
+               continue;
+            }
+            pos++;
+            if (c == '{' || c == '[')
+               depth++;
+            else if (c == '}' || c == ']')
+               depth--;
+         } while (depth > 0);
+      } else {
+         int start = pos;
+         while (pos < json.length() && ",}] \t\n\r".indexOf(json.charAt(pos)) == -1)
+            pos++;
+         if (pos == start)
+            throw syntaxError("expected a value");
+      }
+   }
+
+   /**
+    * @return the raw json of the next value.
+    */
+   public String readValue() {
+      int start = skipWhitespace();
+      skipValue();
+      return json.substring(start, pos);
+   }
+
+   /**
+    * @return the next value, which must be a string.
+    */
+   public String readString() {
+      if (peek() != '"')
+         throw syntaxError("expected a string");
+      int start = pos;
+      skipString();
+      return decode(start, pos);
+   }
+
+   private void skipString() {
+      for (pos++; pos < json.length(); pos++) {
+         char c = json.charAt(pos);
+         if (c == '\\') {
+            pos++;
+         } else if (c == '"') {
+            pos++;
+            return;
+         }
+      }
+      throw syntaxError("unterminated string");
+   }
+
+   /**
+    * @return the string or number between the given positions, or null if it
+    *         is another kind of value.
+    */
+   public String decode(int start, int end) {
+      char c = json.charAt(start);
+      if (c == '"') {
+         String value = json.substring(start + 1, end - 1);
+         return value.indexOf('\\') == -1 ? value : unescape(json.substring(start, end));
+      }
+      return c == '-' || Character.isDigit(c) ? json.substring(start, end) : null;
+   }
+
+   private static String unescape(String quoted) {
+      try {
+         JsonReader reader = new JsonReader(new StringReader(quoted));
+         reader.setLenient(true);
+         return reader.nextString();
+      } catch (IOException e) {
+         throw new IllegalArgumentException(e);
+      }
+   }
+
+   /**
+    * Appends the given value as a json string.
+    */
+   public static StringBuilder appendQuoted(StringBuilder json, String value) {
+      json.append('"');
+      for (int i = 0; i < value.length(); i++) {
+         char c = value.charAt(i);
+         if (c == '"' || c == '\\')
+            json.append('\\').append(c);
+         else if (c < 0x20)
+            json.append(String.format("\\u%04x", (int) c));
+         else
+            json.append(c);
+      }
+      return json.append('"');
+   }
+
+   public IllegalArgumentException syntaxError(String message) {
+      return new IllegalArgumentException(String.format("%s at position %d of json %s", message, pos, json));
+   }
+}
@@ -0,0 +1,256 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.jclouds.chef.config.ChefProperties.CHEF_OHAI_REFRESH_INTERVAL;
+import static org.jclouds.chef.config.ChefProperties.CHEF_OHAI_REFRESH_JITTER;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.chef.config.ChefProperties;
+import org.jclouds.chef.strategy.UpdateAutomaticAttributesOnNode;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+
+/**
+ * Refreshes the automatic attributes of nodes in the background.
+ * <p>
+ * The first refresh of each node happens at a random time within the
+ * interval, and the following ones are delayed by the interval plus or minus
+ * a random jitter, so the nodes started at the same time spread their
+ * updates. A refresh requested while another one is running or waiting is
+ * merged with it, and the interval grows exponentially while the refreshes
+ * fail or the server is slow.
+ */
+@Singleton
+public class AutomaticAttributesRefresher implements Closeable {
+
+   /**
+    * The name of the scheduler the refreshes run in.
+    */
+   public static final String SCHEDULER = "jclouds.chef.ohai-refresher";
+
+   /** Refreshes taking longer than this fraction of the interval are slow. */
+   private static final double SLOW_RATIO = 0.1;
+
+   /** The interval is multiplied by at most this factor when backing off. */
+   private static final int MAX_BACKOFF = 16;
+
+   /** The time running refreshes are given to finish when closing. */
+   private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   private final UpdateAutomaticAttributesOnNode updateAutomaticAttributesOnNode;
+   private final ScheduledExecutorService scheduler;
+   private final long interval;
+   private final double jitter;
+   private final Random random;
+   private final Map<String, Refresh> refreshes = Maps.newHashMap();
+   private boolean closed;
+
+   @Inject
+   AutomaticAttributesRefresher(UpdateAutomaticAttributesOnNode updateAutomaticAttributesOnNode,
+         @Named(SCHEDULER) ScheduledExecutorService scheduler, @Named(CHEF_OHAI_REFRESH_INTERVAL) long interval,
+         @Named(CHEF_OHAI_REFRESH_JITTER) double jitter) {
+      this(updateAutomaticAttributesOnNode, scheduler, interval, jitter, new Random());
+   }
+
+   @VisibleForTesting
+   AutomaticAttributesRefresher(UpdateAutomaticAttributesOnNode updateAutomaticAttributesOnNode,
+         ScheduledExecutorService scheduler, long interval, double jitter, Random random) {
+      checkArgument(interval > 0, "interval must be positive");
+      checkArgument(jitter >= 0 && jitter < 1, "jitter must be between 0 and 1");
+      this.updateAutomaticAttributesOnNode = checkNotNull(updateAutomaticAttributesOnNode,
+            "updateAutomaticAttributesOnNode");
+      this.scheduler = checkNotNull(scheduler, "scheduler");
+      this.interval = interval;
+      this.jitter = jitter;
+      this.random = checkNotNull(random, "random");
+   }
+
+   /**
+    * Refreshes the automatic attributes of the given node periodically, until
+    * it is cancelled or this refresher is closed.
+    */
+   public synchronized void schedule(String nodeName) {
+      checkState(!closed, "refresher is closed");
+      Refresh refresh = refreshes.get(checkNotNull(nodeName, "nodeName"));
+      if (refresh == null) {
+         refresh = new Refresh(nodeName);
+         refreshes.put(nodeName, refresh);
+      }
+      if (!refresh.periodic) {
+         refresh.periodic = true;
+         if (!refresh.running && refresh.next == null)
+            refresh.schedule((long) (random.nextDouble() * interval));
+      }
+   }
+
+   /**
+    * Refreshes the automatic attributes of the given node as soon as possible.
+    * If a refresh of the node is already waiting, it is run now instead, and
+    * if one is running, the node is refreshed again once it finishes.
+    */
+   public synchronized void refreshNow(String nodeName) {
+      checkState(!closed, "refresher is closed");
+      Refresh refresh = refreshes.get(checkNotNull(nodeName, "nodeName"));
+      if (refresh == null) {
+         refresh = new Refresh(nodeName);
+         refreshes.put(nodeName, refresh);
+      }
+      if (refresh.running) {
+         refresh.requested = true;
+      } else if (refresh.next == null || refresh.next.cancel(false)) {
+         refresh.schedule(0);
+      }
+      // otherwise the waiting refresh has just started
+   }
+
+   /**
+    * Stops refreshing the automatic attributes of the given node.
+    */
+   public synchronized void cancel(String nodeName) {
+      Refresh refresh = refreshes.remove(checkNotNull(nodeName, "nodeName"));
+      if (refresh != null)
+         refresh.cancel();
+   }
+
+   /**
+    * @return the nodes whose attributes are being refreshed.
+    */
+   public synchronized Set<String> getNodes() {
+      return ImmutableSet.copyOf(refreshes.keySet());
+   }
+
+   /**
+    * Cancels all the refreshes and waits for the running ones to finish.
+    */
+   @Override
+   public void close() {
+      synchronized (this) {
+         if (closed)
+            return;
+         closed = true;
+         for (Refresh refresh : refreshes.values())
+            refresh.cancel();
+         refreshes.clear();
+      }
+      scheduler.shutdown();
+      try {
+         if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            logger.warn("automatic attribute refreshes did not finish in %ss", SHUTDOWN_TIMEOUT_SECONDS);
+      } catch (InterruptedException e) {
+         Thread.currentThread().interrupt();
+      }
+   }
+
+   @VisibleForTesting
+   synchronized int getBackoff(String nodeName) {
+      Refresh refresh = refreshes.get(nodeName);
+      return refresh == null ? 1 : refresh.backoff;
+   }
+
+   @VisibleForTesting
+   long nextDelay(int backoff) {
+      double spread = jitter * (2 * random.nextDouble() - 1);
+      return (long) (interval * backoff * (1 + spread));
+   }
+
+   /**
+    * The refreshes of a node. Its state is guarded by the refresher.
+    */
+   private class Refresh implements Runnable {
+      private final String nodeName;
+      private boolean periodic;
+      private ScheduledFuture<?> next;
+      private boolean running;
+      private boolean requested;
+      private boolean cancelled;
+      private int backoff = 1;
+
+      private Refresh(String nodeName) {
+         this.nodeName = nodeName;
+      }
+
+      private void schedule(long delay) {
+         next = scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+      }
+
+      private void cancel() {
+         cancelled = true;
+         if (next != null)
+            next.cancel(false);
+      }
+
+      @Override
+      public void run() {
+         synchronized (AutomaticAttributesRefresher.this) {
+            if (cancelled)
+               return;
+            next = null;
+            running = true;
+            requested = false;
+         }
+         boolean healthy = false;
+         long start = System.nanoTime();
+         try {
+            updateAutomaticAttributesOnNode.execute(nodeName);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            healthy = elapsed <= interval * SLOW_RATIO;
+            if (!healthy)
+               logger.warn("refreshing the automatic attributes of node %s took %sms", nodeName, elapsed);
+         } catch (RuntimeException e) {
+            logger.warn(e, "error refreshing the automatic attributes of node %s", nodeName);
+         } finally {
+            synchronized (AutomaticAttributesRefresher.this) {
+               running = false;
+               backoff = healthy ? 1 : Math.min(MAX_BACKOFF, backoff * 2);
+               if (!cancelled) {
+                  if (requested)
+                     schedule(0);
+                  else if (periodic)
+                     schedule(nextDelay(backoff));
+                  else
+                     refreshes.remove(nodeName);
+               }
+            }
+         }
+      }
+   }
+}
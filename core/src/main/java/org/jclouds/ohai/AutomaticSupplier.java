@@ -18,38 +18,302 @@
  */
 package org.jclouds.ohai;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.chef.config.ChefProperties.CHEF_OHAI_TIME_BUDGET;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import javax.inject.Inject;
+import javax.annotation.Resource;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.jclouds.Constants;
+import org.jclouds.chef.config.ChefProperties;
 import org.jclouds.domain.JsonBall;
+import org.jclouds.logging.Logger;
+import org.jclouds.ohai.Freshness.Policy;
 import org.jclouds.ohai.functions.NestSlashKeys;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Inject;
 
 /**
+ * Merges the values of the {@link Automatic} attribute suppliers.
+ * <p>
+ * The values are cached according to the {@link Freshness} declared by each
+ * supplier, so only the live attributes and the expired ones are computed
+ * again each time.
+ * <p>
+ * When the {@link ChefProperties#CHEF_OHAI_TIME_BUDGET} property is set, the
+ * suppliers are called concurrently and the attributes are returned when the
+ * budget is exhausted, even if some suppliers have not finished. The last
+ * value of those suppliers is used instead, and they are not called again
+ * until they finish.
  * 
  * @author Adrian Cole
- * 
  */
 @Singleton
 public class AutomaticSupplier implements Supplier<Map<String, JsonBall>> {
-   private final Multimap<String, Supplier<JsonBall>> autoAttrs;
+
+   @Resource
+   @Named(ChefProperties.CHEF_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(CHEF_OHAI_TIME_BUDGET)
+   private long timeBudget = 0;
+
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_USER_THREADS)
+   private ListeningExecutorService userExecutor;
+
+   private final List<Attribute> attributes;
+   private final ImmutableSet<String> liveKeys;
    private final NestSlashKeys nester;
+   private final Ticker ticker;
+   private volatile ImmutableSet<String> missedDeadline = ImmutableSet.of();
 
    @Inject
    AutomaticSupplier(@Automatic Multimap<String, Supplier<JsonBall>> autoAttrs, NestSlashKeys nester) {
-      this.autoAttrs = checkNotNull(autoAttrs, "autoAttrs");
+      this(autoAttrs, nester, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   AutomaticSupplier(Multimap<String, Supplier<JsonBall>> autoAttrs, NestSlashKeys nester, Ticker ticker) {
+      checkNotNull(autoAttrs, "autoAttrs");
+      this.ticker = checkNotNull(ticker, "ticker");
+      ImmutableList.Builder<Attribute> attributes = ImmutableList.builder();
+      for (Entry<String, Supplier<JsonBall>> entry : autoAttrs.entries())
+         attributes.add(new Attribute(entry.getKey(), entry.getValue()));
+      this.attributes = attributes.build();
+      this.liveKeys = liveKeys(autoAttrs);
       this.nester = checkNotNull(nester, "nester");
    }
 
+   /**
+    * @return the keys whose suppliers are all {@link Policy#LIVE}.
+    */
+   private static ImmutableSet<String> liveKeys(Multimap<String, Supplier<JsonBall>> autoAttrs) {
+      ImmutableSet.Builder<String> live = ImmutableSet.builder();
+      for (Entry<String, Collection<Supplier<JsonBall>>> entry : autoAttrs.asMap().entrySet()) {
+         boolean allLive = true;
+         for (Supplier<JsonBall> supplier : entry.getValue()) {
+            Freshness freshness = supplier.getClass().getAnnotation(Freshness.class);
+            allLive &= freshness != null && freshness.value() == Policy.LIVE;
+         }
+         if (allLive)
+            live.add(entry.getKey());
+      }
+      return live.build();
+   }
+
+   @VisibleForTesting
+   AutomaticSupplier withTimeBudget(ListeningExecutorService executor, long timeBudget) {
+      this.userExecutor = checkNotNull(executor, "executor");
+      this.timeBudget = timeBudget;
+      return this;
+   }
+
    @Override
    public Map<String, JsonBall> get() {
-      return nester.apply(autoAttrs);
+      return nester.apply(timeBudget > 0 && userExecutor != null ? evaluateConcurrently() : evaluate());
+   }
+
+   private Multimap<String, Supplier<JsonBall>> evaluate() {
+      ImmutableListMultimap.Builder<String, Supplier<JsonBall>> values = ImmutableListMultimap.builder();
+      for (Attribute attribute : attributes)
+         values.put(attribute.key, Suppliers.ofInstance(attribute.get()));
+      return values.build();
+   }
+
+   private Multimap<String, Supplier<JsonBall>> evaluateConcurrently() {
+      long deadline = ticker.read() + TimeUnit.MILLISECONDS.toNanos(timeBudget);
+      Map<Attribute, ListenableFuture<JsonBall>> pending = Maps.newLinkedHashMap();
+      for (Attribute attribute : attributes) {
+         if (!attribute.isFresh())
+            pending.put(attribute, attribute.refresh(userExecutor));
+      }
+      ImmutableListMultimap.Builder<String, Supplier<JsonBall>> values = ImmutableListMultimap.builder();
+      ImmutableSet.Builder<String> missed = ImmutableSet.builder();
+      for (Attribute attribute : attributes) {
+         ListenableFuture<JsonBall> future = pending.get(attribute);
+         if (future == null) {
+            values.put(attribute.key, Suppliers.ofInstance(attribute.lastValue()));
+            continue;
+         }
+         try {
+            JsonBall value = Uninterruptibles.getUninterruptibly(future, Math.max(0, deadline - ticker.read()),
+                  TimeUnit.NANOSECONDS);
+            values.put(attribute.key, Suppliers.ofInstance(value));
+         } catch (TimeoutException e) {
+            missed.add(attribute.key);
+            // use the last known value, if the supplier ever finished
+            if (attribute.hasValue())
+               values.put(attribute.key, Suppliers.ofInstance(attribute.lastValue()));
+         } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+         }
+      }
+      missedDeadline = missed.build();
+      if (!missedDeadline.isEmpty())
+         logger.warn("ohai attributes %s did not finish within %sms", missedDeadline, timeBudget);
+      return values.build();
+   }
+
+   /**
+    * Discards the cached values of all the attributes, so they are computed
+    * again the next time they are requested.
+    */
+   public void invalidate() {
+      for (Attribute attribute : attributes)
+         attribute.invalidate();
+   }
+
+   /**
+    * Discards the cached values of the given attribute.
+    */
+   public void invalidate(String key) {
+      checkNotNull(key, "key");
+      for (Attribute attribute : attributes) {
+         if (attribute.key.equals(key))
+            attribute.invalidate();
+      }
+   }
+
+   /**
+    * @return the time, in nanoseconds, the suppliers of each attribute took the
+    *         last time they were called.
+    */
+   public Map<String, Long> getTimings() {
+      Map<String, Long> timings = Maps.newLinkedHashMap();
+      for (Attribute attribute : attributes) {
+         Long previous = timings.get(attribute.key);
+         timings.put(attribute.key, attribute.elapsedNanos + (previous == null ? 0 : previous));
+      }
+      return ImmutableMap.copyOf(timings);
+   }
+
+   /**
+    * @return the keys of the attributes whose suppliers are
+    *         {@link Policy#LIVE}, such as {@code ohai_time} or
+    *         {@code jvm/memory}. Their values change each time they are
+    *         computed.
+    */
+   public ImmutableSet<String> getLiveKeys() {
+      return liveKeys;
+   }
+
+   /**
+    * @return the attributes whose suppliers did not finish within the time
+    *         budget the last time the attributes were requested.
+    */
+   public ImmutableSet<String> getMissedDeadline() {
+      return missedDeadline;
+   }
+
+   private static long ttlNanos(Supplier<JsonBall> supplier) {
+      Freshness freshness = supplier.getClass().getAnnotation(Freshness.class);
+      if (freshness == null || freshness.value() == Policy.LIVE)
+         return 0;
+      if (freshness.value() == Policy.STATIC)
+         return Long.MAX_VALUE;
+      checkArgument(freshness.ttl() > 0, "ttl of %s must be positive", supplier.getClass().getName());
+      return freshness.unit().toNanos(freshness.ttl());
    }
 
+   /**
+    * The value of a supplier, reused until it expires or it is invalidated.
+    */
+   private class Attribute {
+      private final String key;
+      private final Supplier<JsonBall> supplier;
+      private final long ttlNanos;
+      private JsonBall value;
+      private boolean computed;
+      private boolean valid;
+      private long expiresAt;
+      private long elapsedNanos;
+      private ListenableFuture<JsonBall> refreshing;
+
+      private Attribute(String key, Supplier<JsonBall> supplier) {
+         this.key = key;
+         this.supplier = checkNotNull(supplier, "supplier of %s", key);
+         this.ttlNanos = ttlNanos(supplier);
+      }
+
+      private synchronized boolean isFresh() {
+         return valid && (ttlNanos == Long.MAX_VALUE || ticker.read() - expiresAt < 0);
+      }
+
+      private synchronized boolean hasValue() {
+         return computed;
+      }
+
+      private synchronized JsonBall lastValue() {
+         return value;
+      }
+
+      private JsonBall get() {
+         synchronized (this) {
+            if (isFresh())
+               return value;
+         }
+         return compute();
+      }
+
+      /**
+       * Computes the value in the given executor, unless the previous
+       * computation has not finished yet.
+       */
+      private synchronized ListenableFuture<JsonBall> refresh(ListeningExecutorService executor) {
+         if (refreshing == null || refreshing.isDone()) {
+            refreshing = executor.submit(new Callable<JsonBall>() {
+               @Override
+               public JsonBall call() {
+                  return compute();
+               }
+            });
+         }
+         return refreshing;
+      }
+
+      private JsonBall compute() {
+         long start = ticker.read();
+         JsonBall computedValue = supplier.get();
+         long end = ticker.read();
+         synchronized (this) {
+            value = computedValue;
+            computed = true;
+            valid = true;
+            expiresAt = start + ttlNanos;
+            elapsedNanos = end - start;
+         }
+         return computedValue;
+      }
+
+      private synchronized void invalidate() {
+         valid = false;
+      }
+   }
 }
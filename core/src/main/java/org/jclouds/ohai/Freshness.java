@@ -0,0 +1,62 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Declares how long the value of an ohai attribute supplier can be reused
+ * before calling it again.
+ * <p>
+ * The suppliers bound to the {@link Automatic} attributes without this
+ * annotation are called every time the attributes are requested.
+ */
+@Retention(RUNTIME)
+@Target(TYPE)
+public @interface Freshness {
+
+   public enum Policy {
+      /**
+       * The value is computed once and reused until it is invalidated.
+       */
+      STATIC,
+      /**
+       * The value is reused for the duration given by {@link Freshness#ttl()}.
+       */
+      TTL,
+      /**
+       * The value is computed each time it is requested.
+       */
+      LIVE;
+   }
+
+   Policy value();
+
+   /**
+    * The time the value is reused, when the policy is {@link Policy#TTL}.
+    */
+   long ttl() default 0;
+
+   TimeUnit unit() default TimeUnit.SECONDS;
+}
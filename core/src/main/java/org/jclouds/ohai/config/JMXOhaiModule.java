@@ -18,20 +18,34 @@
  */
 package org.jclouds.ohai.config;
 
+import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
 
 import javax.inject.Singleton;
+import javax.management.MBeanServer;
 
 import org.jclouds.domain.JsonBall;
 import org.jclouds.ohai.config.multibindings.MapBinder;
+import org.jclouds.ohai.suppliers.BufferPoolsSupplier;
+import org.jclouds.ohai.suppliers.GarbageCollectorsSupplier;
+import org.jclouds.ohai.suppliers.MemorySupplier;
+import org.jclouds.ohai.suppliers.OperatingSystemSupplier;
+import org.jclouds.ohai.suppliers.ThreadsSupplier;
 import org.jclouds.ohai.suppliers.UptimeSecondsSupplier;
 
 import com.google.common.base.Supplier;
 import com.google.inject.Provides;
 
 /**
- * Wires the components needed to parse ohai data from a JVM
+ * Wires the components needed to parse ohai data from a JVM, including its
+ * memory, garbage collection, thread, cpu and buffer pool usage under the
+ * {@code jvm} attribute. The usage changes each time it is read, so it is not
+ * considered when looking for changes in the automatic attributes of a node.
  * 
  * @author Adrian Cole
  */
@@ -44,9 +58,44 @@ public class JMXOhaiModule extends OhaiModule {
       return ManagementFactory.getRuntimeMXBean();
    }
 
+   @Provides
+   @Singleton
+   protected MemoryMXBean provideMemoryMXBean() {
+      return ManagementFactory.getMemoryMXBean();
+   }
+
+   @Provides
+   @Singleton
+   protected List<GarbageCollectorMXBean> provideGarbageCollectorMXBeans() {
+      return ManagementFactory.getGarbageCollectorMXBeans();
+   }
+
+   @Provides
+   @Singleton
+   protected ThreadMXBean provideThreadMXBean() {
+      return ManagementFactory.getThreadMXBean();
+   }
+
+   @Provides
+   @Singleton
+   protected OperatingSystemMXBean provideOperatingSystemMXBean() {
+      return ManagementFactory.getOperatingSystemMXBean();
+   }
+
+   @Provides
+   @Singleton
+   protected MBeanServer provideMBeanServer() {
+      return ManagementFactory.getPlatformMBeanServer();
+   }
+
    public MapBinder<String, Supplier<JsonBall>> bindOhai() {
       MapBinder<String, Supplier<JsonBall>> mapBinder = super.bindOhai();
       mapBinder.addBinding("uptime_seconds").to(UptimeSecondsSupplier.class);
+      mapBinder.addBinding("jvm/memory").to(MemorySupplier.class);
+      mapBinder.addBinding("jvm/gc").to(GarbageCollectorsSupplier.class);
+      mapBinder.addBinding("jvm/threads").to(ThreadsSupplier.class);
+      mapBinder.addBinding("jvm/os").to(OperatingSystemSupplier.class);
+      mapBinder.addBinding("jvm/buffer_pools").to(BufferPoolsSupplier.class);
       return mapBinder;
    }
 }
@@ -24,6 +24,7 @@ import static org.jclouds.chef.util.ChefUtils.toOhaiTime;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -34,6 +35,9 @@ import org.jclouds.domain.JsonBall;
 import org.jclouds.json.Json;
 import org.jclouds.ohai.Automatic;
 import org.jclouds.ohai.AutomaticSupplier;
+import org.jclouds.ohai.Freshness;
+import org.jclouds.ohai.Freshness.Policy;
+import org.jclouds.ohai.Live;
 import org.jclouds.ohai.config.multibindings.MapBinder;
 import org.jclouds.ohai.functions.ByteArrayToMacAddress;
 import org.jclouds.ohai.functions.MapSetToMultimap;
@@ -67,6 +71,12 @@ public class OhaiModule extends AbstractModule {
       return in;
    }
 
+   @Provides
+   @Live
+   protected Set<String> provideLiveAutomaticKeys(AutomaticSupplier in) {
+      return in.getLiveKeys();
+   }
+
    @Provides
    @Automatic
    Multimap<String, Supplier<JsonBall>> provideAutomatic(MapSetToMultimap<String, Supplier<JsonBall>> converter,
@@ -92,6 +102,7 @@ public class OhaiModule extends AbstractModule {
    }
 
    @Singleton
+   @Freshness(Policy.LIVE)
    public static class OhaiTimeProvider implements Supplier<JsonBall> {
       private final Provider<Long> timeProvider;
 
@@ -113,6 +124,7 @@ public class OhaiModule extends AbstractModule {
    }
 
    @Singleton
+   @Freshness(value = Policy.TTL, ttl = 5, unit = TimeUnit.MINUTES)
    public static class SystemPropertiesProvider implements Supplier<JsonBall> {
 
       private final Json json;
@@ -132,6 +144,7 @@ public class OhaiModule extends AbstractModule {
    }
 
    @Singleton
+   @Freshness(Policy.STATIC)
    public static class PlatformProvider extends SystemPropertyProvider {
 
       @Inject
@@ -148,6 +161,7 @@ public class OhaiModule extends AbstractModule {
    }
 
    @Singleton
+   @Freshness(Policy.STATIC)
    public static class PlatformVersionProvider extends SystemPropertyProvider {
 
       @Inject
@@ -158,6 +172,7 @@ public class OhaiModule extends AbstractModule {
    }
 
    @Singleton
+   @Freshness(Policy.STATIC)
    public static class CurrentUserProvider extends SystemPropertyProvider {
 
       @Inject
@@ -0,0 +1,50 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.config;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.ohai.AutomaticAttributesRefresher;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+
+/**
+ * Wires the {@link AutomaticAttributesRefresher} that keeps the automatic
+ * attributes of the nodes up to date in the background.
+ */
+public class OhaiRefresherModule extends AbstractModule {
+
+   @Override
+   protected void configure() {
+   }
+
+   @Provides
+   @Singleton
+   @Named(AutomaticAttributesRefresher.SCHEDULER)
+   protected ScheduledExecutorService provideRefresherScheduler() {
+      return new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder().setNameFormat("ohai-refresher-%d")
+            .setDaemon(true).build());
+   }
+}
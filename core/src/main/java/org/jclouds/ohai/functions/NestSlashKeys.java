@@ -19,145 +19,161 @@
 package org.jclouds.ohai.functions;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkNotNull;
 
-import java.lang.reflect.Type;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 
-import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.jclouds.chef.util.JsonText;
 import org.jclouds.domain.JsonBall;
-import org.jclouds.json.Json;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
-import com.google.common.base.Predicate;
 import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Sets;
-import com.google.inject.TypeLiteral;
 
 /**
- * 
+ * Merges the values of the ohai suppliers into a single map, nesting the
+ * values of the keys with slashes under the corresponding hashes.
+ * <p>
+ * The values are merged in a single mutable tree, and each hash is only parsed
+ * when a value has to be merged into it, one level at a time. The values that
+ * are not touched by the merge are kept as raw json, and each top level value
+ * is serialized once, at the end.
+ * <p>
+ * When two values are merged, hashes are merged recursively and any other
+ * value is replaced by the last one.
  * 
  * @author Adrian Cole
  */
 @Singleton
 public class NestSlashKeys implements Function<Multimap<String, Supplier<JsonBall>>, Map<String, JsonBall>> {
 
-   private final Json json;
-
-   @Inject
-   NestSlashKeys(Json json) {
-      this.json = checkNotNull(json, "json");
-   }
+   private static final Splitter SLASH = Splitter.on('/');
 
    @Override
    public Map<String, JsonBall> apply(Multimap<String, Supplier<JsonBall>> from) {
-
-      Map<String, JsonBall> autoAttrs = mergeSameKeys(from);
-
-      Map<String, JsonBall> modifiableFlatMap = Maps.newLinkedHashMap(Maps.filterKeys(autoAttrs,
-            new Predicate<String>() {
-
-               @Override
-               public boolean apply(String input) {
-                  return input.indexOf('/') == -1;
-               }
-
-            }));
-      Map<String, JsonBall> withSlashesMap = Maps.difference(autoAttrs, modifiableFlatMap).entriesOnlyOnLeft();
-      for (Entry<String, JsonBall> entry : withSlashesMap.entrySet()) {
-         List<String> keyParts = Lists.newArrayList(Splitter.on('/').split(entry.getKey()));
-         JsonBall toInsert = entry.getValue();
+      Map<String, Object> tree = Maps.newLinkedHashMap();
+      List<Entry<String, JsonBall>> withSlashes = Lists.newArrayList();
+      for (Entry<String, Supplier<JsonBall>> entry : from.entries()) {
+         JsonBall value = entry.getValue().get();
+         if (entry.getKey().indexOf('/') != -1) {
+            withSlashes.add(Maps.immutableEntry(entry.getKey(), value));
+            continue;
+         }
          try {
-            putUnderContext(keyParts, toInsert, modifiableFlatMap);
+            merge(tree, entry.getKey(), value);
          } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("error inserting value in entry: " + entry.getKey(), e);
          }
       }
-      return modifiableFlatMap;
-   }
-
-   private Map<String, JsonBall> mergeSameKeys(Multimap<String, Supplier<JsonBall>> from) {
-      Map<String, JsonBall> merged = Maps.newLinkedHashMap();
-      for (Entry<String, Supplier<JsonBall>> entry : from.entries()) {
-         if (merged.containsKey(entry.getKey())) {
-            mergeAsPeer(entry.getKey(), entry.getValue().get(), merged);
-         } else {
-            merged.put(entry.getKey(), entry.getValue().get());
+      // nested values are inserted once all the top level hashes are in place
+      for (Entry<String, JsonBall> entry : withSlashes) {
+         try {
+            putUnderContext(SLASH.split(entry.getKey()), entry.getValue(), tree);
+         } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("error inserting value in entry: " + entry.getKey(), e);
          }
       }
+      Map<String, JsonBall> merged = Maps.newLinkedHashMap();
+      for (Entry<String, Object> entry : tree.entrySet()) {
+         Object value = entry.getValue();
+         merged.put(entry.getKey(), value instanceof Map ? new JsonBall(write(new StringBuilder(), value).toString())
+               : JsonBall.class.cast(value));
+      }
       return merged;
    }
 
-   @VisibleForTesting
-   void mergeAsPeer(String key, JsonBall value, Map<String, JsonBall> insertionContext) {
-      Map<String, JsonBall> immutableValueContext = json.fromJson(insertionContext.get(key).toString(), mapLiteral);
-      Map<String, JsonBall> valueContext = Maps.newHashMap(immutableValueContext);
-      Map<String, JsonBall> toPut = json.<Map<String, JsonBall>> fromJson(value.toString(), mapLiteral);
-      Set<String> uniques = Sets.difference(toPut.keySet(), valueContext.keySet());
-      for (String k : uniques) {
-         valueContext.put(k, toPut.get(k));
-      }
-      Set<String> conflicts = Sets.difference(toPut.keySet(), uniques);
-      for (String k : conflicts) {
-         JsonBall v = toPut.get(k);
-         if (v.toString().matches("^\\{.*\\}$")) {
-            mergeAsPeer(k, v, valueContext);
+   /**
+    * Merges the value under the hash found at the given path, creating the
+    * missing hashes.
+    * 
+    * @throws IllegalArgumentException
+    *            if any of the values in the path is not a hash
+    */
+   void putUnderContext(Iterable<String> keyParts, JsonBall toInsert, Map<String, Object> destination) {
+      Iterator<String> parts = keyParts.iterator();
+      Map<String, Object> context = destination;
+      String key = parts.next();
+      while (parts.hasNext()) {
+         Object value = context.get(key);
+         if (value == null) {
+            Map<String, Object> hash = Maps.newLinkedHashMap();
+            context.put(key, hash);
+            context = hash;
          } else {
-            // replace
-            valueContext.put(k, v);
+            checkArgument(isHash(value), "value must be a hash: %s", value);
+            context = hashAt(context, key, value);
          }
+         key = parts.next();
       }
-      insertionContext.put(key, new JsonBall(json.toJson(valueContext, mapLiteral)));
+      merge(context, key, toInsert);
    }
 
-   /**
-    * @param keyParts
-    * @param toInsert
-    * @param destination
-    * @throws IllegalArgumentException
-    *            <p/>
-    *            if destination.get(keyParts(0)) is not a map *
-    *            <p/>
-    *            keyParts is zero length
-    */
-   void putUnderContext(List<String> keyParts, JsonBall toInsert, Map<String, JsonBall> destination) {
-      checkNotNull(keyParts, "keyParts");
-      checkArgument(keyParts.size() >= 1, "keyParts must contain at least one element");
+   private static void merge(Map<String, Object> context, String key, Object value) {
+      Object existing = context.get(key);
+      if (existing != null && isHash(existing) && isHash(value)) {
+         Map<String, Object> hash = hashAt(context, key, existing);
+         for (Entry<String, Object> entry : members(value).entrySet())
+            merge(hash, entry.getKey(), entry.getValue());
+      } else {
+         context.put(key, value);
+      }
+   }
 
-      checkNotNull(toInsert, "toInsert");
-      checkNotNull(destination, "destination");
+   private static boolean isHash(Object value) {
+      if (value instanceof Map)
+         return true;
+      return value != null && new JsonText(value.toString()).peek() == '{';
+   }
 
-      String rootKey = keyParts.remove(0);
-      String rootValue = destination.containsKey(rootKey) ? destination.get(rootKey).toString() : "{}";
+   /**
+    * @return the hash under the given key, parsing it in place if it is still
+    *         raw json.
+    */
+   private static Map<String, Object> hashAt(Map<String, Object> context, String key, Object value) {
+      Map<String, Object> hash = members(value);
+      if (hash != value)
+         context.put(key, hash);
+      return hash;
+   }
 
-      checkArgument(rootValue.matches("^\\{.*\\}$"), "value must be a hash: %s", rootValue);
-      Map<String, JsonBall> immutableInsertionContext = json.fromJson(rootValue, mapLiteral);
-      Map<String, JsonBall> insertionContext = Maps.newHashMap(immutableInsertionContext);
-      if (keyParts.size() == 1) {
-         if (!insertionContext.containsKey(keyParts.get(0))) {
-            insertionContext.put(keyParts.get(0), toInsert);
-         } else {
-            String key = keyParts.get(0);
-            mergeAsPeer(key, toInsert, insertionContext);
-         }
-      } else {
-         putUnderContext(keyParts, toInsert, insertionContext);
+   @SuppressWarnings("unchecked")
+   private static Map<String, Object> members(Object value) {
+      if (value instanceof Map)
+         return (Map<String, Object>) value;
+      JsonText text = new JsonText(value.toString());
+      Map<String, Object> members = Maps.newLinkedHashMap();
+      text.expect('{');
+      if (text.peek() == '}') {
+         text.expect('}');
+         return members;
       }
-      destination.put(rootKey, new JsonBall(json.toJson(insertionContext, mapLiteral)));
+      do {
+         String name = text.readString();
+         text.expect(':');
+         members.put(name, new JsonBall(text.readValue()));
+      } while (text.hasNext('}'));
+      return members;
    }
 
-   final Type mapLiteral = new TypeLiteral<Map<String, JsonBall>>() {
-   }.getType();
-   final Type listLiteral = new TypeLiteral<List<JsonBall>>() {
-   }.getType();
+   private static StringBuilder write(StringBuilder json, Object value) {
+      if (!(value instanceof Map))
+         return json.append(value);
+      json.append('{');
+      boolean first = true;
+      for (Entry<String, Object> entry : members(value).entrySet()) {
+         if (!first)
+            json.append(',');
+         first = false;
+         JsonText.appendQuoted(json, entry.getKey()).append(':');
+         write(json, entry.getValue());
+      }
+      return json.append('}');
+   }
 }
@@ -0,0 +1,83 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.suppliers;
+
+import static org.jclouds.ohai.suppliers.MBeanAttributes.getPositiveNumber;
+
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.jclouds.domain.JsonBall;
+import org.jclouds.json.Json;
+import org.jclouds.ohai.Freshness;
+import org.jclouds.ohai.Freshness.Policy;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+
+/**
+ * Number of buffers and memory used by the direct and mapped buffer pools of
+ * the JVM, in bytes.
+ * <p>
+ * The pools are read from the platform MBean server, so no pools are reported
+ * in the JVMs that do not register them.
+ */
+@Singleton
+@Freshness(Policy.LIVE)
+public class BufferPoolsSupplier implements Supplier<JsonBall> {
+
+   private final Json json;
+   private final MBeanServer server;
+   private final ObjectName pools;
+
+   @Inject
+   BufferPoolsSupplier(Json json, MBeanServer server) {
+      this.json = json;
+      this.server = server;
+      try {
+         this.pools = new ObjectName("java.nio:type=BufferPool,*");
+      } catch (MalformedObjectNameException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public JsonBall get() {
+      Map<String, Object> values = Maps.newTreeMap();
+      for (ObjectName pool : server.queryNames(pools, null)) {
+         Map<String, Object> usage = Maps.newLinkedHashMap();
+         putIfPresent(usage, "count", getPositiveNumber(server, pool, "Count"));
+         putIfPresent(usage, "memory_used", getPositiveNumber(server, pool, "MemoryUsed"));
+         putIfPresent(usage, "total_capacity", getPositiveNumber(server, pool, "TotalCapacity"));
+         values.put(pool.getKeyProperty("name"), usage);
+      }
+      return new JsonBall(json.toJson(values));
+   }
+
+   private static void putIfPresent(Map<String, Object> usage, String key, Number value) {
+      if (value != null)
+         usage.put(key, value);
+   }
+}
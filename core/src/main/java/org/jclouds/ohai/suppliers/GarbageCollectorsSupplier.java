@@ -0,0 +1,63 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.suppliers;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.util.List;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.domain.JsonBall;
+import org.jclouds.json.Json;
+import org.jclouds.ohai.Freshness;
+import org.jclouds.ohai.Freshness.Policy;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+/**
+ * Number of collections and accumulated collection time of each garbage
+ * collector of the JVM.
+ */
+@Singleton
+@Freshness(Policy.LIVE)
+public class GarbageCollectorsSupplier implements Supplier<JsonBall> {
+
+   private final Json json;
+   private final List<GarbageCollectorMXBean> collectors;
+
+   @Inject
+   GarbageCollectorsSupplier(Json json, List<GarbageCollectorMXBean> collectors) {
+      this.json = json;
+      this.collectors = collectors;
+   }
+
+   @Override
+   public JsonBall get() {
+      Map<String, Object> gc = Maps.newLinkedHashMap();
+      for (GarbageCollectorMXBean collector : collectors) {
+         gc.put(collector.getName(), ImmutableMap.<String, Object> of("collection_count",
+               collector.getCollectionCount(), "collection_time_ms", collector.getCollectionTime()));
+      }
+      return new JsonBall(json.toJson(gc));
+   }
+}
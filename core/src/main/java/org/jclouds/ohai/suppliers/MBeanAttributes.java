@@ -0,0 +1,55 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.suppliers;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Reads attributes of MBeans that are not available in every JVM.
+ */
+class MBeanAttributes {
+
+   /**
+    * @return the value of the attribute, or null if the MBean does not exist
+    *         or does not have it.
+    */
+   static Object getAttribute(MBeanServer server, ObjectName name, String attribute) {
+      try {
+         return server.getAttribute(name, attribute);
+      } catch (JMException e) {
+         return null;
+      } catch (UnsupportedOperationException e) {
+         return null;
+      }
+   }
+
+   /**
+    * @return the value of the attribute if it is a positive or zero number,
+    *         or null otherwise.
+    */
+   static Number getPositiveNumber(MBeanServer server, ObjectName name, String attribute) {
+      Object value = getAttribute(server, name, attribute);
+      if (!(value instanceof Number))
+         return null;
+      double number = Number.class.cast(value).doubleValue();
+      return number >= 0 && !Double.isInfinite(number) ? Number.class.cast(value) : null;
+   }
+}
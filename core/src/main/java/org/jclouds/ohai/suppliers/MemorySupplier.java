@@ -0,0 +1,63 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.suppliers;
+
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.domain.JsonBall;
+import org.jclouds.json.Json;
+import org.jclouds.ohai.Freshness;
+import org.jclouds.ohai.Freshness.Policy;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Heap and non heap memory usage of the JVM, in bytes.
+ */
+@Singleton
+@Freshness(Policy.LIVE)
+public class MemorySupplier implements Supplier<JsonBall> {
+
+   private final Json json;
+   private final MemoryMXBean memory;
+
+   @Inject
+   MemorySupplier(Json json, MemoryMXBean memory) {
+      this.json = json;
+      this.memory = memory;
+   }
+
+   @Override
+   public JsonBall get() {
+      return new JsonBall(json.toJson(ImmutableMap.<String, Object> of("heap", usage(memory.getHeapMemoryUsage()),
+            "non_heap", usage(memory.getNonHeapMemoryUsage()), "objects_pending_finalization",
+            memory.getObjectPendingFinalizationCount())));
+   }
+
+   private static Map<String, Long> usage(MemoryUsage usage) {
+      return ImmutableMap.of("init", usage.getInit(), "used", usage.getUsed(), "committed", usage.getCommitted(),
+            "max", usage.getMax());
+   }
+}
@@ -0,0 +1,89 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.suppliers;
+
+import static org.jclouds.ohai.suppliers.MBeanAttributes.getPositiveNumber;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+import org.jclouds.domain.JsonBall;
+import org.jclouds.json.Json;
+import org.jclouds.ohai.Freshness;
+import org.jclouds.ohai.Freshness.Policy;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+
+/**
+ * Processors, load average and cpu usage of the JVM process and the system.
+ * <p>
+ * The cpu attributes are read from the platform MBean server, as they are
+ * only available in some JVMs, and are left out when the JVM does not provide
+ * them.
+ */
+@Singleton
+@Freshness(Policy.LIVE)
+public class OperatingSystemSupplier implements Supplier<JsonBall> {
+
+   private final Json json;
+   private final OperatingSystemMXBean os;
+   private final MBeanServer server;
+   private final ObjectName name;
+
+   @Inject
+   OperatingSystemSupplier(Json json, OperatingSystemMXBean os, MBeanServer server) {
+      this.json = json;
+      this.os = os;
+      this.server = server;
+      try {
+         this.name = new ObjectName(ManagementFactory.OPERATING_SYSTEM_MXBEAN_NAME);
+      } catch (MalformedObjectNameException e) {
+         throw Throwables.propagate(e);
+      }
+   }
+
+   @Override
+   public JsonBall get() {
+      Map<String, Object> values = Maps.newLinkedHashMap();
+      values.put("available_processors", os.getAvailableProcessors());
+      double loadAverage = os.getSystemLoadAverage();
+      if (loadAverage >= 0)
+         values.put("load_average", loadAverage);
+      Number processCpuTime = getPositiveNumber(server, name, "ProcessCpuTime");
+      if (processCpuTime != null)
+         values.put("process_cpu_time_ms", TimeUnit.NANOSECONDS.toMillis(processCpuTime.longValue()));
+      Number processCpuLoad = getPositiveNumber(server, name, "ProcessCpuLoad");
+      if (processCpuLoad != null)
+         values.put("process_cpu_load", processCpuLoad);
+      Number systemCpuLoad = getPositiveNumber(server, name, "SystemCpuLoad");
+      if (systemCpuLoad != null)
+         values.put("system_cpu_load", systemCpuLoad);
+      return new JsonBall(json.toJson(values));
+   }
+}
@@ -0,0 +1,72 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.suppliers;
+
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.jclouds.domain.JsonBall;
+import org.jclouds.json.Json;
+import org.jclouds.ohai.Freshness;
+import org.jclouds.ohai.Freshness.Policy;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.Maps;
+
+/**
+ * Thread counts of the JVM and, when thread cpu time measurement is enabled,
+ * the cpu time used by the live threads.
+ */
+@Singleton
+@Freshness(Policy.LIVE)
+public class ThreadsSupplier implements Supplier<JsonBall> {
+
+   private final Json json;
+   private final ThreadMXBean threads;
+
+   @Inject
+   ThreadsSupplier(Json json, ThreadMXBean threads) {
+      this.json = json;
+      this.threads = threads;
+   }
+
+   @Override
+   public JsonBall get() {
+      Map<String, Object> values = Maps.newLinkedHashMap();
+      values.put("count", threads.getThreadCount());
+      values.put("daemon_count", threads.getDaemonThreadCount());
+      values.put("peak_count", threads.getPeakThreadCount());
+      values.put("total_started_count", threads.getTotalStartedThreadCount());
+      if (threads.isThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled()) {
+         long cpuTime = 0;
+         for (long id : threads.getAllThreadIds()) {
+            long threadCpuTime = threads.getThreadCpuTime(id);
+            // threads that died in the meantime report -1
+            if (threadCpuTime > 0)
+               cpuTime += threadCpuTime;
+         }
+         values.put("cpu_time_ms", TimeUnit.NANOSECONDS.toMillis(cpuTime));
+      }
+      return new JsonBall(json.toJson(values));
+   }
+}
@@ -24,6 +24,8 @@ import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.domain.JsonBall;
+import org.jclouds.ohai.Freshness;
+import org.jclouds.ohai.Freshness.Policy;
 
 import com.google.common.base.Supplier;
 
@@ -32,6 +34,7 @@ import com.google.common.base.Supplier;
  * @author Adrian Cole
  */
 @Singleton
+@Freshness(Policy.LIVE)
 public class UptimeSecondsSupplier implements Supplier<JsonBall> {
 
    @Inject
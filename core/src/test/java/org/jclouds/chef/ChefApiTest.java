@@ -25,16 +25,19 @@ import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 
 import org.jclouds.Constants;
+import org.jclouds.Fallbacks.EmptyMapOnNotFoundOr404;
 import org.jclouds.Fallbacks.EmptySetOnNotFoundOr404;
 import org.jclouds.Fallbacks.FalseOnNotFoundOr404;
 import org.jclouds.Fallbacks.NullOnNotFoundOr404;
 import org.jclouds.Fallbacks.VoidOnNotFoundOr404;
 import org.jclouds.apis.ApiMetadata;
 import org.jclouds.chef.config.ChefHttpApiModule;
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.chef.domain.CookbookVersion;
 import org.jclouds.chef.domain.DatabagItem;
 import org.jclouds.chef.domain.Node;
@@ -44,12 +47,18 @@ import org.jclouds.chef.filters.SignedHeaderAuth;
 import org.jclouds.chef.filters.SignedHeaderAuthTest;
 import org.jclouds.chef.functions.ParseCookbookDefinitionCheckingChefVersion;
 import org.jclouds.chef.functions.ParseCookbookVersionsCheckingChefVersion;
+import org.jclouds.chef.functions.ParseCookbookVersionsOfAllCookbooksFromJson;
 import org.jclouds.chef.functions.ParseKeySetFromJson;
+import org.jclouds.chef.functions.ParseNodeFromJson;
+import org.jclouds.chef.functions.ParsePartialSearchFromJson;
+import org.jclouds.chef.functions.ParseRawNodeFromJson;
 import org.jclouds.chef.functions.ParseSearchClientsFromJson;
 import org.jclouds.chef.functions.ParseSearchDatabagFromJson;
 import org.jclouds.chef.functions.ParseSearchNodesFromJson;
+import org.jclouds.chef.functions.ParseSearchRawDatabagFromJson;
 import org.jclouds.chef.functions.ParseSearchRolesFromJson;
 import org.jclouds.chef.options.CreateClientOptions;
+import org.jclouds.chef.options.NodeProjection;
 import org.jclouds.chef.options.SearchOptions;
 import org.jclouds.date.TimeStamp;
 import org.jclouds.fallbacks.MapHttp4xxCodesToExceptions;
@@ -68,6 +77,7 @@ import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.Invokable;
 import com.google.inject.Module;
@@ -99,6 +109,26 @@ public class ChefApiTest extends BaseAsyncApiTest<ChefApi> {
 
    }
 
+   public void testCreateUploadSandbox() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "createUploadSandbox", Set.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList
+            .<Object> of(ImmutableSet.of(Checksum.fromHex("0189e76ccc476701d6b374e5a1a27347"),
+                  Checksum.fromHex("0c5ecd7788cf4f6c7de2a57193897a6c"),
+                  Checksum.fromHex("1dda05ed139664f1f89b9dec482b77c0")))));
+      assertRequestLineEquals(httpRequest, "POST http://localhost:4000/sandboxes HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest,
+            "{\"checksums\":{\"0189e76ccc476701d6b374e5a1a27347\":null,\"0c5ecd7788cf4f6c7de2a57193897a6c\":null,"
+                  + "\"1dda05ed139664f1f89b9dec482b77c0\":null}}", "application/json", false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParseJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, null);
+
+      checkFilters(httpRequest);
+   }
+
    public void testGetUploadSandboxForChecksums() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(ChefApi.class, "getUploadSandboxForChecksums", Set.class);
       GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList
@@ -231,6 +261,23 @@ public class ChefApiTest extends BaseAsyncApiTest<ChefApi> {
 
    }
 
+   public void testListVersionsOfCookbooks() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "listVersionsOfCookbooks");
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList.of()));
+
+      assertRequestLineEquals(httpRequest, "GET http://localhost:4000/cookbooks?num_versions=all HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, null, null, false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParseCookbookVersionsOfAllCookbooksFromJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, EmptyMapOnNotFoundOr404.class);
+
+      checkFilters(httpRequest);
+
+   }
+
    public void testApiExists() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(ChefApi.class, "clientExists", String.class);
       GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList.<Object> of("api")));
@@ -364,6 +411,39 @@ public class ChefApiTest extends BaseAsyncApiTest<ChefApi> {
 
    }
 
+   public void testGetNodeWithProjection() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "getNode", String.class, NodeProjection.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method,
+            ImmutableList.<Object> of("node", NodeProjection.Builder.skip("automatic"))));
+      assertRequestLineEquals(httpRequest, "GET http://localhost:4000/nodes/node HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, null, null, false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParseNodeFromJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, NullOnNotFoundOr404.class);
+
+      checkFilters(httpRequest);
+
+   }
+
+   public void testGetRawNode() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "getRawNode", String.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList.<Object> of("node")));
+      assertRequestLineEquals(httpRequest, "GET http://localhost:4000/nodes/node HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, null, null, false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParseRawNodeFromJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, NullOnNotFoundOr404.class);
+
+      checkFilters(httpRequest);
+
+   }
+
    public void testCreateNode() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(ChefApi.class, "createNode", Node.class);
       GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method,
@@ -855,6 +935,43 @@ public class ChefApiTest extends BaseAsyncApiTest<ChefApi> {
 
    }
 
+   public void testStreamSearch() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "streamSearch", String.class, SearchOptions.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method,
+            ImmutableList.<Object> of("node", SearchOptions.Builder.query("foo:foo").start(3))));
+
+      assertRequestLineEquals(httpRequest, "GET http://localhost:4000/search/node?q=foo%3Afoo&start=3 HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, null, null, false);
+
+      assertResponseParserClassEquals(method, httpRequest, ReturnInputStream.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, MapHttp4xxCodesToExceptions.class);
+
+      checkFilters(httpRequest);
+
+   }
+
+   public void testSearchNodesWithProjection() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "searchNodes", SearchOptions.class, NodeProjection.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method,
+            ImmutableList.<Object> of(SearchOptions.Builder.query("foo:foo").start(3),
+                  NodeProjection.Builder.only("automatic", "ohai_time"))));
+
+      assertRequestLineEquals(httpRequest, "GET http://localhost:4000/search/node?q=foo%3Afoo&start=3 HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, null, null, false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParseSearchNodesFromJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, MapHttp4xxCodesToExceptions.class);
+
+      checkFilters(httpRequest);
+
+   }
+
    public void testSearchDatabag() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(ChefApi.class, "searchDatabag", String.class);
       GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList.<Object> of("foo")));
@@ -890,6 +1007,44 @@ public class ChefApiTest extends BaseAsyncApiTest<ChefApi> {
 
    }
 
+   public void testSearchRawDatabagWithOptions() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "searchRawDatabag", String.class, SearchOptions.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method,
+            ImmutableList.<Object> of("foo", SearchOptions.Builder.query("bar").sort("name DESC"))));
+
+      assertRequestLineEquals(httpRequest, "GET http://localhost:4000/search/foo?q=bar&sort=name%20DESC HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, null, null, false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParseSearchRawDatabagFromJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, MapHttp4xxCodesToExceptions.class);
+
+      checkFilters(httpRequest);
+
+   }
+
+   public void testPartialSearchWithOptions() throws SecurityException, NoSuchMethodException, IOException {
+      Invokable<?, ?> method = method(ChefApi.class, "partialSearch", String.class, Map.class, SearchOptions.class);
+      GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method, ImmutableList.<Object> of("node",
+            ImmutableMap.of("name", ImmutableList.of("name"), "kernel", ImmutableList.of("kernel", "release")),
+            SearchOptions.Builder.query("role:web"))));
+
+      assertRequestLineEquals(httpRequest, "POST http://localhost:4000/search/node?q=role%3Aweb HTTP/1.1");
+      assertNonPayloadHeadersEqual(httpRequest, "Accept: application/json\nX-Chef-Version: " + ChefApi.VERSION
+            + "-test\n");
+      assertPayloadEquals(httpRequest, "{\"name\":[\"name\"],\"kernel\":[\"kernel\",\"release\"]}",
+            "application/json", false);
+
+      assertResponseParserClassEquals(method, httpRequest, ParsePartialSearchFromJson.class);
+      assertSaxResponseParserClassEquals(method, null);
+      assertFallbackClassEquals(method, MapHttp4xxCodesToExceptions.class);
+
+      checkFilters(httpRequest);
+
+   }
+
    public void testGetResourceContents() throws SecurityException, NoSuchMethodException, IOException {
       Invokable<?, ?> method = method(ChefApi.class, "getResourceContents", Resource.class);
       GeneratedHttpRequest httpRequest = processor.apply(Invocation.create(method,
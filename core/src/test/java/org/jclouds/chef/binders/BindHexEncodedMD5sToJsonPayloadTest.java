@@ -19,6 +19,7 @@
 package org.jclouds.chef.binders;
 
 import static com.google.common.io.BaseEncoding.base16;
+import static com.google.common.primitives.Bytes.asList;
 import static org.testng.Assert.assertEquals;
 
 import java.io.File;
@@ -27,6 +28,7 @@ import javax.ws.rs.HttpMethod;
 
 import org.jclouds.chef.ChefApi;
 import org.jclouds.chef.config.ChefParserModule;
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.json.config.GsonModule;
 import org.jclouds.rest.annotations.ApiVersion;
@@ -66,6 +68,27 @@ public class BindHexEncodedMD5sToJsonPayloadTest {
       assertEquals(request.getPayload().getRawContent(), "{\"checksums\":{\"abddef\":null,\"1234\":null}}");
    }
 
+   public void testChecksums() {
+      HttpRequest request = HttpRequest.builder().method(HttpMethod.POST).endpoint("http://localhost").build();
+      binder.bindToRequest(request, ImmutableSet.of(Checksum.fromHex("0189e76ccc476701d6b374e5a1a27347"),
+            Checksum.fromHex("0C5ECD7788CF4F6C7DE2A57193897A6C")));
+      assertEquals(request.getPayload().getRawContent(), "{\"checksums\":{\"0189e76ccc476701d6b374e5a1a27347\":null,"
+            + "\"0c5ecd7788cf4f6c7de2a57193897a6c\":null}}");
+   }
+
+   public void testByteLists() {
+      HttpRequest request = HttpRequest.builder().method(HttpMethod.POST).endpoint("http://localhost").build();
+      binder.bindToRequest(request,
+            ImmutableSet.of(asList(base16().lowerCase().decode("0189e76ccc476701d6b374e5a1a27347"))));
+      assertEquals(request.getPayload().getRawContent(), "{\"checksums\":{\"0189e76ccc476701d6b374e5a1a27347\":null}}");
+   }
+
+   public void testEmpty() {
+      HttpRequest request = HttpRequest.builder().method(HttpMethod.POST).endpoint("http://localhost").build();
+      binder.bindToRequest(request, ImmutableSet.of());
+      assertEquals(request.getPayload().getRawContent(), "{\"checksums\":{}}");
+   }
+
    @Test(expectedExceptions = { NullPointerException.class, IllegalStateException.class })
    public void testNullIsBad() {
       HttpRequest request = HttpRequest.builder().method(HttpMethod.POST).endpoint("http://localhost").build();
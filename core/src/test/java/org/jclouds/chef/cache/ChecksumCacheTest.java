@@ -0,0 +1,157 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.config.ChefParserModule;
+import org.jclouds.chef.payloads.ChecksummedFilePayload;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.rest.annotations.ApiVersion;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+/**
+ * Tests behavior of {@code ChecksumCache}
+ */
+@Test(groups = { "unit" }, singleThreaded = true)
+public class ChecksumCacheTest {
+
+   private final Json json = Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+         bind(String.class).annotatedWith(ApiVersion.class).toInstance(ChefApi.VERSION);
+      }
+   }, new ChefParserModule(), new GsonModule()).getInstance(Json.class);
+
+   private File directory;
+   private File cookbook;
+
+   @BeforeMethod
+   public void createDirectories() {
+      directory = Files.createTempDir();
+      cookbook = Files.createTempDir();
+   }
+
+   @AfterMethod
+   public void deleteDirectories() {
+      delete(directory);
+      delete(cookbook);
+   }
+
+   public void testReusesTheChecksumsOfUnchangedFiles() throws IOException {
+      File recipe = write("recipes/default.rb", "package 'apache2'", 60000);
+      upload(new ChecksumCache(directory, json), "recipes/default.rb", recipe);
+
+      // same size and time, so the content is not read again
+      long lastModified = recipe.lastModified();
+      write("recipes/default.rb", "package 'apache3'", 0);
+      assertTrue(recipe.setLastModified(lastModified));
+      assertEquals(upload(new ChecksumCache(directory, json), "recipes/default.rb", recipe),
+            md5("package 'apache2'"));
+   }
+
+   public void testComputesTheChecksumsOfChangedFiles() throws IOException {
+      File recipe = write("recipes/default.rb", "package 'apache2'", 60000);
+      upload(new ChecksumCache(directory, json), "recipes/default.rb", recipe);
+
+      long lastModified = recipe.lastModified();
+      write("recipes/default.rb", "package 'nginx'", 0);
+      assertTrue(recipe.setLastModified(lastModified));
+      assertEquals(upload(new ChecksumCache(directory, json), "recipes/default.rb", recipe), md5("package 'nginx'"));
+   }
+
+   public void testDoesNotRecordRecentlyModifiedFiles() throws IOException {
+      File recipe = write("recipes/default.rb", "package 'apache2'", 0);
+      upload(new ChecksumCache(directory, json), "recipes/default.rb", recipe);
+
+      // the file could have been modified again in the same second
+      long lastModified = recipe.lastModified();
+      write("recipes/default.rb", "package 'apache3'", 0);
+      assertTrue(recipe.setLastModified(lastModified));
+      assertEquals(upload(new ChecksumCache(directory, json), "recipes/default.rb", recipe),
+            md5("package 'apache3'"));
+   }
+
+   public void testIgnoresACorruptedManifest() throws IOException {
+      File recipe = write("recipes/default.rb", "package 'apache2'", 60000);
+      ChecksumCache cache = new ChecksumCache(directory, json);
+      upload(cache, "recipes/default.rb", recipe);
+      for (File manifest : directory.listFiles())
+         Files.write("{\"recipes/default.rb\":", manifest, Charsets.UTF_8);
+
+      assertEquals(upload(cache, "recipes/default.rb", recipe), md5("package 'apache2'"));
+   }
+
+   public void testDisabledCacheWritesNothing() throws IOException {
+      File recipe = write("recipes/default.rb", "package 'apache2'", 60000);
+      ChecksumCache cache = new ChecksumCache((File) null, json);
+      assertFalse(cache.isEnabled());
+      assertEquals(upload(cache, "recipes/default.rb", recipe), md5("package 'apache2'"));
+      assertEquals(directory.list().length, 0);
+   }
+
+   /**
+    * @return the md5 of the file, as it would be uploaded.
+    */
+   private byte[] upload(ChecksumCache cache, String path, File file) {
+      ChecksumCache.Manifest manifest = cache.open(cookbook);
+      ChecksummedFilePayload payload = manifest.payloadFor(path, file);
+      byte[] md5 = payload.getMD5();
+      manifest.record(path, payload);
+      manifest.save();
+      return md5;
+   }
+
+   private File write(String path, String content, long age) throws IOException {
+      File file = new File(cookbook, path);
+      Files.createParentDirs(file);
+      Files.write(content, file, Charsets.UTF_8);
+      if (age > 0)
+         assertTrue(file.setLastModified(System.currentTimeMillis() - age));
+      return file;
+   }
+
+   private static byte[] md5(String content) {
+      return Hashing.md5().hashString(content, Charsets.UTF_8).asBytes();
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children)
+            delete(child);
+      }
+      file.delete();
+   }
+}
@@ -0,0 +1,154 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.cache;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jclouds.chef.domain.Checksum;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+
+/**
+ * Tests behavior of {@code ResourceCache}
+ */
+@Test(groups = { "unit" }, singleThreaded = true)
+public class ResourceCacheTest {
+
+   private File directory;
+
+   @BeforeMethod
+   public void createDirectory() {
+      directory = Files.createTempDir();
+   }
+
+   @AfterMethod
+   public void deleteDirectory() {
+      delete(directory);
+   }
+
+   public void testStoresAndReadsTheContent() throws IOException {
+      ResourceCache cache = new ResourceCache(directory, 1024);
+      assertNull(cache.get(md5("package 'apache2'")));
+
+      assertEquals(read(cache.put(md5("package 'apache2'"), stream("package 'apache2'"))), "package 'apache2'");
+      assertEquals(read(cache.get(md5("package 'apache2'"))), "package 'apache2'");
+      assertEquals(cache.getSize(), "package 'apache2'".length());
+   }
+
+   public void testRejectsContentWithAnotherChecksum() throws IOException {
+      ResourceCache cache = new ResourceCache(directory, 1024);
+      try {
+         cache.put(md5("package 'apache2'"), stream("package 'nginx'"));
+         fail("the content should have been rejected");
+      } catch (IOException e) {
+         // expected
+      }
+      assertNull(cache.get(md5("package 'apache2'")));
+      assertEquals(cache.getSize(), 0);
+      assertEquals(new ResourceCache(directory, 1024).getSize(), 0);
+   }
+
+   public void testEvictsTheLeastRecentlyUsedFiles() throws IOException {
+      ResourceCache cache = new ResourceCache(directory, 10);
+      Closeables.close(cache.put(md5("1234"), stream("1234")), true);
+      Closeables.close(cache.put(md5("5678"), stream("5678")), true);
+      Closeables.close(cache.get(md5("1234")), true);
+      Closeables.close(cache.put(md5("abcd"), stream("abcd")), true);
+
+      assertNull(cache.get(md5("5678")));
+      assertEquals(read(cache.get(md5("1234"))), "1234");
+      assertEquals(read(cache.get(md5("abcd"))), "abcd");
+      assertEquals(cache.getSize(), 8);
+   }
+
+   public void testKeepsTheFilesOfPreviousRuns() throws IOException {
+      ResourceCache cache = new ResourceCache(directory, 1024);
+      Closeables.close(cache.put(md5("1234"), stream("1234")), true);
+      Closeables.close(cache.put(md5("5678"), stream("5678")), true);
+
+      // the older file is evicted first when the limit is lowered
+      File older = new File(new File(directory, md5("1234").toString().substring(0, 2)), md5("1234").toString());
+      assertTrue(older.setLastModified(older.lastModified() - 60000));
+      ResourceCache restarted = new ResourceCache(directory, 6);
+      assertEquals(restarted.getSize(), 4);
+      assertNull(restarted.get(md5("1234")));
+      assertEquals(read(restarted.get(md5("5678"))), "5678");
+   }
+
+   public void testCopiesTheContentToAFile() throws IOException {
+      ResourceCache cache = new ResourceCache(directory, 1024);
+      File target = new File(directory, "copy.rb");
+      assertTrue(!cache.copyTo(md5("package 'apache2'"), target));
+
+      Closeables.close(cache.put(md5("package 'apache2'"), stream("package 'apache2'")), true);
+      assertTrue(cache.copyTo(md5("package 'apache2'"), target));
+      assertEquals(Files.toString(target, Charsets.UTF_8), "package 'apache2'");
+   }
+
+   public void testStoresAVerifiedFile() throws IOException {
+      ResourceCache cache = new ResourceCache(directory, 1024);
+      File file = new File(directory, "default.rb");
+      Files.write("package 'apache2'", file, Charsets.UTF_8);
+
+      cache.putVerified(md5("package 'apache2'"), file);
+      assertEquals(read(cache.get(md5("package 'apache2'"))), "package 'apache2'");
+      assertEquals(cache.getSize(), "package 'apache2'".length());
+      assertEquals(Files.toString(file, Charsets.UTF_8), "package 'apache2'");
+   }
+
+   private static Checksum md5(String content) {
+      return Checksum.fromBytes(Hashing.md5().hashString(content, Charsets.UTF_8).asBytes());
+   }
+
+   private static InputStream stream(String content) {
+      return new ByteArrayInputStream(content.getBytes(Charsets.UTF_8));
+   }
+
+   private static String read(InputStream content) throws IOException {
+      try {
+         return new String(ByteStreams.toByteArray(content), Charsets.UTF_8);
+      } finally {
+         Closeables.close(content, true);
+      }
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children)
+            delete(child);
+      }
+      file.delete();
+   }
+}
@@ -0,0 +1,199 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.concurrent;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.jclouds.http.HttpResponse;
+import org.jclouds.http.HttpResponseException;
+import org.jclouds.rest.ResourceNotFoundException;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests behavior of {@code AdaptiveConcurrencyLimiter}
+ */
+@Test(groups = { "unit" })
+public class AdaptiveConcurrencyLimiterTest {
+
+   public void testQueuesTasksOverTheLimit() throws Exception {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2);
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+      final CountDownLatch latch = new CountDownLatch(1);
+      try {
+         ListeningExecutorService limited = limiter.limit(executor, "node:get");
+         List<ListenableFuture<Boolean>> futures = Lists.newArrayList();
+         for (int i = 0; i < 3; i++) {
+            futures.add(limited.submit(new Callable<Boolean>() {
+               @Override
+               public Boolean call() throws Exception {
+                  latch.await();
+                  return true;
+               }
+            }));
+         }
+
+         assertEquals(limiter.getInFlight(), 2);
+         assertEquals(limiter.getQueueDepth(), 1);
+
+         latch.countDown();
+         assertEquals(Futures.allAsList(futures).get().size(), 3);
+         assertEquals(limiter.getQueueDepth(), 0);
+      } finally {
+         latch.countDown();
+         executor.shutdownNow();
+      }
+   }
+
+   public void testGrowsWhenTheLimitIsReached() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 10);
+      ListeningExecutorService limited = limiter.limit(MoreExecutors.sameThreadExecutor(), "node:get");
+      Futures.getUnchecked(limited.submit(new Callable<Boolean>() {
+         @Override
+         public Boolean call() throws Exception {
+            return true;
+         }
+      }));
+
+      assertEquals(limiter.getLimit(), 2);
+      assertEquals(limiter.getInFlight(), 0);
+   }
+
+   public void testBacksOffOnServerErrors() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 10);
+      HttpResponse response = HttpResponse.builder().statusCode(503).message("Service Unavailable").build();
+      limiter.onFailure(new HttpResponseException("unavailable", null, response), 1000);
+      assertEquals(limiter.getLimit(), 4);
+   }
+
+   public void testBacksOffOnTimeouts() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 10);
+      limiter.onFailure(new RuntimeException(new TimeoutException()), 1000);
+      assertEquals(limiter.getLimit(), 4);
+   }
+
+   public void testBacksOffOncePerRoundTrip() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 10);
+      limiter.onSuccess("node:get", 100, 1000);
+      limiter.onFailure(new TimeoutException(), 1000);
+      limiter.onFailure(new TimeoutException(), 1050);
+      assertEquals(limiter.getLimit(), 4);
+      limiter.onFailure(new TimeoutException(), 1100);
+      assertEquals(limiter.getLimit(), 2);
+   }
+
+   public void testBacksOffOnLatencySpikes() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 10);
+      long now = 0;
+      for (int i = 0; i < 20; i++)
+         limiter.onSuccess("node:get", 100, now += 1000);
+      limiter.onSuccess("node:get", 1000, now += 1000);
+      assertEquals(limiter.getLimit(), 8);
+      limiter.onSuccess("node:get", 1000, now += 1000);
+      assertEquals(limiter.getLimit(), 4);
+   }
+
+   public void testToleratesTheUsualVariance() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 10);
+      long now = 0;
+      for (int i = 0; i < 500; i++)
+         limiter.onSuccess("node:get", i % 5 == 0 ? 400 : 100 + i % 7 * 10, now += 1000);
+      assertEquals(limiter.getLimit(), 8);
+   }
+
+   public void testComparesTheLatencyOfEachOperationSeparately() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 10);
+      long now = 0;
+      for (int i = 0; i < 50; i++) {
+         limiter.onSuccess("node:list", 100, now += 1000);
+         limiter.onSuccess("content:upload", 5000, now += 1000);
+      }
+      assertEquals(limiter.getLimit(), 8);
+   }
+
+   public void testFailsTheTasksTheExecutorRejects() throws InterruptedException {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2);
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      executor.shutdown();
+
+      ListenableFuture<Boolean> future = limiter.limit(executor, "node:get").submit(new Callable<Boolean>() {
+         @Override
+         public Boolean call() throws Exception {
+            return true;
+         }
+      });
+
+      try {
+         future.get();
+         fail("the task should have been rejected");
+      } catch (ExecutionException e) {
+         assertTrue(e.getCause() instanceof RejectedExecutionException);
+      }
+      assertEquals(limiter.getInFlight(), 0);
+      assertEquals(limiter.getQueueDepth(), 0);
+   }
+
+   public void testShutdownDoesNotShutDownTheWrappedExecutor() throws Exception {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2);
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor());
+      try {
+         ListeningExecutorService limited = limiter.limit(executor, "node:get");
+         limited.shutdown();
+
+         assertTrue(limited.awaitTermination(1, TimeUnit.SECONDS));
+         assertFalse(executor.isShutdown());
+         try {
+            limited.submit(new Callable<Boolean>() {
+               @Override
+               public Boolean call() throws Exception {
+                  return true;
+               }
+            });
+            fail("the task should have been rejected");
+         } catch (RejectedExecutionException e) {
+            // expected
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testIgnoresClientErrors() {
+      AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 10);
+      limiter.onFailure(new ResourceNotFoundException(), 1000);
+      assertEquals(limiter.getLimit(), 8);
+   }
+}
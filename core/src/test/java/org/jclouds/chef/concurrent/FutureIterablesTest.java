@@ -0,0 +1,81 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.concurrent;
+
+import static org.jclouds.chef.concurrent.FutureIterables.transformStreaming;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Iterator;
+import java.util.SortedSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Range;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests behavior of {@code FutureIterables}
+ */
+@Test(groups = { "unit" })
+public class FutureIterablesTest {
+
+   private final Iterable<Integer> inputs = ContiguousSet.create(Range.closed(1, 100), DiscreteDomain.integers());
+
+   public void testTransformStreamingOnlyRequestsTheWindow() {
+      final AtomicInteger requested = new AtomicInteger();
+      Iterable<Integer> doubled = transformStreaming(inputs, new Function<Integer, Integer>() {
+         @Override
+         public Integer apply(Integer input) {
+            requested.incrementAndGet();
+            return input * 2;
+         }
+      }, MoreExecutors.sameThreadExecutor(), 10);
+
+      Iterator<Integer> iterator = doubled.iterator();
+      assertEquals(requested.get(), 0);
+      iterator.next();
+      // the window is refilled as soon as a result is consumed
+      assertEquals(requested.get(), 11);
+   }
+
+   public void testTransformStreamingReturnsAllResults() {
+      ListeningExecutorService executor = MoreExecutors.listeningDecorator(Executors.newFixedThreadPool(4));
+      try {
+         Iterable<Integer> doubled = transformStreaming(inputs, new Function<Integer, Integer>() {
+            @Override
+            public Integer apply(Integer input) {
+               return input * 2;
+            }
+         }, executor, 7);
+
+         SortedSet<Integer> results = ImmutableSortedSet.copyOf(doubled);
+         assertEquals(results.size(), 100);
+         assertEquals(results.last(), Integer.valueOf(200));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+}
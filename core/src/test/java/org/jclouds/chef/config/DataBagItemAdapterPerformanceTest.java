@@ -0,0 +1,137 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.config;
+
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.chef.config.ChefParserModule.DataBagItemAdapter;
+import org.jclouds.chef.domain.DatabagItem;
+import org.testng.Reporter;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.google.gson.Gson;
+
+/**
+ * Compares the time taken by {@code DataBagItemAdapter} to read and write
+ * databag items with the regular expression based implementation it replaced.
+ * It only runs in the benchmark profile, and reports the times in the TestNG
+ * report.
+ */
+@Test(groups = { "benchmark" }, singleThreaded = true)
+public class DataBagItemAdapterPerformanceTest {
+
+   private static final int ITERATIONS = 20;
+
+   private final DataBagItemAdapter adapter = new DataBagItemAdapter();
+   private final RegexDataBagItemAdapter regexAdapter = new RegexDataBagItemAdapter();
+
+   @DataProvider
+   public Object[][] itemSizes() {
+      return new Object[][] { { 1024 }, { 100 * 1024 }, { 5 * 1024 * 1024 } };
+   }
+
+   @Test(dataProvider = "itemSizes")
+   public void testRead(int size) {
+      final String json = item(size);
+      assertEquals(adapter.createJsonLiteralFromRawJson(json), regexAdapter.read(json));
+
+      long regex = time(new Runnable() {
+         @Override
+         public void run() {
+            regexAdapter.read(json);
+         }
+      });
+      long scan = time(new Runnable() {
+         @Override
+         public void run() {
+            adapter.createJsonLiteralFromRawJson(json);
+         }
+      });
+      report("read", size, regex, scan);
+   }
+
+   @Test(dataProvider = "itemSizes")
+   public void testWrite(int size) {
+      final DatabagItem item = adapter.createJsonLiteralFromRawJson(item(size));
+      assertEquals(adapter.toString(item), regexAdapter.write(item));
+
+      long regex = time(new Runnable() {
+         @Override
+         public void run() {
+            regexAdapter.write(item);
+         }
+      });
+      long scan = time(new Runnable() {
+         @Override
+         public void run() {
+            adapter.toString(item);
+         }
+      });
+      report("write", size, regex, scan);
+   }
+
+   private static String item(int size) {
+      StringBuilder json = new StringBuilder(size + 64).append("{\"id\":\"item1\"");
+      for (int i = 0; json.length() < size; i++)
+         json.append(",\"key").append(i).append("\":{\"value\":\"data-").append(i).append("\",\"list\":[1,2,3]}");
+      return json.append('}').toString();
+   }
+
+   private static long time(Runnable task) {
+      // warm up before measuring
+      for (int i = 0; i < ITERATIONS; i++)
+         task.run();
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++)
+         task.run();
+      return (System.nanoTime() - start) / ITERATIONS;
+   }
+
+   private static void report(String operation, int size, long regex, long scan) {
+      Reporter.log(String.format("%s of %d bytes: regex %d us, scan %d us", operation, size, regex / 1000,
+            scan / 1000));
+   }
+
+   /**
+    * The implementation that parsed the item to find its id and removed or
+    * inserted it with a regular expression.
+    */
+   private static class RegexDataBagItemAdapter {
+      private final Gson gson = new Gson();
+
+      private DatabagItem read(String text) {
+         IdHolder idHolder = gson.fromJson(text, IdHolder.class);
+         text = text.replaceFirst(String.format("\\{\"id\"[ ]?:\"%s\",", idHolder.id), "{");
+         return new DatabagItem(idHolder.id, text);
+      }
+
+      private String write(DatabagItem value) {
+         String text = value.toString();
+         IdHolder idHolder = gson.fromJson(text, IdHolder.class);
+         if (idHolder.id == null)
+            text = text.replaceFirst("\\{", String.format("{\"id\":\"%s\",", value.getId()));
+         return text;
+      }
+   }
+
+   private static class IdHolder {
+      private String id;
+   }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.domain;
+
+import static com.google.common.io.BaseEncoding.base16;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import org.testng.annotations.Test;
+
+import com.google.common.primitives.Bytes;
+
+/**
+ * Tests behavior of {@code Checksum}
+ */
+@Test(groups = { "unit" })
+public class ChecksumTest {
+
+   private static final String HEX = "0c5ecd7788cf4f6c7de2a57193897a6c";
+
+   public void testBytesAndHexAreTheSameChecksum() {
+      byte[] md5 = base16().lowerCase().decode(HEX);
+      Checksum fromBytes = Checksum.fromBytes(md5);
+      Checksum fromHex = Checksum.fromHex(HEX);
+
+      assertEquals(fromBytes, fromHex);
+      assertEquals(fromBytes.hashCode(), fromHex.hashCode());
+      assertEquals(fromBytes.toString(), HEX);
+      assertEquals(fromHex.toBytes(), md5);
+      assertEquals(Checksum.fromList(Bytes.asList(md5)), fromHex);
+      assertEquals(fromHex.toList(), Bytes.asList(md5));
+   }
+
+   public void testHexIsLowerCased() {
+      Checksum checksum = Checksum.fromHex(HEX.toUpperCase());
+      assertEquals(checksum, Checksum.fromHex(HEX));
+      assertEquals(checksum.toString(), HEX);
+   }
+
+   public void testDifferentChecksumsAreNotEqual() {
+      assertFalse(Checksum.fromHex(HEX).equals(Checksum.fromHex("1dda05ed139664f1f89b9dec482b77c0")));
+      // only the last bit differs
+      assertFalse(Checksum.fromHex(HEX).equals(Checksum.fromHex("0c5ecd7788cf4f6c7de2a57193897a6d")));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsInvalidDigits() {
+      Checksum.fromHex("0c5ecd7788cf4f6c7de2a57193897a6g");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsShortChecksums() {
+      Checksum.fromBytes(new byte[15]);
+   }
+}
@@ -0,0 +1,149 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.filters;
+
+import static com.google.common.io.BaseEncoding.base64;
+import static com.google.common.io.ByteStreams.toByteArray;
+import static org.jclouds.chef.filters.SignedHeaderAuthTest.PRIVATE_KEY;
+import static org.jclouds.chef.filters.SignedHeaderAuthTest.TIMESTAMP_ISO8601;
+import static org.jclouds.chef.filters.SignedHeaderAuthTest.USER_ID;
+import static org.testng.Assert.assertEquals;
+
+import java.io.IOException;
+import java.security.PrivateKey;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.inject.Provider;
+import javax.ws.rs.HttpMethod;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.chef.ChefApiMetadata;
+import org.jclouds.domain.Credentials;
+import org.jclouds.http.HttpException;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpUtils;
+import org.jclouds.http.internal.SignatureWire;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.RSAEncryptingPayload;
+import org.jclouds.logging.config.NullLoggingModule;
+import org.jclouds.rest.internal.BaseRestApiTest.MockModule;
+import org.testng.Reporter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.Module;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Compares the throughput of {@code SignedHeaderAuth#filter} under concurrency
+ * with the implementation that created a new cipher for each signature. It
+ * only runs in the benchmark profile, and reports the throughput in the TestNG
+ * report.
+ */
+@Test(groups = { "benchmark" }, singleThreaded = true)
+public class SignedHeaderAuthPerformanceTest {
+
+   private static final int REQUESTS_PER_THREAD = 2000;
+
+   private final HttpRequest request = HttpRequest.builder().method(HttpMethod.PUT)
+         .endpoint("http://localhost/organizations/clownco/nodes/node1").payload("{\"name\":\"node1\"}").build();
+
+   private SignedHeaderAuth filter;
+   private SignedHeaderAuth newCipherFilter;
+
+   @BeforeClass
+   protected void createFilters() {
+      Injector injector = ContextBuilder.newBuilder(new ChefApiMetadata()).credentials(USER_ID, PRIVATE_KEY)
+            .modules(ImmutableSet.<Module> of(new MockModule(), new NullLoggingModule())).buildInjector();
+      HttpUtils utils = injector.getInstance(HttpUtils.class);
+      final Supplier<PrivateKey> privateKey = injector.getInstance(Key.get(new TypeLiteral<Supplier<PrivateKey>>() {
+      }));
+      Supplier<Credentials> creds = Suppliers.ofInstance(new Credentials(USER_ID, PRIVATE_KEY));
+      Provider<String> timestamp = new Provider<String>() {
+         @Override
+         public String get() {
+            return TIMESTAMP_ISO8601;
+         }
+      };
+
+      filter = new SignedHeaderAuth(new SignatureWire(), creds, privateKey, timestamp, utils);
+      newCipherFilter = new SignedHeaderAuth(new SignatureWire(), creds, privateKey, timestamp, utils) {
+         @Override
+         public String sign(String toSign) {
+            try {
+               return base64().encode(
+                     toByteArray(new RSAEncryptingPayload(Payloads.newStringPayload(toSign), privateKey.get())));
+            } catch (IOException e) {
+               throw new HttpException("error signing request", e);
+            }
+         }
+      };
+   }
+
+   @DataProvider
+   public Object[][] threads() {
+      return new Object[][] { { 1 }, { 4 }, { 16 } };
+   }
+
+   @Test(dataProvider = "threads")
+   public void testFilterThroughput(int threads) throws Exception {
+      assertEquals(filter.filter(request).getHeaders(), newCipherFilter.filter(request).getHeaders());
+
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try {
+         // warm up before measuring
+         throughput(newCipherFilter, executor, threads);
+         throughput(filter, executor, threads);
+         Reporter.log(String.format("%d threads: new cipher %.0f requests/s, reused cipher %.0f requests/s",
+               threads, throughput(newCipherFilter, executor, threads), throughput(filter, executor, threads)));
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   private double throughput(final SignedHeaderAuth signer, ExecutorService executor, int threads)
+         throws Exception {
+      List<Future<Void>> results = Lists.newArrayList();
+      long start = System.nanoTime();
+      for (int i = 0; i < threads; i++) {
+         results.add(executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+               for (int j = 0; j < REQUESTS_PER_THREAD; j++)
+                  signer.filter(request);
+               return null;
+            }
+         }));
+      }
+      for (Future<Void> result : results)
+         result.get();
+      return threads * REQUESTS_PER_THREAD * 1e9 / (System.nanoTime() - start);
+   }
+}
@@ -22,6 +22,7 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertEqualsNoOrder;
 import static org.testng.Assert.assertTrue;
 
+import java.io.File;
 import java.io.IOException;
 import java.security.PrivateKey;
 
@@ -31,6 +32,7 @@ import javax.ws.rs.core.HttpHeaders;
 
 import org.jclouds.ContextBuilder;
 import org.jclouds.chef.ChefApiMetadata;
+import org.jclouds.chef.payloads.ChecksummedFilePayload;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpUtils;
@@ -41,6 +43,7 @@ import org.jclouds.util.Strings2;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Joiner;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
@@ -49,6 +52,7 @@ import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.io.Files;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
@@ -163,6 +167,18 @@ public class SignedHeaderAuthTest {
             .toArray());
    }
 
+   @Test
+   void shouldReuseTheHashOfChecksummedFilePayloads() throws IOException {
+      File file = File.createTempFile("body", ".txt");
+      Files.write(BODY, file, Charsets.UTF_8);
+      ChecksummedFilePayload payload = new ChecksummedFilePayload(file);
+      assertEquals(signing_obj.hashBody(payload), HASHED_BODY);
+
+      // signing the request again must not read the file
+      assertTrue(file.delete());
+      assertEquals(signing_obj.hashBody(payload), HASHED_BODY);
+   }
+
    @Test
    void shouldNotChokeWhenSigningARequestForAResourceWithALongName() {
       StringBuilder path = new StringBuilder("nodes/");
@@ -113,7 +113,7 @@ public class ParseCookbookVersionFromJsonTest {
             new CookbookVersion(
                   "apache-chef-demo-0.0.0",
                   ImmutableSet.<Resource> of(),
-                  ImmutableSet.<Attribute> of(),
+                  ImmutableSet.<Resource> of(),
                   ImmutableSet.<Resource> of(),
                   new Metadata("Apache v2.0", "Your Name", ImmutableMap.<String, String> of(), ImmutableMap
                         .<String, String> of(), "youremail@example.com", ImmutableMap.<String, String> of(),
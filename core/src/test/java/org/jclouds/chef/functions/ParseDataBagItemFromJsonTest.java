@@ -67,4 +67,21 @@ public class ParseDataBagItemFromJsonTest {
       assertEquals(handler.apply(HttpResponse.builder().statusCode(200).message("ok").payload(json).build()), item);
       assertEquals(mapper.toJson(item), json);
    }
+
+   public void testIdIsRemovedWhenFirst() {
+      String json = "{\"id\": \"item1\", \"my_key\":{\"id\":\"nested\"}}";
+      DatabagItem item = handler.apply(HttpResponse.builder().statusCode(200).message("ok").payload(json).build());
+      assertEquals(item, new DatabagItem("item1", "{\"my_key\":{\"id\":\"nested\"}}"));
+      assertEquals(mapper.toJson(item), "{\"id\":\"item1\",\"my_key\":{\"id\":\"nested\"}}");
+   }
+
+   public void testIdIsInsertedWhenMissing() {
+      assertEquals(mapper.toJson(new DatabagItem("it\"em", "{}")), "{\"id\":\"it\\\"em\"}");
+      assertEquals(mapper.toJson(new DatabagItem("item1", "{\"a\":[\"{\"]}")), "{\"id\":\"item1\",\"a\":[\"{\"]}");
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testIncorrectIdIsRejected() {
+      mapper.toJson(new DatabagItem("item1", "{\"id\":\"item2\"}"));
+   }
 }
@@ -21,11 +21,13 @@ package org.jclouds.chef.functions;
 import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.Collections;
 
 import org.jclouds.chef.ChefApi;
 import org.jclouds.chef.config.ChefParserModule;
 import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.options.NodeProjection;
 import org.jclouds.domain.JsonBall;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.functions.ParseJson;
@@ -35,6 +37,7 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.gson.stream.JsonReader;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -74,4 +77,26 @@ public class ParseNodeFromJsonTest {
             handler.apply(HttpResponse.builder().statusCode(200).message("ok")
                   .payload(ParseCookbookVersionFromJsonTest.class.getResourceAsStream("/node.json")).build()), node);
    }
+
+   public void testProjectionSkipsAttributes() throws IOException {
+      String json = "{\"name\":\"node1\",\"normal\":{\"tomcat6\":{\"ssl_port\":8433}},\"override\":{},"
+            + "\"automatic\":{\"kernel\":{\"release\":\"3.2.0\"},\"ohai_time\":1.3589E9},"
+            + "\"run_list\":[\"recipe[java]\"]}";
+      NodeProjection projection = NodeProjection.Builder.skip("normal").only("automatic", "ohai_time");
+
+      Node node = ParseNodeFromJson.read(new JsonReader(new StringReader(json)), projection);
+
+      assertEquals(node, new Node("node1", ImmutableMap.<String, JsonBall> of(), ImmutableMap.<String, JsonBall> of(),
+            ImmutableMap.<String, JsonBall> of(), ImmutableMap.<String, JsonBall> of("ohai_time", new JsonBall(
+                  "1.3589E9")), Collections.singleton("recipe[java]"), null));
+   }
+
+   public void testWithoutProjectionKeepsAllAttributes() {
+      ParseNodeFromJson parser = new ParseNodeFromJson().setContext(null);
+      assertEquals(
+            parser.apply(HttpResponse.builder().statusCode(200).message("ok")
+                  .payload(ParseCookbookVersionFromJsonTest.class.getResourceAsStream("/node.json")).build()),
+            handler.apply(HttpResponse.builder().statusCode(200).message("ok")
+                  .payload(ParseCookbookVersionFromJsonTest.class.getResourceAsStream("/node.json")).build()));
+   }
 }
@@ -0,0 +1,75 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.config.ChefParserModule;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.domain.JsonBall;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.rest.annotations.ApiVersion;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Iterables;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+/**
+ * Tests behavior of {@code ParsePartialSearchFromJson}
+ */
+@Test(groups = { "unit" })
+public class ParsePartialSearchFromJsonTest {
+   private ParsePartialSearchFromJson handler;
+
+   @BeforeTest
+   protected void setUpInjector() throws IOException {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(String.class).annotatedWith(ApiVersion.class).toInstance(ChefApi.VERSION);
+         }
+      }, new ChefParserModule(), new GsonModule());
+
+      handler = injector.getInstance(ParsePartialSearchFromJson.class);
+   }
+
+   public void testParsePartialSearch() {
+      String searchJson = "{\"total\":2,\"start\":0,\"rows\":["
+            + "{\"url\":\"http://localhost:4000/nodes/web1\",\"data\":{\"name\":\"web1\",\"ip\":\"10.0.0.1\"}},"
+            + "{\"url\":\"http://localhost:4000/nodes/web2\",\"data\":{\"name\":\"web2\",\"ip\":null}}]}";
+      SearchResult<Map<String, JsonBall>> result = handler.apply(HttpResponse.builder().statusCode(200).message("ok")
+            .payload(searchJson).build());
+
+      assertEquals(result.size(), 2);
+      assertEquals(result.getTotal(), 2);
+      Map<String, JsonBall> first = result.iterator().next();
+      assertEquals(first.get("name").toString(), "\"web1\"");
+      assertEquals(first.get("ip").toString(), "\"10.0.0.1\"");
+      assertNull(Iterables.getLast(result).get("ip"));
+   }
+}
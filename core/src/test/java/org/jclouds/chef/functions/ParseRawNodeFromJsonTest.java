@@ -0,0 +1,70 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.util.Collections;
+
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.RawNode;
+import org.jclouds.domain.JsonBall;
+import org.jclouds.http.HttpResponse;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Tests behavior of {@code ParseRawNodeFromJson}
+ */
+@Test(groups = { "unit" })
+public class ParseRawNodeFromJsonTest {
+
+   private final ParseRawNodeFromJson handler = new ParseRawNodeFromJson();
+
+   public void testConvertsToNode() {
+      Node node = new Node("adrian-jcloudstest", ImmutableMap.<String, JsonBall> of("tomcat6", new JsonBall(
+            "{\"ssl_port\":8433}")), ImmutableMap.<String, JsonBall> of(), ImmutableMap.<String, JsonBall> of(),
+            ImmutableMap.<String, JsonBall> of(), Collections.singleton("recipe[java]"), "prod");
+
+      RawNode raw = handler.apply(HttpResponse.builder().statusCode(200).message("ok")
+            .payload(ParseRawNodeFromJsonTest.class.getResourceAsStream("/node.json")).build());
+      assertEquals(raw.getName(), "adrian-jcloudstest");
+      assertEquals(raw.getRunList(), ImmutableList.of("recipe[java]"));
+      assertEquals(raw.toNode(), node);
+   }
+
+   public void testAttributeLookup() {
+      String json = "{\"name\":\"node1\",\"run_list\":[],\"automatic\":{\"kernel\":{\"release\":\"3.2.0\"},"
+            + "\"network\":{\"interfaces\":{\"lo\":{\"mtu\":16436},"
+            + "\"eth0\":{\"addresses\":[\"10.0.0.2\",{\"a\":\"}\"}]}}},\"ohai_time\":1.3589E9}}";
+      RawNode node = handler.apply(HttpResponse.builder().statusCode(200).message("ok").payload(json).build());
+
+      assertEquals(node.attribute("automatic", "kernel/release"), new JsonBall("\"3.2.0\""));
+      assertEquals(node.attribute("automatic", "network/interfaces/eth0/addresses/1"), new JsonBall("{\"a\":\"}\"}"));
+      assertEquals(node.attribute("automatic", "ohai_time"), new JsonBall("1.3589E9"));
+      assertNull(node.attribute("automatic", "network/interfaces/eth1"));
+      assertNull(node.attribute("automatic", "kernel/release/name"));
+      assertNull(node.attribute("normal", "kernel"));
+      assertEquals(ImmutableList.copyOf(node.getAutomatic().keySet()),
+            ImmutableList.of("kernel", "network", "ohai_time"));
+   }
+}
@@ -64,4 +64,19 @@ public class ParseSearchDataBagItemFromJsonTest {
       assertEquals(result.size(), 1);
       assertEquals(result.iterator().next(), item);
    }
+
+   public void testIdIsNotTheFirstField() {
+      String searchJson = "{\"rows\":[{\"raw_data\": {\"count\":1.50, \"id\":\"item2\",\"tags\":[\"a\",null,true]}}]}";
+      SearchResult<DatabagItem> result = handler.apply(HttpResponse.builder().statusCode(200).message("ok")
+            .payload(searchJson).build());
+      assertEquals(result.iterator().next(), new DatabagItem("item2", "{\"count\":1.50,\"tags\":[\"a\",null,true]}"));
+   }
+
+   public void testParseTotal() {
+      String searchJson = "{\"total\":3,\"start\":2,\"rows\":[{\"raw_data\": {\"id\":\"item3\"}}]}";
+      SearchResult<DatabagItem> result = handler.apply(HttpResponse.builder().statusCode(200).message("ok")
+            .payload(searchJson).build());
+      assertEquals(result.getStart(), 2);
+      assertEquals(result.getTotal(), 3);
+   }
 }
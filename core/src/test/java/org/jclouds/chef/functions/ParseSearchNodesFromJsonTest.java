@@ -0,0 +1,90 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.config.ChefParserModule;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.functions.ParseSearchResultFromJson.RowHandler;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.rest.annotations.ApiVersion;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+/**
+ * Tests behavior of {@code ParseSearchNodesFromJson}
+ */
+@Test(groups = { "unit" })
+public class ParseSearchNodesFromJsonTest {
+   private static final String SEARCH_JSON = "{\"total\":10,\"start\":4,\"rows\":["
+         + "{\"name\":\"node1\",\"run_list\":[\"recipe[java]\"],\"json_class\":\"Chef::Node\"},"
+         + "{\"name\":\"node2\",\"automatic\":{\"kernel\":{\"name\":\"Linux\"}},\"json_class\":\"Chef::Node\"}"
+         + "],\"unknown\":{\"ignored\":[1,2,3]}}";
+
+   private ParseSearchNodesFromJson handler;
+
+   @BeforeTest
+   protected void setUpInjector() throws IOException {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(String.class).annotatedWith(ApiVersion.class).toInstance(ChefApi.VERSION);
+         }
+      }, new ChefParserModule(), new GsonModule());
+
+      handler = injector.getInstance(ParseSearchNodesFromJson.class);
+   }
+
+   public void testParseSearchResult() {
+      SearchResult<Node> result = handler.apply(HttpResponse.builder().statusCode(200).message("ok")
+            .payload(SEARCH_JSON).build());
+      assertEquals(result.getStart(), 4);
+      assertEquals(result.getTotal(), 10);
+      assertEquals(result.size(), 2);
+      assertEquals(result.iterator().next().getRunList(), ImmutableList.of("recipe[java]"));
+   }
+
+   public void testParseRowsWithHandler() {
+      final List<String> names = Lists.newArrayList();
+      long total = handler.parse(new ByteArrayInputStream(SEARCH_JSON.getBytes(Charsets.UTF_8)),
+            new RowHandler<Node>() {
+               @Override
+               public void handle(Node row) {
+                  names.add(row.getName());
+               }
+            });
+      assertEquals(total, 10);
+      assertEquals(names, ImmutableList.of("node1", "node2"));
+   }
+}
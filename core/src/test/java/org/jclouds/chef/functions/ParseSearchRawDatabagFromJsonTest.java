@@ -0,0 +1,66 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.functions;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Iterator;
+
+import org.jclouds.chef.domain.DatabagItem;
+import org.jclouds.chef.domain.RawDatabagItem;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.http.HttpResponse;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Tests behavior of {@code ParseSearchRawDatabagFromJson}
+ */
+@Test(groups = { "unit" })
+public class ParseSearchRawDatabagFromJsonTest {
+   private final ParseSearchRawDatabagFromJson handler = new ParseSearchRawDatabagFromJson();
+
+   public void testCopiesItemWithoutId() {
+      String searchJson = "{\"total\":3,\"start\":1,\"rows\":[{\"raw_data\": {\"my_key\":\"my_data\","
+            + " \"id\" : \"item1\", \"nested\":{\"list\":[1, 2.50, \"a}b\\\"\"]}}, \"data_bag\":\"bag\"}, null]}";
+      SearchResult<RawDatabagItem> result = parse(searchJson);
+
+      assertEquals(result.getStart(), 1);
+      assertEquals(result.getTotal(), 3);
+      assertEquals(result.size(), 1);
+      RawDatabagItem item = result.iterator().next();
+      assertEquals(item.getId(), "item1");
+      assertEquals(new String(item.getRawData(), Charsets.UTF_8),
+            "{\"my_key\":\"my_data\",\"nested\":{\"list\":[1, 2.50, \"a}b\\\"\"]}}");
+   }
+
+   public void testConvertsToDatabagItem() {
+      String searchJson = "{\"rows\":[{\"raw_data\":{\"id\":\"caf\\u00e9\",\"name\":\"caf\u00e9\"}},"
+            + "{\"raw_data\":{\"id\":\"item2\"}}]}";
+      Iterator<RawDatabagItem> items = parse(searchJson).iterator();
+
+      assertEquals(items.next().toDatabagItem(), new DatabagItem("caf\u00e9", "{\"name\":\"caf\u00e9\"}"));
+      assertEquals(items.next().toDatabagItem(), new DatabagItem("item2", "{}"));
+   }
+
+   private SearchResult<RawDatabagItem> parse(String json) {
+      return handler.apply(HttpResponse.builder().statusCode(200).message("ok").payload(json).build());
+   }
+}
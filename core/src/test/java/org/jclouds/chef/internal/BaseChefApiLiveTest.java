@@ -32,11 +32,11 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collections;
-import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 
 import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.Checksum;
 import org.jclouds.chef.domain.ChecksumStatus;
 import org.jclouds.chef.domain.Client;
 import org.jclouds.chef.domain.CookbookVersion;
@@ -49,9 +49,8 @@ import org.jclouds.chef.domain.SearchResult;
 import org.jclouds.chef.domain.UploadSandbox;
 import org.jclouds.chef.options.CreateClientOptions;
 import org.jclouds.chef.options.SearchOptions;
+import org.jclouds.chef.payloads.ChecksummedFilePayload;
 import org.jclouds.crypto.Pems;
-import org.jclouds.io.Payloads;
-import org.jclouds.io.payloads.FilePayload;
 import org.jclouds.rest.ResourceNotFoundException;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
@@ -60,7 +59,6 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Closeables;
-import com.google.common.primitives.Bytes;
 
 /**
  * Tests behavior of {@code ChefApi}
@@ -82,24 +80,24 @@ public abstract class BaseChefApiLiveTest<A extends ChefApi> extends BaseChefLiv
    public void testCreateNewCookbook() throws Exception {
 
       // define the file you want in the cookbook
-      FilePayload content = Payloads.newFilePayload(new File(System.getProperty("user.dir"), "pom.xml"));
+      ChecksummedFilePayload content = new ChecksummedFilePayload(new File(System.getProperty("user.dir"), "pom.xml"));
       content.getContentMetadata().setContentType("application/x-binary");
 
-      // get an md5 so that you can see if the server already has it or not
-      Payloads.calculateMD5(content);
-
+      // get an md5 so that you can see if the server already has it or not.
+      // The file is read once to compute it along with the hash used to sign
+      // the upload.
       // Note that java collections cannot effectively do equals or hashcodes on
       // byte arrays,
-      // so let's convert to a list of bytes.
-      List<Byte> md5 = Bytes.asList(content.getContentMetadata().getContentMD5());
+      // so let's convert to a checksum.
+      Checksum md5 = Checksum.fromBytes(content.getMD5());
 
       // request an upload site for this file
-      UploadSandbox site = api.getUploadSandboxForChecksums(ImmutableSet.of(md5));
+      UploadSandbox site = api.createUploadSandbox(ImmutableSet.of(md5));
 
       try {
-         assert site.getChecksums().containsKey(md5) : md5 + " not in " + site.getChecksums();
+         assert site.getChecksumStatuses().containsKey(md5) : md5 + " not in " + site.getChecksumStatuses();
 
-         ChecksumStatus status = site.getChecksums().get(md5);
+         ChecksumStatus status = site.getChecksumStatuses().get(md5);
          if (status.needsUpload()) {
             // context.utils().http().put(status.getUrl(), content);
             api.uploadContent(status.getUrl(), content);
@@ -0,0 +1,101 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import static org.jclouds.chef.config.ChefProperties.CHEF_METRICS_JMX;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.fail;
+
+import java.util.Properties;
+
+import org.jclouds.apis.ApiMetadata;
+import org.jclouds.chef.BaseChefApiExpectTest;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.ChefApiMetadata;
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.rest.AuthorizationException;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Function;
+import com.google.inject.Injector;
+
+/**
+ * Tests that the requests of the {@link ChefApi} are recorded in the
+ * {@link ChefApiMetrics}.
+ */
+@Test(groups = { "unit" }, testName = "ChefApiMetricsExpectTest")
+public class ChefApiMetricsExpectTest extends BaseChefApiExpectTest<ChefApi> {
+
+   public ChefApiMetricsExpectTest() {
+      provider = "chef";
+   }
+
+   public void testRecordsTheRequestsOfTheApi() {
+      Injector injector = respondWith(HttpResponse.builder().statusCode(200)
+            .payload(payloadFromStringWithContentType("{\"name\":\"node1\"}", "application/json")).build());
+
+      assertNotNull(injector.getInstance(ChefApi.class).getNode("node1"));
+
+      ChefApiMetrics metrics = injector.getInstance(ChefApiMetrics.class);
+      assertEquals(metrics.getOperation("node:get").getCount(), 1);
+      assertEquals(metrics.getOperation("node:get").getErrorCount(), 0);
+      assertEquals(metrics.getOperation(ChefApiMetrics.SIGNING).getCount(), 1);
+   }
+
+   public void testRecordsTheFailedRequestsOfTheApi() {
+      Injector injector = respondWith(HttpResponse.builder().statusCode(403).build());
+
+      try {
+         injector.getInstance(ChefApi.class).getNode("node1");
+         fail("the request should have failed");
+      } catch (AuthorizationException expected) {
+      }
+
+      ChefApiMetrics metrics = injector.getInstance(ChefApiMetrics.class);
+      assertEquals(metrics.getOperation("node:get").getCount(), 1);
+      assertEquals(metrics.getOperation("node:get").getErrorCount(), 1);
+   }
+
+   /**
+    * Creates an injector whose api gets the given response for every request,
+    * as the signature of the expected request would change with the time.
+    */
+   private Injector respondWith(final HttpResponse response) {
+      return createInjector(new Function<HttpRequest, HttpResponse>() {
+         @Override
+         public HttpResponse apply(HttpRequest input) {
+            return response;
+         }
+      }, createModule(), setupProperties());
+   }
+
+   @Override
+   protected Properties setupProperties() {
+      Properties properties = super.setupProperties();
+      properties.setProperty(CHEF_METRICS_JMX, "false");
+      return properties;
+   }
+
+   @Override
+   public ApiMetadata createApiMetadata() {
+      return new ChefApiMetadata();
+   }
+}
@@ -0,0 +1,148 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.jclouds.reflect.Reflection2.method;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.List;
+
+import javax.inject.Provider;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.reflect.Invocation;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+
+/**
+ * Tests behavior of {@code ChefApiMetrics}
+ */
+@Test(groups = { "unit" })
+public class ChefApiMetricsTest {
+
+   public void testRecordsCountsAndErrorsPerOperation() {
+      ChefApiMetrics metrics = new ChefApiMetrics(null);
+      metrics.record("node:get", 1000000, null);
+      metrics.record("node:get", 3000000, new RuntimeException());
+      metrics.record("search:nodes", 2000000, null);
+
+      assertEquals(metrics.getOperations().keySet(), ImmutableSet.of("node:get", "search:nodes"));
+      OperationMetrics nodeGet = metrics.getOperation("node:get");
+      assertEquals(nodeGet.getCount(), 2);
+      assertEquals(nodeGet.getErrorCount(), 1);
+      assertEquals(nodeGet.getMeanLatencyMillis(), 2.0);
+      assertEquals(metrics.getOperation("search:nodes").getErrorCount(), 0);
+      assertNull(metrics.getOperation("node:delete"));
+   }
+
+   public void testListenersAreNotified() {
+      final List<String> notified = Lists.newArrayList();
+      ChefApiMetrics metrics = new ChefApiMetrics(null);
+      ChefApiListener listener = new ChefApiListener() {
+         @Override
+         public void onRequest(String operation, long latencyNanos, Throwable error) {
+            notified.add(operation + "=" + (error == null ? "ok" : "error"));
+         }
+      };
+      metrics.addListener(new ChefApiListener() {
+         @Override
+         public void onRequest(String operation, long latencyNanos, Throwable error) {
+            throw new IllegalStateException("failing listeners must not affect the others");
+         }
+      });
+      metrics.addListener(listener);
+
+      metrics.record("node:get", 1000, null);
+      metrics.record("node:get", 1000, new RuntimeException());
+      metrics.removeListener(listener);
+      metrics.record("node:get", 1000, null);
+
+      assertEquals(notified, ImmutableList.of("node:get=ok", "node:get=error"));
+   }
+
+   public void testOperationsArePublishedUntilClosed() throws Exception {
+      MBeanServer server = MBeanServerFactory.newMBeanServer();
+      ChefApiMetrics metrics = new ChefApiMetrics(server);
+      metrics.record("databag:item:get", 1000000, null);
+
+      ObjectName name = metrics.objectName("databag:item:get");
+      assertTrue(server.isRegistered(name));
+      assertEquals(server.getAttribute(name, "Count"), 1L);
+      assertEquals(server.getAttribute(name, "ErrorCount"), 0L);
+
+      metrics.close();
+      assertFalse(server.isRegistered(name));
+   }
+
+   public void testInterceptorRecordsNamedApiMethods() throws Throwable {
+      ChefApiMetrics metrics = new ChefApiMetrics(null);
+      RecordChefApiMetrics interceptor = new RecordChefApiMetrics(provider(metrics));
+      Node node = new Node("foo", ImmutableSet.<String> of());
+
+      MethodInvocation getNode = createMock(MethodInvocation.class);
+      expect(getNode.getArguments()).andReturn(
+            new Object[] { Invocation.create(method(ChefApi.class, "getNode", String.class),
+                  ImmutableList.<Object> of("foo")) });
+      expect(getNode.proceed()).andReturn(node);
+      MethodInvocation deleteNode = createMock(MethodInvocation.class);
+      expect(deleteNode.getArguments()).andReturn(
+            new Object[] { Invocation.create(method(ChefApi.class, "deleteNode", String.class),
+                  ImmutableList.<Object> of("foo")) });
+      expect(deleteNode.proceed()).andThrow(new IllegalStateException("server error"));
+      replay(getNode, deleteNode);
+
+      assertEquals(interceptor.invoke(getNode), node);
+      try {
+         interceptor.invoke(deleteNode);
+         fail("the error should be propagated");
+      } catch (IllegalStateException e) {
+         // expected
+      }
+
+      assertEquals(metrics.getOperation("node:get").getCount(), 1);
+      assertEquals(metrics.getOperation("node:get").getErrorCount(), 0);
+      assertEquals(metrics.getOperation("node:delete").getErrorCount(), 1);
+      verify(getNode, deleteNode);
+   }
+
+   private static Provider<ChefApiMetrics> provider(final ChefApiMetrics metrics) {
+      return new Provider<ChefApiMetrics>() {
+         @Override
+         public ChefApiMetrics get() {
+            return metrics;
+         }
+      };
+   }
+}
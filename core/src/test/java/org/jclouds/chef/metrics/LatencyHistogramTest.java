@@ -0,0 +1,65 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests behavior of {@code LatencyHistogram}
+ */
+@Test(groups = { "unit" })
+public class LatencyHistogramTest {
+
+   public void testEmptyHistogramReportsZero() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      assertEquals(histogram.getCount(), 0);
+      assertEquals(histogram.getPercentile(0.99), 0);
+   }
+
+   public void testBucketsCoverEveryLatency() {
+      long previous = 0;
+      for (long micros = 0; micros < TimeUnit.DAYS.toMicros(1); micros = micros * 2 + 1) {
+         int bucket = LatencyHistogram.bucketOf(micros);
+         assertTrue(LatencyHistogram.upperBoundOf(bucket) > micros, "upper bound of " + micros);
+         assertTrue(bucket >= previous, "bucket of " + micros);
+         previous = bucket;
+      }
+   }
+
+   public void testPercentilesHaveBoundedError() {
+      LatencyHistogram histogram = new LatencyHistogram();
+      for (int i = 1; i <= 1000; i++)
+         histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+
+      assertEquals(histogram.getCount(), 1000);
+      assertWithinError(histogram.getPercentile(0.5), TimeUnit.MILLISECONDS.toNanos(500));
+      assertWithinError(histogram.getPercentile(0.99), TimeUnit.MILLISECONDS.toNanos(990));
+      assertWithinError(histogram.getPercentile(0.999), TimeUnit.MILLISECONDS.toNanos(999));
+      assertWithinError(histogram.getPercentile(1), TimeUnit.MILLISECONDS.toNanos(1000));
+   }
+
+   private static void assertWithinError(long actual, long expected) {
+      assertTrue(actual >= expected && actual <= expected * 1.125, actual + " should be close to " + expected);
+   }
+}
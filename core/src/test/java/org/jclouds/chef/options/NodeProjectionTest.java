@@ -0,0 +1,56 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.options;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests behavior of {@code NodeProjection}
+ */
+@Test(groups = { "unit" })
+public class NodeProjectionTest {
+
+   public void testSelectionReturnsANewProjection() {
+      NodeProjection skipNormal = NodeProjection.Builder.skip("normal");
+      NodeProjection onlyOhaiTime = skipNormal.only("automatic", "ohai_time");
+
+      assertTrue(skipNormal.includes("automatic", "uptime_seconds"));
+      assertFalse(onlyOhaiTime.includes("automatic", "uptime_seconds"));
+      assertTrue(onlyOhaiTime.includes("automatic", "ohai_time"));
+      assertFalse(onlyOhaiTime.includes("normal"));
+      assertEquals(skipNormal, NodeProjection.Builder.skip("normal"));
+   }
+
+   public void testKeepsAllTheAttributesByDefault() {
+      NodeProjection all = new NodeProjection();
+      all.skip("normal");
+
+      assertTrue(all.includes("normal"));
+      assertTrue(all.includes("automatic", "ohai_time"));
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsUnknownBlocks() {
+      new NodeProjection().skip("run_list");
+   }
+}
@@ -0,0 +1,85 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.payloads;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.jclouds.chef.domain.Resource;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+
+/**
+ * Tests behavior of {@code ChecksummedFilePayload}
+ */
+@Test(groups = { "unit" })
+public class ChecksummedFilePayloadTest {
+
+   private File file;
+
+   @BeforeClass
+   public void createFile() throws IOException {
+      byte[] content = new byte[300 * 1024];
+      new Random(0).nextBytes(content);
+      file = File.createTempFile("checksummed", ".bin");
+      Files.write(content, file);
+   }
+
+   @AfterClass
+   public void deleteFile() {
+      file.delete();
+   }
+
+   public void testReadChecksums() throws IOException {
+      assertChecksums(new ChecksummedFilePayload(file));
+   }
+
+   public void testMappedChecksums() throws IOException {
+      assertChecksums(new ChecksummedFilePayload(file, 0));
+   }
+
+   public void testResourceHasTheChecksum() throws IOException {
+      Resource resource = new Resource(new ChecksummedFilePayload(file));
+      assertEquals(resource.getChecksum(), Files.hash(file, Hashing.md5()).asBytes());
+   }
+
+   public void testChecksumsOfEmptyFile() throws IOException {
+      File empty = File.createTempFile("checksummed", ".bin");
+      try {
+         ChecksummedFilePayload payload = new ChecksummedFilePayload(empty, 0);
+         assertEquals(payload.getMD5(), Hashing.md5().hashBytes(new byte[0]).asBytes());
+      } finally {
+         empty.delete();
+      }
+   }
+
+   private void assertChecksums(ChecksummedFilePayload payload) throws IOException {
+      byte[] md5 = Files.hash(file, Hashing.md5()).asBytes();
+      assertEquals(payload.getMD5(), md5);
+      assertEquals(payload.getSHA1(), Files.hash(file, Hashing.sha1()).asBytes());
+      assertEquals(payload.getContentMetadata().getContentMD5(), md5);
+   }
+}
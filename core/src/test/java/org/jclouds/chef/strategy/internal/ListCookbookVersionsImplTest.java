@@ -0,0 +1,102 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Set;
+
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.domain.CookbookVersion;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests behavior of {@code ListCookbookVersionsImpl}
+ */
+@Test(groups = { "unit" })
+public class ListCookbookVersionsImplTest {
+
+   private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100);
+
+   public void testSupportsListingAllVersions() {
+      assertFalse(ListCookbookVersionsImpl.supportsListingAllVersions("0.9.12"));
+      assertTrue(ListCookbookVersionsImpl.supportsListingAllVersions("0.10.0"));
+      assertTrue(ListCookbookVersionsImpl.supportsListingAllVersions("0.10.8"));
+      assertTrue(ListCookbookVersionsImpl.supportsListingAllVersions("11.0.0"));
+      assertTrue(ListCookbookVersionsImpl.supportsListingAllVersions("unknown"));
+   }
+
+   public void testListsAllVersionsInOneRequest() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      CookbookVersion apache1 = new CookbookVersion("apache2", "1.0.0");
+      CookbookVersion apache2 = new CookbookVersion("apache2", "2.0.0");
+      CookbookVersion nginx = new CookbookVersion("nginx", "1.0.0");
+
+      expect(chef.listVersionsOfCookbooks()).andReturn(
+            ImmutableMap.<String, Set<String>> of("apache2", ImmutableSet.of("1.0.0", "2.0.0"), "nginx",
+                  ImmutableSet.of("1.0.0")));
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(apache1);
+      expect(chef.getCookbook("apache2", "2.0.0")).andReturn(apache2);
+      expect(chef.getCookbook("nginx", "1.0.0")).andReturn(nginx);
+      replay(chef);
+
+      ListCookbookVersionsImpl strategy = new ListCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef,
+            limiter, "0.10.8");
+
+      assertEquals(ImmutableSet.copyOf(strategy.execute()), ImmutableSet.of(apache1, apache2, nginx));
+      verify(chef);
+   }
+
+   public void testListsVersionsOfEachCookbookInChef09() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      CookbookVersion apache = new CookbookVersion("apache2", "1.0.0");
+      CookbookVersion nginx = new CookbookVersion("nginx", "1.0.0");
+
+      expect(chef.listCookbooks()).andReturn(ImmutableSet.of("apache2", "nginx", "deleted"));
+      expect(chef.getVersionsOfCookbook("apache2")).andReturn(ImmutableSet.of("1.0.0"));
+      expect(chef.getVersionsOfCookbook("nginx")).andReturn(ImmutableSet.of("1.0.0"));
+      expect(chef.getVersionsOfCookbook("deleted")).andReturn(ImmutableSet.of("1.0.0"));
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(apache);
+      expect(chef.getCookbook("nginx", "1.0.0")).andReturn(nginx);
+      expect(chef.getCookbook("deleted", "1.0.0")).andReturn(null);
+      replay(chef);
+
+      ListCookbookVersionsImpl strategy = new ListCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef,
+            limiter, "0.9.12");
+
+      Iterable<? extends CookbookVersion> versions = strategy.execute();
+      // the results are materialized, so iterating again does not call the api
+      assertEquals(ImmutableSet.copyOf(versions), ImmutableSet.of(apache, nginx));
+      assertEquals(ImmutableSet.copyOf(versions), ImmutableSet.of(apache, nginx));
+      verify(chef);
+   }
+}
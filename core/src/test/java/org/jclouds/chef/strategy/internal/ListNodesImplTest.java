@@ -0,0 +1,150 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static org.easymock.EasyMock.capture;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.jclouds.chef.predicates.NamePredicates.startsWith;
+import static org.testng.Assert.assertEquals;
+
+import java.util.Set;
+
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.options.NodeProjection;
+import org.jclouds.chef.options.SearchOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests behavior of {@code ListNodesImpl}
+ */
+@Test(groups = { "unit" })
+public class ListNodesImplTest {
+
+   private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100);
+
+   public void testListWithSearchStopsAtLastPage() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      Node node1 = new Node("node1", ImmutableSet.<String> of());
+      Node node2 = new Node("node2", ImmutableSet.<String> of());
+      Node node3 = new Node("node3", ImmutableSet.<String> of());
+
+      EasyMock.<SearchResult<? extends Node>> expect(chef.searchNodes(EasyMock.anyObject(SearchOptions.class)))
+            .andReturn(new SearchResult<Node>(0, ImmutableList.of(node1, node2)))
+            .andReturn(new SearchResult<Node>(2, ImmutableList.of(node3)));
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, search(chef, 2),
+            true, 10);
+
+      assertEquals(ImmutableList.copyOf(strategy.execute()), ImmutableList.of(node1, node2, node3));
+      verify(chef);
+   }
+
+   public void testListWithSearchTranslatesPredicateToQuery() {
+      ChefApi chef = createMock(ChefApi.class);
+      Capture<SearchOptions> options = new Capture<SearchOptions>();
+
+      Node matching = new Node("web-1", ImmutableSet.<String> of());
+      Node notMatching = new Node("web1", ImmutableSet.<String> of());
+
+      EasyMock.<SearchResult<? extends Node>> expect(chef.searchNodes(capture(options))).andReturn(
+            new SearchResult<Node>(0, ImmutableList.of(matching, notMatching)));
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, search(chef, 10),
+            true, 10);
+
+      assertEquals(ImmutableList.copyOf(strategy.execute(startsWith("web-"))), ImmutableList.of(matching));
+      assertEquals(options.getValue().buildQueryParameters().get("q"), ImmutableList.of("name:web\\-*"));
+      verify(chef);
+   }
+
+   public void testListWithSearchPassesTheProjection() {
+      ChefApi chef = createMock(ChefApi.class);
+      NodeProjection projection = NodeProjection.Builder.only("automatic", "ohai_time");
+
+      Node node = new Node("web-1", ImmutableSet.<String> of());
+
+      EasyMock.<SearchResult<? extends Node>> expect(
+            chef.searchNodes(EasyMock.anyObject(SearchOptions.class), EasyMock.same(projection))).andReturn(
+            new SearchResult<Node>(0, ImmutableList.of(node)));
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, search(chef, 10),
+            true, 10);
+
+      assertEquals(ImmutableList.copyOf(strategy.execute(startsWith("web-"), projection)), ImmutableList.of(node));
+      verify(chef);
+   }
+
+   public void testListWithoutSearchGetsNodesWithTheProjection() {
+      ChefApi chef = createMock(ChefApi.class);
+      NodeProjection projection = NodeProjection.Builder.skip("normal");
+
+      Node node = new Node("web-1", ImmutableSet.<String> of());
+
+      EasyMock.<Set<String>> expect(chef.listNodes()).andReturn(ImmutableSet.of("web-1", "db-1"));
+      EasyMock.expect(chef.getNode("web-1", projection)).andReturn(node);
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, search(chef, 10),
+            false, 10);
+
+      assertEquals(ImmutableList.copyOf(strategy.execute(startsWith("web-"), projection)), ImmutableList.of(node));
+      verify(chef);
+   }
+
+   public void testStreamingListsTheNamesWhenIterated() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      Node web = new Node("web-1", ImmutableSet.<String> of());
+      Node db = new Node("db-1", ImmutableSet.<String> of());
+
+      EasyMock.<Set<String>> expect(chef.listNodes()).andReturn(ImmutableSet.of("web-1")).andReturn(
+            ImmutableSet.of("db-1"));
+      EasyMock.expect(chef.getNode("web-1")).andReturn(web);
+      EasyMock.expect(chef.getNode("db-1")).andReturn(db);
+      replay(chef);
+
+      ListNodesImpl strategy = new ListNodesImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, search(chef, 10),
+            false, 10);
+
+      // each iteration sees the nodes that exist at that time
+      Iterable<? extends Node> nodes = strategy.executeStreaming();
+      assertEquals(ImmutableList.copyOf(nodes), ImmutableList.of(web));
+      assertEquals(ImmutableList.copyOf(nodes), ImmutableList.of(db));
+      verify(chef);
+   }
+
+   private PaginatedSearchImpl search(ChefApi chef, int pageSize) {
+      return new PaginatedSearchImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, pageSize, false);
+   }
+}
@@ -0,0 +1,146 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.domain.SearchResult;
+import org.jclouds.chef.functions.ParseSearchResultFromJson;
+import org.jclouds.chef.functions.ParseSearchResultFromJson.RowHandler;
+import org.jclouds.chef.options.SearchOptions;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.collect.ContiguousSet;
+import com.google.common.collect.DiscreteDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gson.Gson;
+
+/**
+ * Tests behavior of {@code PaginatedSearchImpl}
+ */
+@Test(groups = { "unit" })
+public class PaginatedSearchImplTest {
+
+   private final PaginatedSearchImpl strategy = new PaginatedSearchImpl(MoreExecutors.sameThreadExecutor(),
+         createMock(ChefApi.class), new AdaptiveConcurrencyLimiter(10, 100), 2, false);
+
+   public void testPrefetchesTheNextPage() {
+      PagedRows rows = new PagedRows(5, true);
+      Iterator<Integer> iterator = strategy.execute(rows, "*:*", 2, false).iterator();
+
+      assertEquals(iterator.next(), Integer.valueOf(0));
+      assertEquals(rows.requested, ImmutableList.of(0, 2));
+      assertEquals(ImmutableList.copyOf(iterator), ImmutableList.of(1, 2, 3, 4));
+      assertEquals(rows.requested, ImmutableList.of(0, 2, 4));
+   }
+
+   public void testRequestsAllPagesInParallelMode() {
+      PagedRows rows = new PagedRows(5, true);
+      Iterator<Integer> iterator = strategy.execute(rows, "*:*", 2, true).iterator();
+
+      assertEquals(iterator.next(), Integer.valueOf(0));
+      assertEquals(rows.requested, ImmutableList.of(0, 2, 4));
+      assertEquals(ImmutableList.copyOf(iterator), ImmutableList.of(1, 2, 3, 4));
+   }
+
+   public void testStopsAtShortPageWithoutTotal() {
+      PagedRows rows = new PagedRows(4, false);
+      assertEquals(ImmutableList.copyOf(strategy.execute(rows, "*:*", 2, true)), ImmutableList.of(0, 1, 2, 3));
+      // the empty page after the last full one marks the end
+      assertEquals(rows.requested, ImmutableList.of(0, 2, 4));
+   }
+
+   public void testStreamsTheRowsOfEachPage() {
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.streamSearch(eq("node"), anyObject(SearchOptions.class))).andAnswer(new IAnswer<InputStream>() {
+         @Override
+         public InputStream answer() throws Throwable {
+            SearchOptions options = (SearchOptions) EasyMock.getCurrentArguments()[1];
+            int start = Integer.parseInt(Iterables.getOnlyElement(options.buildQueryParameters().get("start")));
+            StringBuilder rows = new StringBuilder();
+            for (int row = start; row < Math.min(start + 2, 5); row++)
+               rows.append(row == start ? "" : ",").append(row);
+            String page = "{\"total\":5,\"start\":" + start + ",\"rows\":[" + rows + "]}";
+            return new ByteArrayInputStream(page.getBytes(Charsets.UTF_8));
+         }
+      }).times(3);
+      replay(chef);
+
+      PaginatedSearchImpl streaming = new PaginatedSearchImpl(MoreExecutors.sameThreadExecutor(), chef,
+            new AdaptiveConcurrencyLimiter(10, 100), 2, false);
+      ParseSearchResultFromJson<Integer> parser = new ParseSearchResultFromJson<Integer>(new Gson(), Integer.class) {
+      };
+      final List<Integer> handled = Lists.newArrayList();
+      long count = streaming.execute("node", "*:*", parser, new RowHandler<Integer>() {
+         @Override
+         public void handle(Integer row) {
+            handled.add(row);
+         }
+      });
+
+      assertEquals(count, 5);
+      assertEquals(handled, ImmutableList.of(0, 1, 2, 3, 4));
+      verify(chef);
+   }
+
+   /**
+    * Returns the rows from 0 to total - 1, recording the requested pages.
+    */
+   private static class PagedRows implements Function<SearchOptions, SearchResult<Integer>> {
+      private final int total;
+      private final boolean reportTotal;
+      private final List<Integer> requested = Lists.newArrayList();
+
+      private PagedRows(int total, boolean reportTotal) {
+         this.total = total;
+         this.reportTotal = reportTotal;
+      }
+
+      @Override
+      public SearchResult<Integer> apply(SearchOptions input) {
+         int start = Integer.parseInt(Iterables.getOnlyElement(input.buildQueryParameters().get("start")));
+         int rows = Integer.parseInt(Iterables.getOnlyElement(input.buildQueryParameters().get("rows")));
+         requested.add(start);
+         Iterable<Integer> page = start >= total ? ImmutableList.<Integer> of() : ContiguousSet.create(
+               Range.closedOpen(start, Math.min(start + rows, total)), DiscreteDomain.integers());
+         return new SearchResult<Integer>(start, reportTotal ? total : -1, page);
+      }
+   }
+}
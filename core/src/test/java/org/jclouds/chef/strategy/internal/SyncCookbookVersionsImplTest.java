@@ -0,0 +1,263 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.easymock.IAnswer;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.cache.ResourceCache;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.domain.Checksum;
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.domain.Resource;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Closeables;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Tests behavior of {@code SyncCookbookVersionsImpl}
+ */
+@Test(groups = { "unit" }, singleThreaded = true)
+public class SyncCookbookVersionsImplTest {
+
+   private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100);
+   private final ResourceCache noCache = new ResourceCache(null, 1);
+
+   private File directory;
+   private Map<Checksum, String> contents;
+
+   @BeforeMethod
+   public void createDirectory() {
+      directory = Files.createTempDir();
+      contents = Maps.newHashMap();
+   }
+
+   @AfterMethod
+   public void deleteDirectory() {
+      delete(directory);
+   }
+
+   public void testDownloadsEachMissingContentOnce() throws IOException {
+      CookbookVersion first = new CookbookVersion("apache2", "1.0.0");
+      first.getRecipes().add(resource("recipes/default.rb", "package 'apache2'"));
+      first.getTemplates().add(resource("templates/default/site.erb", "<VirtualHost *:80>"));
+      first.getRootFiles().add(resource("README.md", "apache2 cookbook"));
+      CookbookVersion second = new CookbookVersion("apache2", "1.1.0");
+      second.getRecipes().add(resource("recipes/default.rb", "package 'apache2'"));
+      second.getRootFiles().add(resource("README.md", "apache2 cookbook 1.1"));
+
+      // already synced
+      write("apache2-1.0.0/README.md", "apache2 cookbook");
+      // modified locally
+      write("apache2-1.1.0/recipes/default.rb", "package 'nginx'");
+
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.getResourceContents(anyObject(Resource.class))).andAnswer(new ServeContents()).times(3);
+      replay(chef);
+
+      new SyncCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, noCache).execute(directory,
+            ImmutableList.of(first, second));
+
+      assertEquals(read("apache2-1.0.0/recipes/default.rb"), "package 'apache2'");
+      assertEquals(read("apache2-1.0.0/templates/default/site.erb"), "<VirtualHost *:80>");
+      assertEquals(read("apache2-1.0.0/README.md"), "apache2 cookbook");
+      assertEquals(read("apache2-1.1.0/recipes/default.rb"), "package 'apache2'");
+      assertEquals(read("apache2-1.1.0/README.md"), "apache2 cookbook 1.1");
+      assertEquals(new File(directory, "apache2-1.1.0/recipes").list().length, 1);
+      verify(chef);
+   }
+
+   public void testDoesNotWriteContentWithAnotherChecksum() {
+      CookbookVersion cookbook = new CookbookVersion("apache2", "1.0.0");
+      cookbook.getRecipes().add(resource("recipes/default.rb", "package 'apache2'"));
+      contents.put(md5("package 'apache2'"), "package 'nginx'");
+
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.getResourceContents(anyObject(Resource.class))).andAnswer(new ServeContents());
+      replay(chef);
+
+      try {
+         new SyncCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, noCache).execute(
+               directory, ImmutableList.of(cookbook));
+         fail("the content should have been rejected");
+      } catch (RuntimeException e) {
+         // expected
+      }
+      assertEquals(new File(directory, "apache2-1.0.0/recipes").list().length, 0);
+      verify(chef);
+   }
+
+   public void testCopiesCachedContentsWithoutDownloadingThem() throws IOException {
+      ResourceCache cache = new ResourceCache(new File(directory, "cache"), 1024);
+      Closeables.close(cache.put(md5("package 'apache2'"), new ByteArrayInputStream("package 'apache2'"
+            .getBytes(Charsets.UTF_8))), true);
+      CookbookVersion cookbook = new CookbookVersion("apache2", "1.0.0");
+      cookbook.getRecipes().add(resource("recipes/default.rb", "package 'apache2'"));
+      cookbook.getRecipes().add(resource("recipes/copy.rb", "package 'apache2'"));
+
+      ChefApi chef = createMock(ChefApi.class);
+      replay(chef);
+
+      new SyncCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, cache).execute(directory,
+            ImmutableList.of(cookbook));
+
+      assertEquals(read("apache2-1.0.0/recipes/default.rb"), "package 'apache2'");
+      assertEquals(read("apache2-1.0.0/recipes/copy.rb"), "package 'apache2'");
+      verify(chef);
+   }
+
+   public void testCopiesTheOtherFilesWhenTheCachedContentIsEvicted() throws IOException {
+      final AtomicInteger copies = new AtomicInteger();
+      ResourceCache cache = new ResourceCache(new File(directory, "cache"), 1024) {
+         @Override
+         public boolean copyTo(Checksum checksum, File target) throws IOException {
+            // evicted right after the first copy
+            return copies.getAndIncrement() == 0 && super.copyTo(checksum, target);
+         }
+      };
+      Closeables.close(cache.put(md5("package 'apache2'"), new ByteArrayInputStream("package 'apache2'"
+            .getBytes(Charsets.UTF_8))), true);
+      CookbookVersion cookbook = new CookbookVersion("apache2", "1.0.0");
+      cookbook.getRecipes().add(resource("recipes/default.rb", "package 'apache2'"));
+      cookbook.getRecipes().add(resource("recipes/copy.rb", "package 'apache2'"));
+
+      ChefApi chef = createMock(ChefApi.class);
+      replay(chef);
+
+      new SyncCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, cache).execute(directory,
+            ImmutableList.of(cookbook));
+
+      assertEquals(read("apache2-1.0.0/recipes/default.rb"), "package 'apache2'");
+      assertEquals(read("apache2-1.0.0/recipes/copy.rb"), "package 'apache2'");
+      assertEquals(copies.get(), 1);
+      verify(chef);
+   }
+
+   public void testCachesDownloadedContentsWithoutHashingThemAgain() throws IOException {
+      ResourceCache cache = new ResourceCache(new File(directory, "cache"), 1024) {
+         @Override
+         public InputStream put(Checksum checksum, InputStream content) throws IOException {
+            throw new AssertionError("the downloaded content was verified already");
+         }
+      };
+      CookbookVersion cookbook = new CookbookVersion("apache2", "1.0.0");
+      cookbook.getRecipes().add(resource("recipes/default.rb", "package 'apache2'"));
+
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.getResourceContents(anyObject(Resource.class))).andAnswer(new ServeContents());
+      replay(chef);
+
+      new SyncCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, cache).execute(directory,
+            ImmutableList.of(cookbook));
+
+      assertEquals(read("apache2-1.0.0/recipes/default.rb"), "package 'apache2'");
+      InputStream cached = cache.get(md5("package 'apache2'"));
+      try {
+         assertEquals(new String(ByteStreams.toByteArray(cached), Charsets.UTF_8), "package 'apache2'");
+      } finally {
+         Closeables.close(cached, true);
+      }
+      verify(chef);
+   }
+
+   @Test(expectedExceptions = IllegalArgumentException.class)
+   public void testRejectsPathsOutsideTheDirectory() {
+      CookbookVersion cookbook = new CookbookVersion("apache2", "1.0.0");
+      cookbook.getRootFiles().add(resource("../../.bashrc", "rm -rf /"));
+
+      ChefApi chef = createMock(ChefApi.class);
+      replay(chef);
+
+      try {
+         new SyncCookbookVersionsImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, noCache).execute(
+               directory, ImmutableList.of(cookbook));
+      } finally {
+         assertFalse(new File(directory, ".bashrc").exists());
+      }
+   }
+
+   /**
+    * Serves the content registered for the checksum of the requested resource.
+    */
+   private class ServeContents implements IAnswer<InputStream> {
+      @Override
+      public InputStream answer() {
+         Resource resource = (Resource) getCurrentArguments()[0];
+         String content = contents.get(Checksum.fromBytes(resource.getChecksum()));
+         return new ByteArrayInputStream(content.getBytes(Charsets.UTF_8));
+      }
+   }
+
+   private Resource resource(String path, String content) {
+      Checksum checksum = md5(content);
+      if (!contents.containsKey(checksum))
+         contents.put(checksum, content);
+      return new Resource(new File(path).getName(), URI.create("https://localhost/files/" + checksum),
+            checksum.toBytes(), path, "default");
+   }
+
+   private static Checksum md5(String content) {
+      return Checksum.fromBytes(Hashing.md5().hashString(content, Charsets.UTF_8).asBytes());
+   }
+
+   private void write(String path, String content) throws IOException {
+      File file = new File(directory, path);
+      Files.createParentDirs(file);
+      Files.write(content, file, Charsets.UTF_8);
+   }
+
+   private String read(String path) throws IOException {
+      return Files.toString(new File(directory, path), Charsets.UTF_8);
+   }
+
+   private static void delete(File file) {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children)
+            delete(child);
+      }
+      file.delete();
+   }
+}
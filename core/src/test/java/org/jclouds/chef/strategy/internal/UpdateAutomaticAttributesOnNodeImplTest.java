@@ -22,8 +22,13 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.classextension.EasyMock.createMock;
 import static org.easymock.classextension.EasyMock.replay;
 import static org.easymock.classextension.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.jclouds.chef.ChefApi;
 import org.jclouds.chef.domain.Node;
@@ -32,6 +37,8 @@ import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -69,4 +76,81 @@ public class UpdateAutomaticAttributesOnNodeImplTest {
       verify(chef);
 
    }
+
+   public void testUnchangedAttributesAreOnlySentWithTheHeartbeat() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      Node node = new Node("name", ImmutableSet.of("recipe[java]"), "_default");
+      Map<String, JsonBall> first = ImmutableMap.of("ohai_time", new JsonBall("1"), "platform", new JsonBall("a"));
+      Map<String, JsonBall> second = ImmutableMap.of("ohai_time", new JsonBall("2"), "platform", new JsonBall("a"));
+      Map<String, JsonBall> third = ImmutableMap.of("ohai_time", new JsonBall("3"), "platform", new JsonBall("b"));
+      Map<String, JsonBall> fourth = ImmutableMap.of("ohai_time", new JsonBall("4"), "platform", new JsonBall("b"));
+      final Iterator<Map<String, JsonBall>> automatic = ImmutableList.of(first, second, third, fourth).iterator();
+
+      expect(chef.getNode("name")).andReturn(node);
+      expect(chef.updateNode(withAutomatic(node, first))).andReturn(null);
+      // the changed attributes are sent without reading the node
+      expect(chef.updateNode(withAutomatic(node, third))).andReturn(null);
+      expect(chef.getNode("name")).andReturn(node);
+      expect(chef.updateNode(withAutomatic(node, fourth))).andReturn(null);
+      replay(chef);
+
+      FakeTicker ticker = new FakeTicker();
+      UpdateAutomaticAttributesOnNodeImpl updater = new UpdateAutomaticAttributesOnNodeImpl(chef,
+            new Supplier<Map<String, JsonBall>>() {
+               @Override
+               public Map<String, JsonBall> get() {
+                  return automatic.next();
+               }
+            }, ImmutableSet.<String> of(), TimeUnit.MINUTES.toMillis(30), ticker);
+
+      updater.execute("name");
+      ticker.advance(1, TimeUnit.MINUTES);
+      updater.execute("name");
+      ticker.advance(1, TimeUnit.MINUTES);
+      updater.execute("name");
+      ticker.advance(30, TimeUnit.MINUTES);
+      updater.execute("name");
+      verify(chef);
+   }
+
+   public void testDigestIgnoresVolatileAttributes() {
+      Set<String> none = ImmutableSet.of();
+      assertEquals(
+            UpdateAutomaticAttributesOnNodeImpl.digest(ImmutableMap.of("ohai_time", new JsonBall("1"), "platform",
+                  new JsonBall("a")), none),
+            UpdateAutomaticAttributesOnNodeImpl.digest(ImmutableMap.of("platform", new JsonBall("a"), "ohai_time",
+                  new JsonBall("2")), none));
+   }
+
+   public void testDigestIgnoresLiveNestedAttributes() {
+      Set<String> live = ImmutableSet.of("jvm/threads");
+      assertEquals(
+            UpdateAutomaticAttributesOnNodeImpl.digest(ImmutableMap.of("jvm", new JsonBall(
+                  "{\"threads\":{\"count\":20},\"system\":{\"java.version\":\"1.6\"}}")), live),
+            UpdateAutomaticAttributesOnNodeImpl.digest(ImmutableMap.of("jvm", new JsonBall(
+                  "{\"threads\":{\"count\":21},\"system\":{\"java.version\":\"1.6\"}}")), live));
+      assertFalse(UpdateAutomaticAttributesOnNodeImpl.digest(
+            ImmutableMap.of("jvm", new JsonBall("{\"system\":{\"java.version\":\"1.6\"}}")), live).equals(
+            UpdateAutomaticAttributesOnNodeImpl.digest(ImmutableMap.of("jvm", new JsonBall(
+                  "{\"system\":{\"java.version\":\"1.7\"}}")), live)));
+   }
+
+   private static Node withAutomatic(Node node, Map<String, JsonBall> automatic) {
+      return new Node(node.getName(), node.getNormal(), node.getOverride(), node.getDefault(), automatic,
+            node.getRunList(), node.getChefEnvironment());
+   }
+
+   private static class FakeTicker extends Ticker {
+      private long nanos;
+
+      private void advance(long duration, TimeUnit unit) {
+         nanos += unit.toNanos(duration);
+      }
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+   }
 }
@@ -0,0 +1,315 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.chef.strategy.internal;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.eq;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.classextension.EasyMock.createMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.easymock.classextension.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.easymock.Capture;
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.cache.ChecksumCache;
+import org.jclouds.chef.concurrent.AdaptiveConcurrencyLimiter;
+import org.jclouds.chef.config.ChefParserModule;
+import org.jclouds.chef.domain.Attribute;
+import org.jclouds.chef.domain.Checksum;
+import org.jclouds.chef.domain.ChecksumStatus;
+import org.jclouds.chef.domain.CookbookVersion;
+import org.jclouds.chef.domain.Metadata;
+import org.jclouds.chef.domain.Resource;
+import org.jclouds.chef.domain.UploadSandbox;
+import org.jclouds.io.Payload;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.rest.annotations.ApiVersion;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.google.common.io.Files;
+import com.google.common.util.concurrent.ForwardingListeningExecutorService;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+/**
+ * Tests behavior of {@code UploadCookbookImpl}
+ */
+@Test(groups = { "unit" }, singleThreaded = true)
+public class UploadCookbookImplTest {
+
+   private static final URI UPLOAD_URL = URI.create("https://localhost/sandboxes/upload");
+
+   private final Json json = Guice.createInjector(new AbstractModule() {
+      @Override
+      protected void configure() {
+         bind(String.class).annotatedWith(ApiVersion.class).toInstance(ChefApi.VERSION);
+      }
+   }, new ChefParserModule(), new GsonModule()).getInstance(Json.class);
+
+   private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100);
+
+   private File cookbook;
+
+   @BeforeMethod
+   public void createCookbook() throws IOException {
+      cookbook = Files.createTempDir();
+      write("metadata.json", "{\"name\":\"apache2\",\"version\":\"1.0.0\",\"license\":\"Apache 2.0\"}");
+      write("README.md", "apache2 cookbook");
+      write("recipes/default.rb", "package 'apache2'");
+      write("recipes/copy.rb", "package 'apache2'");
+      write("attributes/default.rb", "default['apache']['port'] = 80");
+      write("files/default/apache2.conf", "Listen 80");
+      write("templates/ubuntu-12.04/site.erb", "<VirtualHost *:80>");
+      write("spec/default_spec.rb", "describe 'apache2'");
+      write(".git/HEAD", "ref: refs/heads/master");
+   }
+
+   @AfterMethod
+   public void deleteCookbook() throws IOException {
+      delete(cookbook);
+   }
+
+   public void testUploadsTheMissingFilesAndTheManifest() {
+      ChefApi chef = createMock(ChefApi.class);
+      Capture<Set<Checksum>> requested = new Capture<Set<Checksum>>();
+      Capture<CookbookVersion> manifest = new Capture<CookbookVersion>();
+
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(null);
+      expect(chef.createUploadSandbox(capture(requested))).andReturn(
+            new UploadSandbox(UPLOAD_URL, ImmutableMap.of(md5("package 'apache2'"), new ChecksumStatus(UPLOAD_URL,
+                  true), md5("Listen 80"), new ChecksumStatus(UPLOAD_URL, true), md5("apache2 cookbook"),
+                  new ChecksumStatus(null, false)), "sandbox1"));
+      chef.uploadContent(eq(UPLOAD_URL), anyObject(Payload.class));
+      expectLastCall().times(2);
+      expect(chef.commitSandbox("sandbox1", true)).andReturn(null);
+      expect(chef.updateCookbook(eq("apache2"), eq("1.0.0"), capture(manifest))).andReturn(null);
+      replay(chef);
+
+      strategy(chef).execute(cookbook, "apache2", "1.0.0");
+
+      // files with the same content are only uploaded once
+      assertEquals(requested.getValue().size(), 6);
+      CookbookVersion uploaded = manifest.getValue();
+      assertEquals(uploaded.getName(), "apache2-1.0.0");
+      assertEquals(uploaded.getMetadata().getName(), "apache2");
+      assertEquals(uploaded.getMetadata().getLicense(), "Apache 2.0");
+      assertEquals(paths(uploaded.getRootFiles()), ImmutableSet.of("README.md", "metadata.json"));
+      assertEquals(paths(uploaded.getRecipes()), ImmutableSet.of("recipes/copy.rb", "recipes/default.rb"));
+      assertEquals(paths(uploaded.getAttributes()), ImmutableSet.of("attributes/default.rb"));
+      assertEquals(paths(uploaded.getFiles()), ImmutableSet.of("files/default/apache2.conf"));
+
+      Resource template = Iterables.getOnlyElement(uploaded.getTemplates());
+      assertEquals(template.getName(), "site.erb");
+      assertEquals(template.getPath(), "templates/ubuntu-12.04/site.erb");
+      assertEquals(template.getSpecificity(), "ubuntu-12.04");
+      assertEquals(Checksum.fromBytes(template.getChecksum()), md5("<VirtualHost *:80>"));
+      verify(chef);
+   }
+
+   public void testHashesTheFilesOnTheExecutor() {
+      ChefApi chef = createMock(ChefApi.class);
+      Capture<Set<Checksum>> requested = new Capture<Set<Checksum>>();
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(null);
+      expect(chef.createUploadSandbox(capture(requested))).andReturn(
+            new UploadSandbox(UPLOAD_URL, ImmutableMap.<Checksum, ChecksumStatus> of(), "sandbox1"));
+      expect(chef.commitSandbox("sandbox1", true)).andReturn(null);
+      expect(chef.updateCookbook(eq("apache2"), eq("1.0.0"), anyObject(CookbookVersion.class))).andReturn(null);
+      replay(chef);
+
+      // changes a file after the files are listed, before the first task runs
+      ListeningExecutorService executor = new ForwardingListeningExecutorService() {
+         private final ListeningExecutorService delegate = MoreExecutors.sameThreadExecutor();
+         private boolean changed;
+
+         @Override
+         protected ListeningExecutorService delegate() {
+            return delegate;
+         }
+
+         @Override
+         public <T> ListenableFuture<T> submit(Callable<T> task) {
+            if (!changed) {
+               changed = true;
+               try {
+                  write("README.md", "apache2 cookbook, changed");
+               } catch (IOException e) {
+                  throw Throwables.propagate(e);
+               }
+            }
+            return super.submit(task);
+         }
+      };
+      strategy(chef).execute(executor, cookbook, "apache2", "1.0.0");
+
+      assertTrue(requested.getValue().contains(md5("apache2 cookbook, changed")));
+      assertFalse(requested.getValue().contains(md5("apache2 cookbook")));
+      verify(chef);
+   }
+
+   public void testAbandonsTheSandboxWhenAnUploadFails() {
+      ChefApi chef = createMock(ChefApi.class);
+
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(null);
+      expect(chef.createUploadSandbox(anyObject(Set.class))).andReturn(
+            new UploadSandbox(UPLOAD_URL, ImmutableMap.of(md5("Listen 80"), new ChecksumStatus(UPLOAD_URL, true)),
+                  "sandbox1"));
+      chef.uploadContent(eq(UPLOAD_URL), anyObject(Payload.class));
+      expectLastCall().andThrow(new IllegalStateException("connection reset"));
+      expect(chef.commitSandbox("sandbox1", false)).andReturn(null);
+      replay(chef);
+
+      try {
+         strategy(chef).execute(cookbook, "apache2", "1.0.0");
+         fail("the upload should have failed");
+      } catch (RuntimeException e) {
+         // expected
+      }
+      verify(chef);
+   }
+
+   public void testOnlyUploadsTheFilesNotInTheCurrentVersion() throws IOException {
+      CookbookVersion current = uploadAll();
+      write("README.md", "apache2 cookbook, with a readme");
+
+      ChefApi chef = createMock(ChefApi.class);
+      Capture<Set<Checksum>> requested = new Capture<Set<Checksum>>();
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(current);
+      expect(chef.createUploadSandbox(capture(requested))).andReturn(
+            new UploadSandbox(UPLOAD_URL, ImmutableMap.of(md5("apache2 cookbook, with a readme"), new ChecksumStatus(
+                  UPLOAD_URL, true)), "sandbox2"));
+      chef.uploadContent(eq(UPLOAD_URL), anyObject(Payload.class));
+      expect(chef.commitSandbox("sandbox2", true)).andReturn(null);
+      expect(chef.updateCookbook(eq("apache2"), eq("1.0.0"), anyObject(CookbookVersion.class))).andReturn(null);
+      replay(chef);
+
+      strategy(chef).execute(cookbook, "apache2", "1.0.0");
+
+      assertEquals(requested.getValue(), ImmutableSet.of(md5("apache2 cookbook, with a readme")));
+      verify(chef);
+   }
+
+   public void testDoesNotUpdateAnUnchangedCookbook() {
+      CookbookVersion current = uploadAll();
+
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(current);
+      replay(chef);
+
+      assertSame(strategy(chef).execute(cookbook, "apache2", "1.0.0"), current);
+      verify(chef);
+   }
+
+   public void testDoesNotUpdateAnUnchangedCookbookWithoutMetadata() {
+      new File(cookbook, "metadata.json").delete();
+      CookbookVersion uploaded = uploadAll();
+      // the server fills in the metadata that was not uploaded
+      Map<String, String> none = ImmutableMap.of();
+      Metadata defaults = new Metadata("none", "YOUR_COMPANY_NAME", none, none, "YOUR_EMAIL", none, "", none, none,
+            "1.0.0", none, none, "apache2", none, "", ImmutableMap.<String, Attribute> of(), none);
+      CookbookVersion current = new CookbookVersion(uploaded.getName(), uploaded.getDefinitions(),
+            uploaded.getAttributes(), uploaded.getFiles(), defaults, uploaded.getSuppliers(),
+            uploaded.getCookbookName(), uploaded.getResources(), uploaded.getTemplates(), uploaded.getLibraries(),
+            uploaded.getVersion(), uploaded.getRecipes(), uploaded.getRootFiles());
+
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(current);
+      replay(chef);
+
+      assertSame(strategy(chef).execute(cookbook, "apache2", "1.0.0"), current);
+      verify(chef);
+   }
+
+   /**
+    * @return the cookbook version sent to the server by a first upload.
+    */
+   private CookbookVersion uploadAll() {
+      ChefApi chef = createMock(ChefApi.class);
+      Capture<CookbookVersion> manifest = new Capture<CookbookVersion>();
+      expect(chef.getCookbook("apache2", "1.0.0")).andReturn(null);
+      expect(chef.createUploadSandbox(anyObject(Set.class))).andReturn(
+            new UploadSandbox(UPLOAD_URL, ImmutableMap.<Checksum, ChecksumStatus> of(), "sandbox1"));
+      expect(chef.commitSandbox("sandbox1", true)).andReturn(null);
+      expect(chef.updateCookbook(eq("apache2"), eq("1.0.0"), capture(manifest))).andReturn(null);
+      replay(chef);
+
+      strategy(chef).execute(cookbook, "apache2", "1.0.0");
+      verify(chef);
+      return manifest.getValue();
+   }
+
+   private UploadCookbookImpl strategy(ChefApi chef) {
+      return new UploadCookbookImpl(MoreExecutors.sameThreadExecutor(), chef, limiter, json, new ChecksumCache(
+            (File) null, json));
+   }
+
+   private void write(String path, String content) throws IOException {
+      File file = new File(cookbook, path);
+      Files.createParentDirs(file);
+      Files.write(content, file, Charsets.UTF_8);
+   }
+
+   private static void delete(File file) throws IOException {
+      File[] children = file.listFiles();
+      if (children != null) {
+         for (File child : children)
+            delete(child);
+      }
+      file.delete();
+   }
+
+   private static Checksum md5(String content) {
+      return Checksum.fromBytes(Hashing.md5().hashString(content, Charsets.UTF_8).asBytes());
+   }
+
+   private static Set<String> paths(Set<Resource> resources) {
+      return ImmutableSet.copyOf(Iterables.transform(resources, new Function<Resource, String>() {
+         @Override
+         public String apply(Resource input) {
+            return input.getPath();
+         }
+      }));
+   }
+}
@@ -0,0 +1,129 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.chef.strategy.UpdateAutomaticAttributesOnNode;
+import org.testng.annotations.Test;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Tests behavior of {@code AutomaticAttributesRefresher}
+ */
+@Test(groups = { "unit" })
+public class AutomaticAttributesRefresherTest {
+
+   public void testRefreshesPeriodicallyUntilClosed() throws InterruptedException {
+      CountingUpdater updater = new CountingUpdater(3);
+      AutomaticAttributesRefresher refresher = new AutomaticAttributesRefresher(updater, scheduler(), 20, 0.1,
+            new Random());
+
+      refresher.schedule("node");
+      assertTrue(updater.done.await(10, TimeUnit.SECONDS));
+      refresher.close();
+      int calls = updater.calls.get();
+      Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+      assertEquals(updater.calls.get(), calls);
+      assertTrue(refresher.getNodes().isEmpty());
+   }
+
+   public void testRequestsDuringARefreshAreMerged() throws InterruptedException {
+      final CountDownLatch started = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final AtomicInteger calls = new AtomicInteger();
+      final CountDownLatch finished = new CountDownLatch(2);
+      AutomaticAttributesRefresher refresher = new AutomaticAttributesRefresher(new UpdateAutomaticAttributesOnNode() {
+         @Override
+         public void execute(String nodeName) {
+            calls.incrementAndGet();
+            started.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            finished.countDown();
+         }
+      }, scheduler(), TimeUnit.HOURS.toMillis(1), 0.1, new Random());
+
+      refresher.refreshNow("node");
+      assertTrue(started.await(10, TimeUnit.SECONDS));
+      refresher.refreshNow("node");
+      refresher.refreshNow("node");
+      refresher.refreshNow("node");
+      release.countDown();
+      assertTrue(finished.await(10, TimeUnit.SECONDS));
+      refresher.close();
+      assertEquals(calls.get(), 2);
+   }
+
+   public void testBacksOffWhileRefreshesFail() throws InterruptedException {
+      final CountDownLatch failures = new CountDownLatch(3);
+      AutomaticAttributesRefresher refresher = new AutomaticAttributesRefresher(new UpdateAutomaticAttributesOnNode() {
+         @Override
+         public void execute(String nodeName) {
+            failures.countDown();
+            throw new IllegalStateException("server unavailable");
+         }
+      }, scheduler(), 5, 0, new Random());
+
+      refresher.schedule("node");
+      assertTrue(failures.await(10, TimeUnit.SECONDS));
+      assertTrue(refresher.getBackoff("node") >= 4);
+      refresher.close();
+   }
+
+   public void testDelayIsSpreadByTheJitter() {
+      AutomaticAttributesRefresher refresher = new AutomaticAttributesRefresher(new CountingUpdater(1), scheduler(),
+            1000, 0.1, new Random());
+      try {
+         for (int i = 0; i < 100; i++) {
+            long delay = refresher.nextDelay(2);
+            assertTrue(delay >= 1800 && delay <= 2200, "delay: " + delay);
+         }
+      } finally {
+         refresher.close();
+      }
+   }
+
+   private static ScheduledExecutorService scheduler() {
+      return Executors.newSingleThreadScheduledExecutor();
+   }
+
+   static class CountingUpdater implements UpdateAutomaticAttributesOnNode {
+      private final AtomicInteger calls = new AtomicInteger();
+      private final CountDownLatch done;
+
+      CountingUpdater(int expectedCalls) {
+         this.done = new CountDownLatch(expectedCalls);
+      }
+
+      @Override
+      public void execute(String nodeName) {
+         calls.incrementAndGet();
+         done.countDown();
+      }
+   }
+}
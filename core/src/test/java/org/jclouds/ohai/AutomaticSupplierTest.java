@@ -0,0 +1,174 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai;
+
+import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jclouds.domain.JsonBall;
+import org.jclouds.ohai.Freshness.Policy;
+import org.jclouds.ohai.functions.NestSlashKeys;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Tests behavior of {@code AutomaticSupplier}
+ */
+@Test(groups = { "unit" })
+public class AutomaticSupplierTest {
+
+   public void testValuesAreCachedAccordingToTheirFreshness() {
+      FakeTicker ticker = new FakeTicker();
+      StaticSupplier platform = new StaticSupplier();
+      TtlSupplier properties = new TtlSupplier();
+      LiveSupplier time = new LiveSupplier();
+      AutomaticSupplier supplier = new AutomaticSupplier(ImmutableMultimap.<String, Supplier<JsonBall>> of(
+            "platform", platform, "jvm/system", properties, "ohai_time", time), new NestSlashKeys(), ticker);
+
+      assertEquals(supplier.get().get("platform").toString(), "1");
+      ticker.advance(30, TimeUnit.SECONDS);
+      assertEquals(supplier.get().get("ohai_time").toString(), "2");
+      assertEquals(supplier.get().get("jvm").toString(), "{\"system\":1}");
+      ticker.advance(31, TimeUnit.SECONDS);
+      assertEquals(supplier.get().get("jvm").toString(), "{\"system\":2}");
+      ticker.advance(1, TimeUnit.DAYS);
+      assertEquals(supplier.get().get("platform").toString(), "1");
+
+      assertEquals(platform.calls, 1);
+      assertEquals(properties.calls, 3);
+      assertEquals(time.calls, 5);
+   }
+
+   public void testLiveKeysOnlyHaveLiveSuppliers() {
+      AutomaticSupplier supplier = new AutomaticSupplier(ImmutableMultimap.<String, Supplier<JsonBall>> builder()
+            .put("ohai_time", new LiveSupplier()).put("jvm/memory", new LiveSupplier())
+            .put("platform", new StaticSupplier()).put("current_user", new CountingSupplier())
+            .put("jvm/mixed", new LiveSupplier()).put("jvm/mixed", new StaticSupplier()).build(),
+            new NestSlashKeys(), new FakeTicker());
+
+      assertEquals(supplier.getLiveKeys(), ImmutableSet.of("ohai_time", "jvm/memory"));
+   }
+
+   public void testInvalidate() {
+      StaticSupplier platform = new StaticSupplier();
+      TtlSupplier properties = new TtlSupplier();
+      AutomaticSupplier supplier = new AutomaticSupplier(ImmutableMultimap.<String, Supplier<JsonBall>> of(
+            "platform", platform, "jvm/system", properties), new NestSlashKeys(), new FakeTicker());
+
+      supplier.get();
+      supplier.invalidate("platform");
+      supplier.get();
+      assertEquals(platform.calls, 2);
+      assertEquals(properties.calls, 1);
+
+      supplier.invalidate();
+      supplier.get();
+      assertEquals(platform.calls, 3);
+      assertEquals(properties.calls, 2);
+   }
+
+   public void testSuppliersThatMissTheDeadlineUseTheirLastValue() {
+      ListeningExecutorService executor = listeningDecorator(newCachedThreadPool());
+      BlockingSupplier slow = new BlockingSupplier();
+      try {
+         AutomaticSupplier supplier = new AutomaticSupplier(ImmutableMultimap.<String, Supplier<JsonBall>> of(
+               "fast", new LiveSupplier(), "slow", slow), new NestSlashKeys(), Ticker.systemTicker())
+               .withTimeBudget(executor, 50);
+
+         assertEquals(supplier.get().keySet(), ImmutableSet.of("fast"));
+         assertEquals(supplier.getMissedDeadline(), ImmutableSet.of("slow"));
+
+         slow.gate.countDown();
+         assertEquals(supplier.get().get("slow").toString(), "1");
+         assertTrue(supplier.getMissedDeadline().isEmpty());
+         assertEquals(supplier.getTimings().keySet(), ImmutableSet.of("fast", "slow"));
+
+         slow.gate = new CountDownLatch(1);
+         supplier.invalidate("slow");
+         assertEquals(supplier.get().get("slow").toString(), "1");
+         assertEquals(supplier.get().get("fast").toString(), "4");
+         assertEquals(supplier.getMissedDeadline(), ImmutableSet.of("slow"));
+         // the supplier that is still running is not called again
+         assertEquals(slow.calls, 2);
+      } finally {
+         slow.gate.countDown();
+         executor.shutdownNow();
+      }
+   }
+
+   static class CountingSupplier implements Supplier<JsonBall> {
+      int calls;
+
+      @Override
+      public JsonBall get() {
+         return new JsonBall(String.valueOf(++calls));
+      }
+   }
+
+   @Freshness(Policy.STATIC)
+   static class StaticSupplier extends CountingSupplier {
+   }
+
+   @Freshness(value = Policy.TTL, ttl = 1, unit = TimeUnit.MINUTES)
+   static class TtlSupplier extends CountingSupplier {
+   }
+
+   @Freshness(Policy.LIVE)
+   static class LiveSupplier extends CountingSupplier {
+   }
+
+   @Freshness(Policy.STATIC)
+   static class BlockingSupplier extends CountingSupplier {
+      volatile CountDownLatch gate = new CountDownLatch(1);
+
+      @Override
+      public JsonBall get() {
+         CountDownLatch current = gate;
+         synchronized (this) {
+            calls++;
+         }
+         Uninterruptibles.awaitUninterruptibly(current);
+         return new JsonBall(String.valueOf(calls));
+      }
+   }
+
+   static class FakeTicker extends Ticker {
+      private long nanos;
+
+      void advance(long duration, TimeUnit unit) {
+         nanos += unit.toNanos(duration);
+      }
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+   }
+}
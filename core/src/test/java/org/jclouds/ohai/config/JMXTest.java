@@ -18,29 +18,52 @@
  */
 package org.jclouds.ohai.config;
 
+import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.createNiceMock;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
 import static org.testng.Assert.assertEquals;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
 import java.lang.management.RuntimeMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.QueryExp;
 
 import org.jclouds.chef.ChefApi;
 import org.jclouds.chef.config.ChefParserModule;
+import org.jclouds.chef.domain.Node;
+import org.jclouds.chef.strategy.internal.UpdateAutomaticAttributesOnNodeImpl;
 import org.jclouds.domain.JsonBall;
 import org.jclouds.json.Json;
 import org.jclouds.json.config.GsonModule;
 import org.jclouds.ohai.Automatic;
+import org.jclouds.ohai.Live;
 import org.jclouds.rest.annotations.ApiVersion;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
 
 /**
  * Tests behavior of {@code JMX}
@@ -75,6 +98,172 @@ public class JMXTest {
       assertEquals(json.toJson(ohai.ohai.get().get("uptime_seconds")), "69876");
    }
 
+   public void testJvmAttributes() throws Exception {
+      final MemoryMXBean memory = createMock(MemoryMXBean.class);
+      expect(memory.getHeapMemoryUsage()).andReturn(new MemoryUsage(1, 2, 3, 4));
+      expect(memory.getNonHeapMemoryUsage()).andReturn(new MemoryUsage(5, 6, 7, -1));
+      expect(memory.getObjectPendingFinalizationCount()).andReturn(0);
+
+      final GarbageCollectorMXBean collector = createMock(GarbageCollectorMXBean.class);
+      expect(collector.getName()).andReturn("PS Scavenge");
+      expect(collector.getCollectionCount()).andReturn(12l);
+      expect(collector.getCollectionTime()).andReturn(340l);
+
+      final ThreadMXBean threads = createMock(ThreadMXBean.class);
+      expect(threads.getThreadCount()).andReturn(20);
+      expect(threads.getDaemonThreadCount()).andReturn(15);
+      expect(threads.getPeakThreadCount()).andReturn(25);
+      expect(threads.getTotalStartedThreadCount()).andReturn(100l);
+      expect(threads.isThreadCpuTimeSupported()).andReturn(false);
+
+      final OperatingSystemMXBean os = createMock(OperatingSystemMXBean.class);
+      expect(os.getAvailableProcessors()).andReturn(4);
+      expect(os.getSystemLoadAverage()).andReturn(1.5);
+
+      final MBeanServer server = createNiceMock(MBeanServer.class);
+      ObjectName direct = new ObjectName("java.nio:type=BufferPool,name=direct");
+      expect(server.queryNames(anyObject(ObjectName.class), (QueryExp) anyObject())).andReturn(
+            ImmutableSet.of(direct));
+      expect(server.getAttribute(direct, "Count")).andReturn(3l);
+      expect(server.getAttribute(direct, "MemoryUsed")).andReturn(4096l);
+      expect(server.getAttribute(direct, "TotalCapacity")).andReturn(4096l);
+
+      replay(memory, collector, threads, os, server);
+
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(String.class).annotatedWith(ApiVersion.class).toInstance(ChefApi.VERSION);
+         }
+      }, new ChefParserModule(), new GsonModule(), new JMXOhaiModule() {
+         @Override
+         protected MemoryMXBean provideMemoryMXBean() {
+            return memory;
+         }
+
+         @Override
+         protected List<GarbageCollectorMXBean> provideGarbageCollectorMXBeans() {
+            return ImmutableList.of(collector);
+         }
+
+         @Override
+         protected ThreadMXBean provideThreadMXBean() {
+            return threads;
+         }
+
+         @Override
+         protected OperatingSystemMXBean provideOperatingSystemMXBean() {
+            return os;
+         }
+
+         @Override
+         protected MBeanServer provideMBeanServer() {
+            return server;
+         }
+      });
+      Ohai ohai = injector.getInstance(Ohai.class);
+      JsonObject jvm = new JsonParser().parse(ohai.ohai.get().get("jvm").toString()).getAsJsonObject();
+
+      assertEquals(jvm.get("memory").toString(), "{\"heap\":{\"init\":1,\"used\":2,\"committed\":3,\"max\":4},"
+            + "\"non_heap\":{\"init\":5,\"used\":6,\"committed\":7,\"max\":-1},"
+            + "\"objects_pending_finalization\":0}");
+      assertEquals(jvm.get("gc").toString(), "{\"PS Scavenge\":{\"collection_count\":12,\"collection_time_ms\":340}}");
+      assertEquals(jvm.get("threads").toString(),
+            "{\"count\":20,\"daemon_count\":15,\"peak_count\":25,\"total_started_count\":100}");
+      assertEquals(jvm.get("os").toString(), "{\"available_processors\":4,\"load_average\":1.5}");
+      assertEquals(jvm.get("buffer_pools").toString(),
+            "{\"direct\":{\"count\":3,\"memory_used\":4096,\"total_capacity\":4096}}");
+      assertEquals(jvm.has("system"), true);
+   }
+
+   public void testChangesInTheJvmUsageDoNotUpdateTheNodeAgain() throws Exception {
+      final RuntimeMXBean runtime = createMock(RuntimeMXBean.class);
+      expect(runtime.getUptime()).andReturn(69876000l).andReturn(69936000l);
+
+      final MemoryMXBean memory = createMock(MemoryMXBean.class);
+      expect(memory.getHeapMemoryUsage()).andReturn(new MemoryUsage(1, 2, 3, 4)).andReturn(new MemoryUsage(1, 3, 3, 4));
+      expect(memory.getNonHeapMemoryUsage()).andReturn(new MemoryUsage(5, 6, 7, -1)).times(2);
+      expect(memory.getObjectPendingFinalizationCount()).andReturn(0).times(2);
+
+      final GarbageCollectorMXBean collector = createMock(GarbageCollectorMXBean.class);
+      expect(collector.getName()).andReturn("PS Scavenge").times(2);
+      expect(collector.getCollectionCount()).andReturn(12l).andReturn(13l);
+      expect(collector.getCollectionTime()).andReturn(340l).andReturn(350l);
+
+      final ThreadMXBean threads = createMock(ThreadMXBean.class);
+      expect(threads.getThreadCount()).andReturn(20).andReturn(21);
+      expect(threads.getDaemonThreadCount()).andReturn(15).times(2);
+      expect(threads.getPeakThreadCount()).andReturn(25).times(2);
+      expect(threads.getTotalStartedThreadCount()).andReturn(100l).andReturn(101l);
+      expect(threads.isThreadCpuTimeSupported()).andReturn(false).times(2);
+
+      final OperatingSystemMXBean os = createMock(OperatingSystemMXBean.class);
+      expect(os.getAvailableProcessors()).andReturn(4).times(2);
+      expect(os.getSystemLoadAverage()).andReturn(1.5).andReturn(2.0);
+
+      final MBeanServer server = createNiceMock(MBeanServer.class);
+      ObjectName direct = new ObjectName("java.nio:type=BufferPool,name=direct");
+      expect(server.queryNames(anyObject(ObjectName.class), (QueryExp) anyObject())).andReturn(
+            ImmutableSet.of(direct)).anyTimes();
+      expect(server.getAttribute(direct, "Count")).andReturn(3l).anyTimes();
+      expect(server.getAttribute(direct, "MemoryUsed")).andReturn(4096l).andReturn(8192l);
+      expect(server.getAttribute(direct, "TotalCapacity")).andReturn(16384l).anyTimes();
+
+      ChefApi chef = createMock(ChefApi.class);
+      expect(chef.getNode("node1")).andReturn(new Node("node1", ImmutableSet.<String> of(), "_default"));
+      expect(chef.updateNode(anyObject(Node.class))).andReturn(null);
+
+      replay(runtime, memory, collector, threads, os, server, chef);
+
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(String.class).annotatedWith(ApiVersion.class).toInstance(ChefApi.VERSION);
+         }
+      }, new ChefParserModule(), new GsonModule(), new JMXOhaiModule() {
+         @Override
+         protected RuntimeMXBean provideRuntimeMXBean() {
+            return runtime;
+         }
+
+         @Override
+         protected MemoryMXBean provideMemoryMXBean() {
+            return memory;
+         }
+
+         @Override
+         protected List<GarbageCollectorMXBean> provideGarbageCollectorMXBeans() {
+            return ImmutableList.of(collector);
+         }
+
+         @Override
+         protected ThreadMXBean provideThreadMXBean() {
+            return threads;
+         }
+
+         @Override
+         protected OperatingSystemMXBean provideOperatingSystemMXBean() {
+            return os;
+         }
+
+         @Override
+         protected MBeanServer provideMBeanServer() {
+            return server;
+         }
+      });
+      Ohai ohai = injector.getInstance(Ohai.class);
+      Set<String> live = injector.getInstance(Key.get(new TypeLiteral<Set<String>>() {
+      }, Live.class));
+      UpdateAutomaticAttributesOnNodeImpl updater = new UpdateAutomaticAttributesOnNodeImpl(chef, ohai.ohai, live,
+            TimeUnit.MINUTES.toMillis(30));
+
+      updater.execute("node1");
+      // only the jvm usage has changed, so the node is not updated
+      updater.execute("node1");
+
+      verify(runtime, memory, collector, threads, os, chef);
+   }
+
    static class Ohai {
       private Supplier<Map<String, JsonBall>> ohai;
 
@@ -0,0 +1,217 @@
+/**
+ * Licensed to jclouds, Inc. (jclouds) under one or more
+ * contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  jclouds licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.jclouds.ohai.functions;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.testng.Assert.assertEquals;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.jclouds.chef.ChefApi;
+import org.jclouds.chef.config.ChefParserModule;
+import org.jclouds.domain.JsonBall;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.jclouds.rest.annotations.ApiVersion;
+import org.testng.Reporter;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import com.google.gson.JsonParser;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.TypeLiteral;
+
+/**
+ * Compares the time taken by {@code NestSlashKeys} to merge a realistic set of
+ * ohai suppliers with the implementation that serialized and parsed the values
+ * again on each merge. It only runs in the benchmark profile, and reports the
+ * times in the TestNG report.
+ */
+@Test(groups = { "benchmark" }, singleThreaded = true)
+public class NestSlashKeysPerformanceTest {
+
+   private static final int ITERATIONS = 50;
+
+   private NestSlashKeys converter;
+   private RoundTripNestSlashKeys roundTripConverter;
+
+   @BeforeClass
+   protected void setUpInjector() {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            bind(String.class).annotatedWith(ApiVersion.class).toInstance(ChefApi.VERSION);
+         }
+      }, new ChefParserModule(), new GsonModule());
+      converter = injector.getInstance(NestSlashKeys.class);
+      roundTripConverter = new RoundTripNestSlashKeys(injector.getInstance(Json.class));
+   }
+
+   public void testMergeOhaiSuppliers() {
+      final Multimap<String, Supplier<JsonBall>> suppliers = ohai();
+      assertEquals(suppliers.size(), 300);
+
+      Map<String, JsonBall> merged = converter.apply(suppliers);
+      Map<String, JsonBall> expected = roundTripConverter.apply(suppliers);
+      assertEquals(merged.keySet(), expected.keySet());
+      JsonParser parser = new JsonParser();
+      for (String key : expected.keySet())
+         assertEquals(parser.parse(merged.get(key).toString()), parser.parse(expected.get(key).toString()), key);
+
+      long roundTrip = time(new Runnable() {
+         @Override
+         public void run() {
+            roundTripConverter.apply(suppliers);
+         }
+      });
+      long tree = time(new Runnable() {
+         @Override
+         public void run() {
+            converter.apply(suppliers);
+         }
+      });
+      Reporter.log(String.format("merge of %d suppliers: round trip %d us, tree %d us", suppliers.size(),
+            roundTrip / 1000, tree / 1000));
+   }
+
+   /**
+    * @return suppliers shaped like the ones registered by the ohai modules of a
+    *         host with many kernel modules, interfaces and filesystems.
+    */
+   private static Multimap<String, Supplier<JsonBall>> ohai() {
+      ImmutableListMultimap.Builder<String, Supplier<JsonBall>> ohai = ImmutableListMultimap.builder();
+      ohai.put("ohai_time", json("1380000000.123"));
+      ohai.put("platform", json("\"ubuntu\""));
+      ohai.put("platform_version", json("\"12.04\""));
+      ohai.put("hostname", json("\"web-1\""));
+      ohai.put("kernel", json("{\"name\":\"Linux\",\"release\":\"3.2.0-54-virtual\",\"modules\":{}}"));
+      ohai.put("network", json("{\"default_interface\":\"eth0\",\"interfaces\":{}}"));
+      ohai.put("jvm", json("{\"system\":{\"java.version\":\"1.6.0_45\"}}"));
+      for (int i = 0; i < 20; i++)
+         ohai.put("jvm", json("{\"system\":{\"prop" + i + "\":\"value " + i + "\"}}"));
+      for (int i = 0; i < 120; i++)
+         ohai.put("kernel/modules/module" + i, json("{\"size\":\"" + (1000 + i) + "\",\"refcount\":\"" + i % 3
+               + "\"}"));
+      for (int i = 0; i < 40; i++)
+         ohai.put("network/interfaces/eth" + i, json("{\"addresses\":{\"10.0.0." + i
+               + "\":{\"family\":\"inet\",\"netmask\":\"255.255.255.0\"}},\"flags\":[\"UP\",\"BROADCAST\"]}"));
+      for (int i = 0; i < 40; i++)
+         ohai.put("network/interfaces/eth" + i + "/mtu", json("1500"));
+      for (int i = 0; i < 73; i++)
+         ohai.put("filesystem/dev" + i, json("{\"kb_size\":\"" + i * 1024 + "\",\"mount\":\"/mnt/" + i
+               + "\",\"fs_type\":\"ext4\"}"));
+      return ohai.build();
+   }
+
+   private static Supplier<JsonBall> json(String value) {
+      return Suppliers.ofInstance(new JsonBall(value));
+   }
+
+   private static long time(Runnable task) {
+      // warm up before measuring
+      for (int i = 0; i < ITERATIONS; i++)
+         task.run();
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++)
+         task.run();
+      return (System.nanoTime() - start) / ITERATIONS;
+   }
+
+   /**
+    * The implementation that parsed the enclosing hashes and serialized them
+    * again for each value merged.
+    */
+   private static class RoundTripNestSlashKeys {
+      private final Type mapLiteral = new TypeLiteral<Map<String, JsonBall>>() {
+      }.getType();
+      private final Json json;
+
+      private RoundTripNestSlashKeys(Json json) {
+         this.json = json;
+      }
+
+      private Map<String, JsonBall> apply(Multimap<String, Supplier<JsonBall>> from) {
+         Map<String, JsonBall> merged = Maps.newLinkedHashMap();
+         for (Entry<String, Supplier<JsonBall>> entry : from.entries()) {
+            if (merged.containsKey(entry.getKey()))
+               mergeAsPeer(entry.getKey(), entry.getValue().get(), merged);
+            else
+               merged.put(entry.getKey(), entry.getValue().get());
+         }
+         Map<String, JsonBall> flat = Maps.newLinkedHashMap();
+         for (Entry<String, JsonBall> entry : merged.entrySet()) {
+            if (entry.getKey().indexOf('/') == -1)
+               flat.put(entry.getKey(), entry.getValue());
+         }
+         for (Entry<String, JsonBall> entry : merged.entrySet()) {
+            if (entry.getKey().indexOf('/') != -1)
+               putUnderContext(Lists.newArrayList(Splitter.on('/').split(entry.getKey())), entry.getValue(), flat);
+         }
+         return flat;
+      }
+
+      private void mergeAsPeer(String key, JsonBall value, Map<String, JsonBall> insertionContext) {
+         Map<String, JsonBall> valueContext = Maps.newHashMap(json.<Map<String, JsonBall>> fromJson(insertionContext
+               .get(key).toString(), mapLiteral));
+         Map<String, JsonBall> toPut = json.<Map<String, JsonBall>> fromJson(value.toString(), mapLiteral);
+         Set<String> uniques = Sets.difference(toPut.keySet(), valueContext.keySet());
+         for (String k : uniques)
+            valueContext.put(k, toPut.get(k));
+         for (String k : Sets.difference(toPut.keySet(), uniques)) {
+            JsonBall v = toPut.get(k);
+            if (v.toString().matches("^\\{.*\\}$"))
+               mergeAsPeer(k, v, valueContext);
+            else
+               valueContext.put(k, v);
+         }
+         insertionContext.put(key, new JsonBall(json.toJson(valueContext, mapLiteral)));
+      }
+
+      private void putUnderContext(List<String> keyParts, JsonBall toInsert, Map<String, JsonBall> destination) {
+         String rootKey = keyParts.remove(0);
+         String rootValue = destination.containsKey(rootKey) ? destination.get(rootKey).toString() : "{}";
+         checkArgument(rootValue.matches("^\\{.*\\}$"), "value must be a hash: %s", rootValue);
+         Map<String, JsonBall> insertionContext = Maps.newHashMap(json.<Map<String, JsonBall>> fromJson(rootValue,
+               mapLiteral));
+         if (keyParts.size() == 1) {
+            if (!insertionContext.containsKey(keyParts.get(0)))
+               insertionContext.put(keyParts.get(0), toInsert);
+            else
+               mergeAsPeer(keyParts.get(0), toInsert, insertionContext);
+         } else {
+            putUnderContext(keyParts, toInsert, insertionContext);
+         }
+         destination.put(rootKey, new JsonBall(json.toJson(insertionContext, mapLiteral)));
+      }
+   }
+}
@@ -80,7 +80,7 @@ public class NestSlashKeysTest {
             json.toJson(converter.apply(ImmutableMultimap.<String, Supplier<JsonBall>> of("java",
                   Suppliers.ofInstance(new JsonBall("{\"time\":\"time\"}")), "java/system",
                   Suppliers.ofInstance(new JsonBall("system"))))),
-            "{\"java\":{\"system\":\"system\",\"time\":\"time\"}}");
+            "{\"java\":{\"time\":\"time\",\"system\":\"system\"}}");
    }
 
    @Test
@@ -89,7 +89,7 @@ public class NestSlashKeysTest {
             json.toJson(converter.apply(ImmutableMultimap.<String, Supplier<JsonBall>> of("java",
                   Suppliers.ofInstance(new JsonBall("{\"time\":\"time\"}")), "java",
                   Suppliers.ofInstance(new JsonBall("{\"system\":\"system\"}"))))),
-            "{\"java\":{\"system\":\"system\",\"time\":\"time\"}}");
+            "{\"java\":{\"time\":\"time\",\"system\":\"system\"}}");
    }
 
    @Test
@@ -98,7 +98,7 @@ public class NestSlashKeysTest {
             json.toJson(converter.apply(ImmutableMultimap.<String, Supplier<JsonBall>> of("java",
                   Suppliers.ofInstance(new JsonBall("{\"time\":{\"1\":\"hello\"}}")), "java/time",
                   Suppliers.ofInstance(new JsonBall("{\"2\":\"goodbye\"}"))))),
-            "{\"java\":{\"time\":{\"2\":\"goodbye\",\"1\":\"hello\"}}}");
+            "{\"java\":{\"time\":{\"1\":\"hello\",\"2\":\"goodbye\"}}}");
    }
 
    @Test
@@ -107,7 +107,7 @@ public class NestSlashKeysTest {
             json.toJson(converter.apply(ImmutableMultimap.<String, Supplier<JsonBall>> of("java",
                   Suppliers.ofInstance(new JsonBall("{\"time\":{\"1\":\"hello\"}}")), "java",
                   Suppliers.ofInstance(new JsonBall("{\"time\":{\"2\":\"goodbye\"}}"))))),
-            "{\"java\":{\"time\":{\"2\":\"goodbye\",\"1\":\"hello\"}}}");
+            "{\"java\":{\"time\":{\"1\":\"hello\",\"2\":\"goodbye\"}}}");
    }
 
    @Test
@@ -118,4 +118,22 @@ public class NestSlashKeysTest {
                   Suppliers.ofInstance(new JsonBall("{\"1\":[\"goodbye\"]}"))))),
             "{\"java\":{\"time\":{\"1\":[\"goodbye\"]}}}");
    }
+
+   @Test
+   public void testNestCreatesMissingHashes() {
+      assertEquals(
+            json.toJson(converter.apply(ImmutableMultimap.<String, Supplier<JsonBall>> of("java/system/props",
+                  Suppliers.ofInstance(new JsonBall("{\"user.name\":\"chef\"}")), "java/system/time",
+                  Suppliers.ofInstance(new JsonBall("10"))))),
+            "{\"java\":{\"system\":{\"props\":{\"user.name\":\"chef\"},\"time\":10}}}");
+   }
+
+   @Test
+   public void testKeepsUntouchedValuesAsIs() {
+      assertEquals(
+            json.toJson(converter.apply(ImmutableMultimap.<String, Supplier<JsonBall>> of("java",
+                  Suppliers.ofInstance(new JsonBall("{\"time\":{\"1\":\"hello\"},\"vm\":\"x\"}")),
+                  "java/vm", Suppliers.ofInstance(new JsonBall("\"y\""))))),
+            "{\"java\":{\"time\":{\"1\":\"hello\"},\"vm\":\"y\"}}");
+   }
 }
@@ -23,6 +23,7 @@ import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.singleton;
 import static org.jclouds.chef.config.ChefProperties.CHEF_NODE;
 import static org.jclouds.chef.config.ChefProperties.CHEF_NODE_PATTERN;
+import static org.jclouds.chef.config.ChefProperties.CHEF_OHAI_REFRESH_INTERVAL;
 import static org.jclouds.chef.config.ChefProperties.CHEF_RUN_LIST;
 import static org.jclouds.chef.config.ChefProperties.CHEF_SERVICE_CLIENT;
 
@@ -42,18 +43,23 @@ import org.jclouds.chef.domain.Node;
 import org.jclouds.chef.servlet.functions.InitParamsToProperties;
 import org.jclouds.logging.Logger;
 import org.jclouds.logging.jdk.JDKLogger;
+import org.jclouds.ohai.AutomaticAttributesRefresher;
+import org.jclouds.ohai.config.OhaiRefresherModule;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.io.Closeables;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provider;
 
 /**
  * Registers a new node in Chef and binds its name to
  * {@link ChefConstants.CHEF_NODE}, its role to {@link ChefConstants.CHEF_ROLE}
  * and the {@link ChefService} for the client to
- * {@link ChefConstants.CHEF_SERVICE_CLIENT} upon initialized. Deletes the node
- * and client when the context is destroyed.
+ * {@link ChefConstants.CHEF_SERVICE_CLIENT} upon initialized. When the
+ * {@code chef.ohai-refresh-interval} init parameter is set, the
+ * automatic attributes of the node are refreshed in the background. Deletes
+ * the node and client when the context is destroyed.
  * 
  * @author Adrian Cole
  */
@@ -61,6 +67,8 @@ public class ChefRegistrationListener implements ServletContextListener {
 
    private Logger logger = new JDKLogger.JDKLoggerFactory().getLogger(ChefRegistrationListener.class.getName());
 
+   private Provider<AutomaticAttributesRefresher> refresher;
+
    @Override
    public void contextInitialized(ServletContextEvent servletContextEvent) {
       try {
@@ -87,6 +95,12 @@ public class ChefRegistrationListener implements ServletContextListener {
 
          servletContextEvent.getServletContext().setAttribute(CHEF_NODE, node);
          servletContextEvent.getServletContext().setAttribute(CHEF_SERVICE_CLIENT, client);
+         if (overrides.containsKey(CHEF_OHAI_REFRESH_INTERVAL)) {
+            AutomaticAttributesRefresher nodeRefresher = refresher.get();
+            nodeRefresher.schedule(nodeName);
+            servletContextEvent.getServletContext().setAttribute(AutomaticAttributesRefresher.class.getName(),
+                  nodeRefresher);
+         }
          logger.debug("initialized");
       } catch (RuntimeException e) {
          logger.error(e, "error registering");
@@ -115,9 +129,10 @@ public class ChefRegistrationListener implements ServletContextListener {
          @Override
          protected void configure() {
             bind(ServletContext.class).toInstance(servletContextEvent.getServletContext());
+            refresher = getProvider(AutomaticAttributesRefresher.class);
          }
 
-      })).overrides(props).buildView(ChefContext.class).getChefService();
+      }, new OhaiRefresherModule())).overrides(props).buildView(ChefContext.class).getChefService();
    }
 
    private static String getInitParam(ServletContextEvent servletContextEvent, String name) {
@@ -130,10 +145,16 @@ public class ChefRegistrationListener implements ServletContextListener {
    }
 
    /**
-    * removes the node and client if found, and closes the client context.
+    * stops refreshing the node attributes, removes the node and client if
+    * found, and closes the client context.
     */
    @Override
    public void contextDestroyed(ServletContextEvent servletContextEvent) {
+      AutomaticAttributesRefresher nodeRefresher = getContextAttributeOrNull(servletContextEvent,
+            AutomaticAttributesRefresher.class.getName());
+      if (nodeRefresher != null) {
+         nodeRefresher.close();
+      }
       ChefService client = getContextAttributeOrNull(servletContextEvent, CHEF_SERVICE_CLIENT);
       Node node = getContextAttributeOrNull(servletContextEvent, CHEF_NODE);
       if (node != null && client != null) {